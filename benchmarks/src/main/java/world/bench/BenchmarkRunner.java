@@ -0,0 +1,36 @@
+package world.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner.java
+ * @author John Zavidniak
+ * Run the benchmarks with the GC profiler always attached, so that
+ * the allocation rate is reported next to every score.
+ * Takes the same command line options as the JMH runner.
+ */
+
+public class BenchmarkRunner
+{
+    
+    /**
+     * @param args JMH command line options, such as a benchmark name pattern
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if the options can not be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+    
+}
\ No newline at end of file
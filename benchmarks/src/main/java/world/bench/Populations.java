@@ -0,0 +1,56 @@
+package world.bench;
+
+import world.World;
+import world.WorldConfig;
+
+/**
+ * Populations.java
+ * @author John Zavidniak
+ * Build the worlds used by the benchmarks. The side of the world grows with
+ * the population, so the density of Critters and Food stays close to that
+ * of the default 16 Critters and 30 pieces of Food in a 500 by 500 world.
+ */
+
+final class Populations
+{
+    
+    static final long SEED = 42;
+    
+    /**
+     * Populations is a collection of static helpers
+     */
+    private Populations()
+    {
+    }
+    
+    /**
+     * Create a populated world
+     * @param critters the number of Critters
+     * @param food the number of pieces of Food, two thirds of them healthy
+     * @return the new world, with reproduction turned off
+     */
+    static World create(int critters, int food)
+    {
+        return Populations.create(critters, food, 0);
+    }
+    
+    /**
+     * Create a populated world
+     * @param critters the number of Critters
+     * @param food the number of pieces of Food, two thirds of them healthy
+     * @param hiddenNeurons the size of the networks Critters steer by, or 0 for no networks
+     * @return the new world, with reproduction turned off
+     */
+    static World create(int critters, int food, int hiddenNeurons)
+    {
+        double scale = Math.sqrt(Math.max(critters / 16.0, food / 30.0));
+        int side = (int) Math.max(World.WORLD_WIDTH, World.WORLD_WIDTH * scale);
+        WorldConfig config = new WorldConfig();
+        config.setTicksPerGeneration(0);
+        config.setHiddenNeurons(hiddenNeurons);
+        World world = new World(SEED, side, side, config);
+        world.populate(critters, food * 2 / 3, food - food * 2 / 3);
+        return world;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package world.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import world.World;
+
+/**
+ * QueryBenchmark.java
+ * @author John Zavidniak
+ * The cost of finding the closest visible Food for every Critter once
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark
+{
+    
+    /*
+     * critters/food
+     */
+    @Param({"16/30", "1000/1000", "10000/10000", "100000/100000"})
+    public String population;
+    
+    private World world;
+    
+    /**
+     * Build the world for this trial, and move it along so Critters are spread out
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        String[] sizes = population.split("/");
+        world = Populations.create(Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1]));
+        for (int i = 0; i < 10; i++)
+        {
+            world.update();
+        }
+    }
+    
+    /**
+     * Find the closest visible Food for every Critter
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void closestVisibleFood(Blackhole blackhole)
+    {
+        int size = world.getCritterStore().size();
+        for (int c = 0; c < size; c++)
+        {
+            blackhole.consume(world.getClosestVisibleFood(c));
+        }
+    }
+    
+}
\ No newline at end of file
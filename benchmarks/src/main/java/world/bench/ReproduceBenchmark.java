@@ -0,0 +1,88 @@
+package world.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.Genetics;
+import world.World;
+import world.creatures.CritterStore;
+import world.selection.RankSelection;
+import world.selection.RouletteSelection;
+import world.selection.TournamentSelection;
+
+/**
+ * ReproduceBenchmark.java
+ * @author John Zavidniak
+ * The cost of creating one new generation with Genetics.reproduce
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReproduceBenchmark
+{
+    
+    @Param({"16", "1000", "100000"})
+    public int critters;
+    
+    @Param({"roulette", "rank", "tournament"})
+    public String selection;
+    
+    private Genetics genetics;
+    
+    /**
+     * Build a population with a spread of fitness for this trial
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        World world = Populations.create(critters, 0);
+        CritterStore store = world.getCritterStore();
+        SplittableRandom random = new SplittableRandom(Populations.SEED);
+        for (int i = 0; i < store.size(); i++)
+        {
+            store.setFoodEaten(i, random.nextInt(334));
+        }
+        genetics = world.getGenetics();
+        if (selection.equals("rank"))
+        {
+            genetics.setSelection(new RankSelection());
+        }
+        else if (selection.equals("tournament"))
+        {
+            genetics.setSelection(new TournamentSelection(4));
+        }
+        else
+        {
+            genetics.setSelection(new RouletteSelection());
+        }
+    }
+    
+    /**
+     * Create one new generation
+     * @return the Genetics, so reproduction cannot be optimized away
+     */
+    @Benchmark
+    public Genetics reproduce()
+    {
+        genetics.reproduce();
+        return genetics;
+    }
+    
+}
\ No newline at end of file
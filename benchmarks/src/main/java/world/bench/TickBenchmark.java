@@ -0,0 +1,74 @@
+package world.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.World;
+
+/**
+ * TickBenchmark.java
+ * @author John Zavidniak
+ * The cost of one World.update, without reproduction
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark
+{
+    
+    /*
+     * critters/food
+     */
+    @Param({"16/30", "1000/1000", "10000/10000", "100000/100000"})
+    public String population;
+    
+    @Param({"1"})
+    public int threads;
+    
+    /*
+     * the number of hidden neurons in each Critter's network, 0 for no networks
+     */
+    @Param({"0", "8"})
+    public int hiddenNeurons;
+    
+    private World world;
+    
+    /**
+     * Build the world for this trial
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        String[] sizes = population.split("/");
+        world = Populations.create(Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1]), hiddenNeurons);
+        world.setThreads(threads);
+    }
+    
+    /**
+     * Update the world once
+     * @return the world, so the update cannot be optimized away
+     */
+    @Benchmark
+    public World tick()
+    {
+        world.update();
+        return world;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package world.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import world.Vector;
+
+/**
+ * VectorBenchmark.java
+ * @author John Zavidniak
+ * The cost of the Vector primitives
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark
+{
+    
+    private Vector a = Vector.cartesian(3, 4);
+    private Vector b = Vector.cartesian(-2, 7);
+    private double dir = 1.0;
+    
+    /**
+     * @return the x-component of a vector
+     */
+    @Benchmark
+    public double getX()
+    {
+        return a.getX();
+    }
+    
+    /**
+     * @return the direction of a vector
+     */
+    @Benchmark
+    public double getDir()
+    {
+        return a.getDir();
+    }
+    
+    /**
+     * @return the magnitude of a vector
+     */
+    @Benchmark
+    public double getMag()
+    {
+        return a.getMag();
+    }
+    
+    /**
+     * @return the dot product of two vectors
+     */
+    @Benchmark
+    public double dot()
+    {
+        return a.dot(b);
+    }
+    
+    /**
+     * @return the angle between two vectors
+     */
+    @Benchmark
+    public double angleBetween()
+    {
+        return a.angleBetween(b);
+    }
+    
+    /**
+     * @return a vector whose direction has been set
+     */
+    @Benchmark
+    public Vector setDir()
+    {
+        dir += 0.001;
+        b.setDir(dir);
+        return b;
+    }
+    
+    /**
+     * @return a new, normalized vector
+     */
+    @Benchmark
+    public Vector normalized()
+    {
+        return a.normalized();
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package world.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import world.World;
+import world.WorldConfig;
+
+/**
+ * VisionBenchmark.java
+ * @author John Zavidniak
+ * The cost of finding the closest visible Food for every Critter once,
+ * with the scalar and the Vector API vision kernels, as Food gets denser
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VisionBenchmark
+{
+    
+    private static final int SIDE = 1000;
+    private static final int CRITTERS = 1000;
+    
+    @Param({"scalar", "simd"})
+    public String vision;
+    
+    @Param({"1000", "10000", "100000"})
+    public int food;
+    
+    private World world;
+    
+    /**
+     * Pick the kernel before any World is created, then build the world for this trial
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        System.setProperty("smartbots.vision", vision);
+        WorldConfig config = new WorldConfig();
+        config.setTicksPerGeneration(0);
+        world = new World(Populations.SEED, VisionBenchmark.SIDE, VisionBenchmark.SIDE, config);
+        world.populate(VisionBenchmark.CRITTERS, food, 0);
+        if (!World.getVisionKernel().equals(vision))
+        {
+            throw new IllegalStateException(vision + " kernel is not available");
+        }
+    }
+    
+    /**
+     * Find the closest visible Food for every Critter
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void closestVisibleFood(Blackhole blackhole)
+    {
+        int size = world.getCritterStore().size();
+        for (int c = 0; c < size; c++)
+        {
+            blackhole.consume(world.getClosestVisibleFood(c));
+        }
+    }
+    
+}
\ No newline at end of file
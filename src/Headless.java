@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.util.List;
+
+import world.IslandModel;
+import world.ShardCoordinator;
+import world.World;
+import world.creatures.CritterStore;
+
+/**
+ * Headless.java
+ * @author John Zavidniak
+ * Run the simulation as fast as possible without
+ * drawing anything, then report how fast it ran
+ */
+
+public class Headless
+{
+    
+    private World world;
+    
+    /**
+     * Create a new headless run of a world
+     * @param world the world to run
+     */
+    public Headless(World world)
+    {
+        this.world = world;
+    }
+    
+    /**
+     * Update the world until either limit is reached, then print a report
+     * @param ticks the number of updates to run, or 0 for no limit
+     * @param generations the number of generations to run, or 0 for no limit
+     * @throws IllegalArgumentException if the run would never end
+     */
+    public void run(long ticks, long generations)
+    {
+        if (generations > 0 && !world.getConfig().endsGenerations())
+        {
+            throw new IllegalArgumentException("the world would never reach its next generation");
+        }
+        long startTick = world.getTick();
+        long startGeneration = world.getGeneration();
+        long start = System.nanoTime();
+        while ((ticks <= 0 || world.getTick() - startTick < ticks)
+                && (generations <= 0 || world.getGeneration() - startGeneration < generations))
+        {
+            world.update();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long ran = world.getTick() - startTick;
+        
+        System.out.printf("seed: %d%n", world.getSeed());
+        System.out.printf("ticks: %d%n", ran);
+        System.out.printf("generations: %d%n", world.getGeneration() - startGeneration);
+        System.out.printf("seconds: %.3f%n", seconds);
+        System.out.printf("ticks/sec: %.1f%n", ran / seconds);
+        System.out.printf("average foodAttractiveness: %.4f%n", Headless.averageAttractiveness(world));
+        System.out.printf("fitness: %.4f%n", world.getGenetics().getFitness());
+    }
+    
+    /**
+     * Evolve the islands of an island model, then print a report
+     * @param model the island model to run
+     * @param generations the number of generations every island should go through
+     * @param threads the number of threads to share the islands between
+     */
+    public static void runIslands(IslandModel model, long generations, int threads)
+    {
+        World[] islands = model.getIslands();
+        long startTick = 0;
+        for (World island : islands)
+        {
+            startTick += island.getTick();
+        }
+        long start = System.nanoTime();
+        try
+        {
+            model.run(generations, threads);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long ran = -startTick;
+        for (int i = 0; i < islands.length; i++)
+        {
+            ran += islands[i].getTick();
+            System.out.printf("island %d: seed %d, average foodAttractiveness %.4f, fitness %.4f%n", i,
+                    islands[i].getSeed(), Headless.averageAttractiveness(islands[i]),
+                    islands[i].getGenetics().getFitness());
+        }
+        System.out.printf("islands: %d%n", islands.length);
+        System.out.printf("generations: %d%n", generations);
+        System.out.printf("seconds: %.3f%n", seconds);
+        System.out.printf("ticks/sec: %.1f%n", ran / seconds);
+        System.out.printf("generations/sec: %.1f%n", generations * islands.length / seconds);
+    }
+    
+    /**
+     * Start the shards of a sharded world, step them until either limit is reached,
+     * stop them, then print a report
+     * @param coordinator the coordinator of the shards
+     * @param command the command which starts a shard
+     * @param unix true to talk to the shards over Unix domain sockets, false for TCP
+     * @param ticks the number of updates to run, or 0 for no limit
+     * @param generations the number of generations to run, or 0 for no limit
+     * @throws IOException if a shard can not be started or talked to
+     * @throws IllegalArgumentException if the run would never end
+     */
+    public static void runShards(ShardCoordinator coordinator, List<String> command, boolean unix,
+            long ticks, long generations) throws IOException
+    {
+        if (generations > 0 && !coordinator.getWorld().getConfig().endsGenerations())
+        {
+            throw new IllegalArgumentException("the world would never reach its next generation");
+        }
+        double seconds;
+        try
+        {
+            coordinator.start(command, unix);
+            long start = System.nanoTime();
+            while ((ticks <= 0 || coordinator.getTick() < ticks)
+                    && (generations <= 0 || coordinator.getGeneration() < generations))
+            {
+                coordinator.step();
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            coordinator.finish();
+        }
+        finally
+        {
+            coordinator.close();
+        }
+        
+        World world = coordinator.getWorld();
+        System.out.printf("seed: %d%n", world.getSeed());
+        System.out.printf("shards: %d (%s)%n", coordinator.getShards(), unix ? "unix" : "tcp");
+        System.out.printf("ticks: %d%n", coordinator.getTick());
+        System.out.printf("generations: %d%n", coordinator.getGeneration());
+        System.out.printf("seconds: %.3f%n", seconds);
+        System.out.printf("ticks/sec: %.1f%n", coordinator.getTick() / seconds);
+        System.out.printf("average foodAttractiveness: %.4f%n", Headless.averageAttractiveness(world));
+        System.out.printf("fitness: %.4f%n", world.getGenetics().getFitness());
+    }
+    
+    /**
+     * Get the average foodAttractiveness of the Critters in a world
+     * @param world the world to use
+     * @return the average foodAttractiveness, or 0 if there are no Critters
+     */
+    static double averageAttractiveness(World world)
+    {
+        CritterStore critters = world.getCritterStore();
+        double attractiveness = 0;
+        for (int i = 0; i < critters.size(); i++)
+        {
+            attractiveness += critters.getFoodAttractiveness(i);
+        }
+        return (critters.size() > 0) ? attractiveness / critters.size() : 0;
+    }
+    
+}
\ No newline at end of file
@@ -1,9 +1,28 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.management.JMException;
+
+import world.Checkpoint;
+import world.Checkpointer;
+import world.FrameBuffer;
+import world.Genetics;
+import world.IslandModel;
+import world.Recorder;
+import world.Replay;
+import world.Seeds;
+import world.ShardCoordinator;
+import world.ShardWorker;
 import world.World;
-import world.creatures.Critter;
-import world.creatures.Food;
+import world.WorldConfig;
 import world.graphics.View;
+import world.metrics.MetricsReporter;
+import world.metrics.SimulationMetrics;
 
 /**
  * Main.java
@@ -16,50 +35,554 @@ public class Main implements Runnable
 {
     
     private World world;
-    private View view;
     
     /**
      * Begin the simulation
      * @param world the world to use
-     * @param view the graphical display
      */
-    public Main(World world, View view)
+    public Main(World world)
     {
         this.world = world;
-        this.view = view;
         new Thread(this).start();
     }
     
     /**
-     * @param args
+     * Determine whether a restored world evolves the way the command line asks for
+     * @param world the restored world
+     * @param selection the name of the selection strategy asked for, or null for any
+     * @param respawn the name of the respawn policy asked for, or null for any
+     * @param regrowth the number of updates eaten Food takes to grow back, or -1 for any
+     * @return true if every setting asked for is the one the world was saved with, false if not
+     */
+    private static boolean matches(World world, String selection, String respawn, int regrowth)
+    {
+        return (selection == null || selection.equals(world.getGenetics().getSelection().getName()))
+                && (respawn == null || respawn.equals(world.getRespawn().getName()))
+                && (regrowth < 0 || regrowth == world.getRespawn().getDelay());
+    }
+    
+    /**
+     * Get the checkpoint file of one island
+     * @param path the checkpoint file given on the command line
+     * @param island the index of the island
+     * @param islands the number of islands
+     * @return path itself for a single world, otherwise path with the island's index appended
+     */
+    private static Path islandPath(String path, int island, int islands)
+    {
+        return Paths.get((islands == 1) ? path : path + "." + island);
+    }
+    
+    /**
+     * Get the command which starts this program again in a new process, with the same options
+     * @param args the command line options this program was started with
+     * @param seed the seed of the run, which every shard must share
+     * @return the java executable, the options of this JVM, the class path, this class, and args
+     */
+    private static List<String> shardCommand(String[] args, long seed)
+    {
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+        // a seed drawn from the clock is passed on, so every shard uses the same one
+        command.add("--seed");
+        command.add(Long.toString(seed));
+        return command;
+    }
+    
+    /**
+     * Wait for the last checkpoints to be written, finish the recordings,
+     * and print the final metrics
+     * @param checkpointers the checkpointers of every world
+     * @param recorders the recorders of every world
+     * @param reporters the metrics reporters of every world
+     */
+    private static void close(Checkpointer[] checkpointers, Recorder[] recorders, MetricsReporter[] reporters)
+    {
+        for (MetricsReporter reporter : reporters)
+        {
+            reporter.stop();
+            reporter.run();
+        }
+        for (Checkpointer checkpointer : checkpointers)
+        {
+            checkpointer.close();
+        }
+        for (Recorder recorder : recorders)
+        {
+            try
+            {
+                recorder.close();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Draw a recording in a View instead of a live world
+     * @param path the file the recording was written to
+     * @param delay the number of milliseconds to show each tick for
+     */
+    private static void replay(String path, long delay)
+    {
+        try
+        {
+            Replay replay = new Replay(Paths.get(path));
+            FrameBuffer frames = new FrameBuffer();
+            new View(frames, replay.getWidth(), replay.getHeight());
+            replay.play(frames, delay);
+            replay.close();
+        }
+        catch (IOException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Print the command line options and exit
+     */
+    private static void usage()
+    {
+        System.err.println("usage: Main [--headless] [--ticks N] [--generations N]");
+        System.err.println("            [--critters N] [--healthy N] [--unhealthy N]");
+        System.err.println("            [--width N] [--height N] [--threads N] [--seed N]");
+        System.err.println("            [--generation-ticks N] [--generation-food N]");
+        System.err.println("            [--selection roulette|rank|tournament]");
+        System.err.println("            [--respawn uniform|clustered] [--regrowth TICKS]");
+        System.err.println("            [--islands N --generations N [--migration-interval N] [--migrants N]]");
+        System.err.println("            [--shards N [--shard-transport unix|tcp]]");
+        System.err.println("            [--set NAME=VALUE]...");
+        System.err.println("            [--checkpoint FILE [--checkpoint-interval N]] [--restore FILE]");
+        System.err.println("            [--record FILE] [--metrics SECONDS] [--jmx]");
+        System.err.println("       Main --sweep FILE [--out FILE] [--threads N]");
+        System.err.println("       Main --replay FILE [--replay-delay MS]");
+        System.exit(1);
+    }
+    
+    /**
+     * @param args the command line options, see usage()
      */
     public static void main(String[] args)
     {
-        World world = new World();
-        List<Critter> critters = world.getCritters();
-        List<Food> food = world.getFood();
-        for (int i = 0; i < 16; i++)
+        boolean headless = false;
+        long ticks = 0;
+        long generations = 0;
+        int critters = 16;
+        int healthy = 20;
+        int unhealthy = 10;
+        int width = World.WORLD_WIDTH;
+        int height = World.WORLD_HEIGHT;
+        int threads = 0;
+        long seed = System.nanoTime();
+        WorldConfig config = new WorldConfig();
+        String sweep = null;
+        String out = null;
+        String selection = null;
+        String respawn = null;
+        int regrowth = -1;
+        int islands = 1;
+        int migrationInterval = 10;
+        int migrants = 2;
+        int shards = 1;
+        String shardTransport = "unix";
+        String shardWorker = null;
+        int shard = 0;
+        String checkpoint = null;
+        long checkpointInterval = 10000;
+        String restore = null;
+        String record = null;
+        String replay = null;
+        long replayDelay = 16;
+        double metricsPeriod = 0;
+        boolean jmx = false;
+        try
+        {
+            for (int i = 0; i < args.length; i++)
+            {
+                String arg = args[i];
+                if (arg.equals("--headless"))
+                {
+                    headless = true;
+                    continue;
+                }
+                if (arg.equals("--jmx"))
+                {
+                    jmx = true;
+                    continue;
+                }
+                if (i + 1 >= args.length)
+                {
+                    usage();
+                }
+                String value = args[++i];
+                if (arg.equals("--ticks"))
+                {
+                    ticks = Long.parseLong(value);
+                }
+                else if (arg.equals("--generations"))
+                {
+                    generations = Long.parseLong(value);
+                }
+                else if (arg.equals("--critters"))
+                {
+                    critters = Integer.parseInt(value);
+                }
+                else if (arg.equals("--healthy"))
+                {
+                    healthy = Integer.parseInt(value);
+                }
+                else if (arg.equals("--unhealthy"))
+                {
+                    unhealthy = Integer.parseInt(value);
+                }
+                else if (arg.equals("--width"))
+                {
+                    width = Integer.parseInt(value);
+                }
+                else if (arg.equals("--height"))
+                {
+                    height = Integer.parseInt(value);
+                }
+                else if (arg.equals("--threads"))
+                {
+                    threads = Integer.parseInt(value);
+                }
+                else if (arg.equals("--seed"))
+                {
+                    seed = Long.parseLong(value);
+                }
+                else if (arg.equals("--generation-ticks"))
+                {
+                    config.setTicksPerGeneration(Integer.parseInt(value));
+                }
+                else if (arg.equals("--generation-food"))
+                {
+                    config.setFoodPerGeneration(Integer.parseInt(value));
+                }
+                else if (arg.equals("--selection") && Genetics.createSelection(value) != null)
+                {
+                    selection = value;
+                }
+                else if (arg.equals("--respawn") && World.createRespawn(value, 0) != null)
+                {
+                    respawn = value;
+                }
+                else if (arg.equals("--regrowth") && Integer.parseInt(value) >= 0)
+                {
+                    regrowth = Integer.parseInt(value);
+                }
+                else if (arg.equals("--islands"))
+                {
+                    islands = Integer.parseInt(value);
+                }
+                else if (arg.equals("--migration-interval") && Integer.parseInt(value) > 0)
+                {
+                    migrationInterval = Integer.parseInt(value);
+                }
+                else if (arg.equals("--migrants") && Integer.parseInt(value) >= 0)
+                {
+                    migrants = Integer.parseInt(value);
+                }
+                else if (arg.equals("--shards"))
+                {
+                    shards = Integer.parseInt(value);
+                }
+                else if (arg.equals("--shard-transport") && (value.equals("unix") || value.equals("tcp")))
+                {
+                    shardTransport = value;
+                }
+                else if (arg.equals("--shard-worker"))
+                {
+                    shardWorker = value;
+                }
+                else if (arg.equals("--shard"))
+                {
+                    shard = Integer.parseInt(value);
+                }
+                else if (arg.equals("--set") && value.indexOf('=') > 0)
+                {
+                    config.set(value.substring(0, value.indexOf('=')).trim(),
+                            value.substring(value.indexOf('=') + 1).trim());
+                }
+                else if (arg.equals("--checkpoint"))
+                {
+                    checkpoint = value;
+                }
+                else if (arg.equals("--checkpoint-interval"))
+                {
+                    checkpointInterval = Long.parseLong(value);
+                }
+                else if (arg.equals("--restore"))
+                {
+                    restore = value;
+                }
+                else if (arg.equals("--record"))
+                {
+                    record = value;
+                }
+                else if (arg.equals("--replay"))
+                {
+                    replay = value;
+                }
+                else if (arg.equals("--replay-delay"))
+                {
+                    replayDelay = Long.parseLong(value);
+                }
+                else if (arg.equals("--metrics"))
+                {
+                    metricsPeriod = Double.parseDouble(value);
+                }
+                else if (arg.equals("--sweep"))
+                {
+                    sweep = value;
+                }
+                else if (arg.equals("--out"))
+                {
+                    out = value;
+                }
+                else
+                {
+                    usage();
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            usage();
+        }
+        if (restore == null)
+        {
+            selection = (selection == null) ? "roulette" : selection;
+            respawn = (respawn == null) ? "uniform" : respawn;
+            regrowth = Math.max(0, regrowth);
+        }
+        
+        if (sweep != null)
+        {
+            if (threads <= 0)
+            {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            try
+            {
+                Sweep.load(sweep).run(threads, out);
+            }
+            catch (IOException e)
+            {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            catch (IllegalArgumentException e)
+            {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        if (replay != null)
+        {
+            Main.replay(replay, replayDelay);
+            return;
+        }
+        
+        if (shardWorker != null)
+        {
+            // a single shard keeps the seed, so it runs exactly as the unsharded world would
+            long shardSeed = (shards == 1) ? seed : Seeds.derive(seed, Seeds.SHARD_STREAM, shard);
+            World world = new World(shardSeed, width, height, config);
+            world.setThreads(Math.max(1, threads));
+            world.setRespawn(World.createRespawn(respawn, regrowth));
+            try
+            {
+                new ShardWorker(world, shard, shards).run(shardWorker);
+            }
+            catch (IOException e)
+            {
+                System.err.println("shard " + shard + ": " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        if (shards > 1)
+        {
+            if (!headless || (ticks <= 0 && generations <= 0) || islands > 1 || checkpoint != null
+                    || restore != null || record != null || metricsPeriod > 0 || jmx)
+            {
+                usage();
+            }
+            if (generations > 0 && !config.endsGenerations())
+            {
+                System.err.println("the world would never reach its next generation");
+                System.exit(1);
+            }
+            World world = new World(seed, width, height, config);
+            world.getGenetics().setSelection(Genetics.createSelection(selection));
+            world.populate(critters, healthy, unhealthy);
+            try
+            {
+                Headless.runShards(new ShardCoordinator(world, shards), Main.shardCommand(args, seed),
+                        shardTransport.equals("unix"), ticks, generations);
+            }
+            catch (IOException e)
+            {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            catch (IllegalArgumentException e)
+            {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        World[] worlds = new World[Math.max(1, islands)];
+        // islands are checkpointed together by their model, once they have met
+        Checkpointer[] checkpointers = new Checkpointer[(checkpoint == null || worlds.length > 1) ? 0 : 1];
+        Recorder[] recorders = new Recorder[(record == null) ? 0 : worlds.length];
+        MetricsReporter[] reporters = new MetricsReporter[(metricsPeriod > 0) ? worlds.length : 0];
+        for (int i = 0; i < worlds.length; i++)
         {
-            critters.add(new Critter((int) (Math.random() * World.WORLD_WIDTH),
-                    (int) (Math.random() * World.WORLD_HEIGHT)));
+            if (restore != null)
+            {
+                Path path = Main.islandPath(restore, i, worlds.length);
+                try
+                {
+                    worlds[i] = Checkpoint.read(path);
+                }
+                catch (IOException e)
+                {
+                    System.err.println(e.getMessage());
+                    System.exit(1);
+                }
+                if (!Main.matches(worlds[i], selection, respawn, regrowth))
+                {
+                    System.err.println(path + " was written with --selection "
+                            + worlds[i].getGenetics().getSelection().getName() + " --respawn "
+                            + worlds[i].getRespawn().getName() + " --regrowth " + worlds[i].getRespawn().getDelay());
+                    System.exit(1);
+                }
+            }
+            else
+            {
+                long worldSeed = (worlds.length == 1) ? seed : Seeds.derive(seed, Seeds.ISLAND_STREAM, i);
+                worlds[i] = new World(worldSeed, width, height, config.copy());
+            }
+            if (generations > 0 && !worlds[i].getConfig().endsGenerations())
+            {
+                System.err.println("the world would never reach its next generation");
+                System.exit(1);
+            }
+            worlds[i].setThreads((worlds.length == 1) ? Math.max(1, threads) : 1);
+            if (restore == null)
+            {
+                worlds[i].getGenetics().setSelection(Genetics.createSelection(selection));
+                worlds[i].setRespawn(World.createRespawn(respawn, regrowth));
+                worlds[i].populate(critters, healthy, unhealthy);
+            }
+            if (checkpointers.length > 0)
+            {
+                checkpointers[i] = worlds[i].checkpointEvery(checkpointInterval, Paths.get(checkpoint));
+            }
+            if (metricsPeriod > 0 || jmx)
+            {
+                SimulationMetrics metrics = worlds[i].enableMetrics();
+                String name = (worlds.length == 1) ? "world" : "island " + i;
+                if (metricsPeriod > 0)
+                {
+                    reporters[i] = new MetricsReporter(name, metrics, System.out);
+                    reporters[i].start((long) (metricsPeriod * 1000));
+                }
+                if (jmx)
+                {
+                    try
+                    {
+                        metrics.register(name);
+                    }
+                    catch (JMException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            if (record != null)
+            {
+                try
+                {
+                    recorders[i] = worlds[i].record(Main.islandPath(record, i, worlds.length));
+                }
+                catch (IOException e)
+                {
+                    System.err.println(e.getMessage());
+                    System.exit(1);
+                }
+            }
         }
-        for (int i = 0; i < 20; i++)
+        if (worlds.length > 1)
         {
-            food.add(new Food ((int) (Math.random() * World.WORLD_WIDTH), (int) (Math.random() * World.WORLD_HEIGHT),
-                    true));
+            if (!headless || generations <= 0)
+            {
+                usage();
+            }
+            if (threads <= 0)
+            {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            for (World island : worlds)
+            {
+                if (island.getGeneration() != worlds[0].getGeneration())
+                {
+                    System.err.println("the island checkpoints were written at different generations");
+                    System.exit(1);
+                }
+            }
+            IslandModel model = new IslandModel(worlds, migrationInterval, migrants);
+            if (checkpoint != null)
+            {
+                Path[] paths = new Path[worlds.length];
+                for (int i = 0; i < paths.length; i++)
+                {
+                    paths[i] = Main.islandPath(checkpoint, i, worlds.length);
+                }
+                model.checkpointEvery(checkpointInterval, paths);
+            }
+            Headless.runIslands(model, generations, threads);
+            Main.close(checkpointers, recorders, reporters);
+            return;
         }
-        for (int i = 0; i < 10; i++)
+        World world = worlds[0];
+        if (headless)
         {
-            food.add(new Food ((int) (Math.random() * World.WORLD_WIDTH), (int) (Math.random() * World.WORLD_HEIGHT),
-                    false));
+            if (ticks <= 0 && generations <= 0)
+            {
+                usage();
+            }
+            new Headless(world).run(ticks, generations);
+            Main.close(checkpointers, recorders, reporters);
+            return;
         }
-        View view = new View(world, World.WORLD_WIDTH, World.WORLD_HEIGHT);
-        new Main(world, view);
+        new View(world.publishFrames(), world.getWidth(), world.getHeight());
+        new Main(world);
     }
-
+    
     /**
-     * Update the world,
-     * then draw the graphics
+     * Update the world, slowly enough to watch.
+     * The View draws the published Frames on its own schedule.
      */
     @Override
     public void run()
@@ -75,7 +598,6 @@ public class Main implements Runnable
             {
                 e.printStackTrace();
             }
-            view.repaint();
         }
     }
     
@@ -0,0 +1,276 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import world.Seeds;
+import world.World;
+import world.WorldConfig;
+import world.creatures.Critter;
+
+/**
+ * Sweep.java
+ * @author John Zavidniak
+ * Run a batch of headless experiments over every combination
+ * of a set of parameter values, and write one CSV row per run.
+ * A sweep file is a properties file in which each WorldConfig parameter
+ * may be given a comma separated list of values, for example
+ *     mutate = 0.01, 0.05, 0.1
+ *     crossover = 0.5, 0.7
+ * alongside the settings shared by every run:
+ * critters, healthy, unhealthy, width, height, generations, repeats, seed, target and fitnessTarget.
+ */
+
+public class Sweep
+{
+    
+    public static final double FITNESS_TARGET = 1;
+    
+    private static final String[] SETTINGS = {"critters", "healthy", "unhealthy",
+        "width", "height", "generations", "repeats", "seed", "target", "fitnessTarget"};
+    
+    private int critters;
+    private int healthy;
+    private int unhealthy;
+    private int width;
+    private int height;
+    private long generations;
+    private int repeats;
+    private long seed;
+    private double target;
+    private double fitnessTarget;
+    private List<WorldConfig> configs;
+    
+    /**
+     * Create a new sweep from its definition
+     * @param definition the settings and parameter values of the sweep
+     * @throws IllegalArgumentException if the definition names an unknown parameter
+     * @throws NumberFormatException if a value is not a number
+     */
+    public Sweep(Properties definition)
+    {
+        for (String key : definition.stringPropertyNames())
+        {
+            if (!Sweep.contains(Sweep.SETTINGS, key) && !Sweep.contains(WorldConfig.NAMES, key))
+            {
+                throw new IllegalArgumentException("unknown parameter " + key);
+            }
+        }
+        this.critters = Integer.parseInt(definition.getProperty("critters", "16").trim());
+        this.healthy = Integer.parseInt(definition.getProperty("healthy", "20").trim());
+        this.unhealthy = Integer.parseInt(definition.getProperty("unhealthy", "10").trim());
+        this.width = Integer.parseInt(definition.getProperty("width", "" + World.WORLD_WIDTH).trim());
+        this.height = Integer.parseInt(definition.getProperty("height", "" + World.WORLD_HEIGHT).trim());
+        this.generations = Long.parseLong(definition.getProperty("generations", "100").trim());
+        this.repeats = Integer.parseInt(definition.getProperty("repeats", "1").trim());
+        this.seed = Long.parseLong(definition.getProperty("seed", "0").trim());
+        this.target = Double.parseDouble(definition.getProperty("target", "" + Critter.FINAL_ATTRACTIVENESS).trim());
+        this.fitnessTarget = Double.parseDouble(definition.getProperty("fitnessTarget", "" + Sweep.FITNESS_TARGET).trim());
+        
+        this.configs = new ArrayList<WorldConfig>();
+        configs.add(new WorldConfig());
+        for (String name : WorldConfig.NAMES)
+        {
+            String values = definition.getProperty(name);
+            if (values == null)
+            {
+                continue;
+            }
+            List<WorldConfig> product = new ArrayList<WorldConfig>();
+            for (WorldConfig config : configs)
+            {
+                for (String value : values.split(","))
+                {
+                    WorldConfig c = config.copy();
+                    c.set(name, value.trim());
+                    product.add(c);
+                }
+            }
+            configs = product;
+        }
+        for (WorldConfig config : configs)
+        {
+            if (!config.endsGenerations())
+            {
+                throw new IllegalArgumentException("a run would never reach its next generation");
+            }
+        }
+    }
+    
+    /**
+     * Read a sweep from a file
+     * @param path the path of the sweep file
+     * @return the new sweep
+     * @throws IOException if the file can not be read
+     */
+    public static Sweep load(String path) throws IOException
+    {
+        Properties definition = new Properties();
+        try (Reader in = new FileReader(path))
+        {
+            definition.load(in);
+        }
+        return new Sweep(definition);
+    }
+    
+    /**
+     * Check whether an array holds a string
+     * @param array the array to search
+     * @param s the string to search for
+     * @return true if s is in array
+     */
+    private static boolean contains(String[] array, String s)
+    {
+        for (String t : array)
+        {
+            if (t.equals(s))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the number of runs in this sweep
+     * @return the number of parameter combinations times the number of repeats
+     */
+    public int size()
+    {
+        return configs.size() * repeats;
+    }
+    
+    /**
+     * Run every experiment in the sweep, several at a time.
+     * Each run is single threaded, so runs are spread over a fixed pool
+     * rather than each World forking its own work.
+     * Rows are written in sweep order, whatever order the runs finish in.
+     * Every combination shares the same seeds, so they are compared on the same starting Worlds.
+     * @param threads the number of runs to execute at once
+     * @param path the file to write the CSV to, or null for standard output
+     * @throws IOException if the CSV can not be written
+     */
+    public void run(int threads, String path) throws IOException
+    {
+        PrintStream out = (path == null) ? System.out : new PrintStream(path);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try
+        {
+            List<Future<String>> rows = new ArrayList<Future<String>>();
+            for (int c = 0; c < configs.size(); c++)
+            {
+                for (int r = 0; r < repeats; r++)
+                {
+                    final WorldConfig config = configs.get(c);
+                    final long runSeed = (r == 0) ? seed : Seeds.derive(seed, Seeds.SWEEP_STREAM, r);
+                    rows.add(pool.submit(new Callable<String>()
+                    {
+                        @Override
+                        public String call()
+                        {
+                            return runOne(config, runSeed);
+                        }
+                    }));
+                }
+            }
+            
+            StringBuilder header = new StringBuilder();
+            for (String name : WorldConfig.NAMES)
+            {
+                header.append(name).append(',');
+            }
+            header.append("seed,generations,attractiveness,fitness,convergence,seconds");
+            out.println(header);
+            for (Future<String> row : rows)
+            {
+                out.println(row.get());
+                out.flush();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("a run failed", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+            if (out != System.out)
+            {
+                out.close();
+            }
+        }
+    }
+    
+    /**
+     * Check whether a World has converged. Critters which steer by foodAttractiveness
+     * have converged once it reaches the target on average; Critters with networks start
+     * every generation having eaten nothing, so theirs is judged by the fitness of the last generation.
+     * @param world the World which has just reached a new generation
+     * @return true if the World has reached its target
+     */
+    private boolean converged(World world)
+    {
+        if (world.getConfig().getHiddenNeurons() > 0)
+        {
+            return world.getGenetics().getFitness() >= fitnessTarget;
+        }
+        return Headless.averageAttractiveness(world) >= target;
+    }
+    
+    /**
+     * Evolve a single World for the configured number of generations
+     * @param config the parameters of the World
+     * @param runSeed the seed of the World
+     * @return the CSV row describing the run
+     */
+    private String runOne(WorldConfig config, long runSeed)
+    {
+        World world = new World(runSeed, width, height, config);
+        world.setThreads(1);
+        world.populate(critters, healthy, unhealthy);
+        
+        long convergence = -1;
+        long generation = world.getGeneration();
+        long start = System.nanoTime();
+        while (world.getGeneration() < generations)
+        {
+            world.update();
+            if (world.getGeneration() != generation)
+            {
+                generation = world.getGeneration();
+                if (convergence < 0 && converged(world))
+                {
+                    convergence = generation;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        StringBuilder row = new StringBuilder();
+        for (String name : WorldConfig.NAMES)
+        {
+            row.append(config.get(name)).append(',');
+        }
+        row.append(runSeed).append(',')
+            .append(world.getGeneration()).append(',')
+            .append(String.format(Locale.ROOT, "%.4f", Headless.averageAttractiveness(world))).append(',')
+            .append(String.format(Locale.ROOT, "%.4f", world.getGenetics().getFitness())).append(',')
+            .append(convergence).append(',')
+            .append(String.format(Locale.ROOT, "%.3f", seconds));
+        return row.toString();
+    }
+    
+}
\ No newline at end of file
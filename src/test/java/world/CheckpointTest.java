@@ -0,0 +1,147 @@
+package world;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * CheckpointTest.java
+ * @author John Zavidniak
+ * A World saved, restored and updated on ends up exactly where the same World
+ * would have been had it never stopped.
+ */
+
+class CheckpointTest
+{
+    
+    private static final int CRITTERS = 1500;
+    private static final int ISLANDS = 3;
+    private static final int ISLAND_CRITTERS = 400;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Save, restore and continue, and compare against an uninterrupted run
+     * @param world the World to save part way
+     * @param twin the same World, run without stopping
+     * @param before the number of updates before saving
+     * @param after the number of updates after restoring
+     * @return the restored World, after it has continued
+     * @throws IOException if the checkpoint can not be written or read
+     */
+    private World resume(World world, World twin, int before, int after) throws IOException
+    {
+        Path path = directory.resolve("run.ck");
+        TestWorlds.run(world, before);
+        Checkpoint.save(world, path);
+        World restored = Checkpoint.read(path);
+        restored.setThreads(2);
+        // a restored World starts with no sight cache entries, and must still see what the twin, which looks every update, sees
+        restored.setSightCache(true);
+        TestWorlds.run(restored, after);
+        TestWorlds.run(twin, before + after);
+        assertEquals(twin.getTick(), restored.getTick());
+        assertEquals(twin.getGeneration(), restored.getGeneration());
+        assertArrayEquals(TestWorlds.state(twin), TestWorlds.state(restored));
+        return restored;
+    }
+    
+    /**
+     * Restoring part way through a generation continues every config exactly
+     * @throws IOException if a checkpoint can not be written or read
+     */
+    @Test
+    void restoredRunMatchesUninterruptedRun() throws IOException
+    {
+        WorldConfig[] configs = TestWorlds.configs();
+        for (int i = 0; i < configs.length; i++)
+        {
+            resume(TestWorlds.create(31 + i, configs[i], CRITTERS, 1),
+                    TestWorlds.create(31 + i, configs[i], CRITTERS, 1), 170, 190);
+        }
+    }
+    
+    /**
+     * The selection strategy, respawn policy and regrowth delay come back with the World,
+     * and so does Food which is still growing back
+     * @throws IOException if a checkpoint can not be written or read
+     */
+    @Test
+    void restoredRunKeepsItsRules() throws IOException
+    {
+        WorldConfig config = TestWorlds.configs()[1];
+        World world = TestWorlds.create(41, config, CRITTERS, 1);
+        World twin = TestWorlds.create(41, config, CRITTERS, 1);
+        for (World w : new World[] {world, twin})
+        {
+            w.getGenetics().setSelection(Genetics.createSelection("tournament"));
+            w.setRespawn(World.createRespawn("clustered", 25));
+        }
+        World restored = resume(world, twin, 130, 250);
+        assertEquals("tournament", restored.getGenetics().getSelection().getName());
+        assertEquals("clustered", restored.getRespawn().getName());
+        assertEquals(25, restored.getRespawn().getDelay());
+    }
+    
+    /**
+     * Create the islands of a run
+     * @param config the parameters of every island
+     * @return the new islands
+     */
+    private static World[] islands(WorldConfig config)
+    {
+        World[] islands = new World[ISLANDS];
+        for (int i = 0; i < islands.length; i++)
+        {
+            islands[i] = TestWorlds.create(51 + i, config, ISLAND_CRITTERS, 1);
+        }
+        return islands;
+    }
+    
+    /**
+     * Islands restored from the checkpoints their model wrote carry on migrating on the same
+     * generations, and end up where islands which never stopped do, whether generations end
+     * on the same tick everywhere or by Food eaten on each island
+     * @throws IOException if a checkpoint can not be written or read
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void restoredIslandsMatchUninterruptedIslands() throws IOException, InterruptedException
+    {
+        WorldConfig[] configs = TestWorlds.configs();
+        WorldConfig food = configs[4].copy();
+        food.setHiddenNeurons(4);
+        for (WorldConfig config : new WorldConfig[] {configs[1], food})
+        {
+            Path[] paths = new Path[ISLANDS];
+            for (int i = 0; i < paths.length; i++)
+            {
+                paths[i] = directory.resolve("run.ck." + i);
+            }
+            IslandModel model = new IslandModel(islands(config), 3, 20);
+            model.checkpointEvery(1, paths);
+            model.run(4, 2);
+            World[] restored = new World[ISLANDS];
+            for (int i = 0; i < restored.length; i++)
+            {
+                restored[i] = Checkpoint.read(paths[i]);
+            }
+            new IslandModel(restored, 3, 20).run(4, 2);
+            World[] twin = islands(config);
+            new IslandModel(twin, 3, 20).run(8, 2);
+            for (int i = 0; i < ISLANDS; i++)
+            {
+                assertEquals(8, restored[i].getGeneration());
+                assertEquals(twin[i].getTick(), restored[i].getTick());
+                assertArrayEquals(TestWorlds.state(twin[i]), TestWorlds.state(restored[i]));
+            }
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package world;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * DeterminismTest.java
+ * @author John Zavidniak
+ * The same seed gives the same World, however many threads update it,
+ * whichever vision kernel tests what its Critters see, and whether or not
+ * Critters keep what they found in the sight cache.
+ */
+
+class DeterminismTest
+{
+    
+    /*
+     * Enough Critters for an update to be split into several chunks
+     */
+    private static final int CRITTERS = 2500;
+    private static final int TICKS = 300;
+    
+    /**
+     * Updating with one thread or several gives the same World
+     * @throws IOException if a checkpoint can not be written
+     */
+    @Test
+    void threadsDoNotChangeTheRun() throws IOException
+    {
+        WorldConfig[] configs = TestWorlds.configs();
+        for (int i = 0; i < configs.length; i++)
+        {
+            World one = TestWorlds.run(TestWorlds.create(11 + i, configs[i], CRITTERS, 1), TICKS);
+            World many = TestWorlds.run(TestWorlds.create(11 + i, configs[i], CRITTERS, 4), TICKS);
+            assertTrue(one.getGeneration() > 0, "config " + i + " never reproduced");
+            assertArrayEquals(TestWorlds.state(one), TestWorlds.state(many), "config " + i);
+        }
+    }
+    
+    /**
+     * Critters which keep what they found see exactly what Critters which look every update see,
+     * including while eaten Food is growing back
+     * @throws IOException if a checkpoint can not be written
+     */
+    @Test
+    void sightCacheDoesNotChangeTheRun() throws IOException
+    {
+        WorldConfig[] configs = TestWorlds.configs();
+        for (int i = 0; i <= configs.length; i++)
+        {
+            WorldConfig config = configs[i % configs.length];
+            World looking = TestWorlds.create(61 + i, config, CRITTERS, 1);
+            looking.setSightCache(false);
+            World cached = TestWorlds.create(61 + i, config, CRITTERS, 4);
+            cached.setSightCache(true);
+            if (i == configs.length)
+            {
+                looking.setRespawn(World.createRespawn("uniform", 20));
+                cached.setRespawn(World.createRespawn("uniform", 20));
+            }
+            TestWorlds.run(looking, TICKS);
+            TestWorlds.run(cached, TICKS);
+            assertArrayEquals(TestWorlds.state(looking), TestWorlds.state(cached), "config " + i);
+        }
+    }
+    
+    /**
+     * The Vector API kernel sees exactly what the scalar kernel sees
+     * @throws IOException if a checkpoint can not be written
+     */
+    @Test
+    void simdKernelMatchesScalarKernel() throws IOException
+    {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "the JVM was started without jdk.incubator.vector");
+        WorldConfig[] configs = TestWorlds.configs();
+        for (int i = 0; i < configs.length; i++)
+        {
+            World scalar = TestWorlds.create(23 + i, configs[i], CRITTERS, 1);
+            scalar.setVisionKernel(new ScalarVisionKernel());
+            World simd = TestWorlds.create(23 + i, configs[i], CRITTERS, 1);
+            simd.setVisionKernel(new SimdVisionKernel());
+            TestWorlds.run(scalar, TICKS);
+            TestWorlds.run(simd, TICKS);
+            assertArrayEquals(TestWorlds.state(scalar), TestWorlds.state(simd), "config " + i);
+        }
+    }
+    
+    /**
+     * Both kernels agree point by point, including on points at the very edge of sight
+     */
+    @Test
+    void kernelsAgreeOnEveryPoint()
+    {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "the JVM was started without jdk.incubator.vector");
+        SplittableRandom random = new SplittableRandom(5);
+        int count = 37;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] scalar = new double[count];
+        double[] simd = new double[count];
+        double cosHalfFov = Math.cos(Math.PI / 4);
+        for (int trial = 0; trial < 2000; trial++)
+        {
+            double vx = random.nextDouble(-5, 5);
+            double vy = random.nextDouble(-5, 5);
+            for (int k = 0; k < count; k++)
+            {
+                // whole coordinates put some points exactly on the range and the edge of the field of view
+                xs[k] = (k % 3 == 0) ? random.nextInt(-60, 61) : random.nextDouble(-60, 60);
+                ys[k] = (k % 3 == 0) ? random.nextInt(-60, 61) : random.nextDouble(-60, 60);
+            }
+            xs[0] = 0;
+            ys[0] = 0;
+            new ScalarVisionKernel().distances(xs, ys, count, 0, 0, vx, vy, cosHalfFov, 48 * 48, scalar);
+            new SimdVisionKernel().distances(xs, ys, count, 0, 0, vx, vy, cosHalfFov, 48 * 48, simd);
+            assertArrayEquals(scalar, simd, "trial " + trial);
+        }
+    }
+    
+}
\ No newline at end of file
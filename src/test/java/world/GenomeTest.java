@@ -0,0 +1,176 @@
+package world;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GenomeTest.java
+ * @author John Zavidniak
+ * The bitwise crossover and mutation agree with a plain implementation on strings of bits,
+ * which is how genomes were handled before: the first word written as Integer.toBinaryString
+ * writes it, then every other word as all of its 32 bits.
+ */
+
+class GenomeTest
+{
+    
+    private static final int TRIALS = 20000;
+    
+    /**
+     * Write the first word of a genome as a string of its significant bits
+     * @param word the first word
+     * @return the bits of the word, most significant first
+     */
+    private static String first(int word)
+    {
+        return Integer.toBinaryString(word);
+    }
+    
+    /**
+     * Write every word of a genome after the first as one string of bits
+     * @param genes the array holding the genome
+     * @param g the index of the first word of the genome
+     * @param length the number of words in the genome
+     * @return 32 bits for each word after the first, most significant first
+     */
+    private static String rest(int[] genes, int g, int length)
+    {
+        StringBuilder bits = new StringBuilder();
+        for (int k = 1; k < length; k++)
+        {
+            String word = Integer.toBinaryString(genes[g + k]);
+            bits.append("0".repeat(Integer.SIZE - word.length())).append(word);
+        }
+        return bits.toString();
+    }
+    
+    /**
+     * Read a genome back from the strings of its bits
+     * @param first the bits of the first word
+     * @param rest the bits of every other word
+     * @param genes the array to write the genome to
+     * @param g the index of the first word of the genome
+     */
+    private static void read(String first, String rest, int[] genes, int g)
+    {
+        genes[g] = Integer.parseUnsignedInt(first, 2);
+        for (int k = 0; k < rest.length() / Integer.SIZE; k++)
+        {
+            genes[g + 1 + k] = Integer.parseUnsignedInt(rest.substring(k * Integer.SIZE, (k + 1) * Integer.SIZE), 2);
+        }
+    }
+    
+    /**
+     * Swap the tails of two genomes after a random point, on strings.
+     * The point is chosen among the bits of the shorter first word and every bit after it.
+     * @param genes the array holding both genomes
+     * @param a the index of the first word of the first genome
+     * @param b the index of the first word of the second genome
+     * @param length the number of words in each genome
+     * @param random the source of randomness used to choose the point
+     */
+    private static void crossover(int[] genes, int a, int b, int length, SplittableRandom random)
+    {
+        String aFirst = first(genes[a]);
+        String bFirst = first(genes[b]);
+        String aRest = rest(genes, a, length);
+        String bRest = rest(genes, b, length);
+        int firstLen = Math.min(aFirst.length(), bFirst.length());
+        int pos = random.nextInt(firstLen + aRest.length());
+        if (pos < firstLen)
+        {
+            read(aFirst.substring(0, pos) + bFirst.substring(pos), bRest, genes, a);
+            read(bFirst.substring(0, pos) + aFirst.substring(pos), aRest, genes, b);
+        }
+        else
+        {
+            int cut = pos - firstLen;
+            read(aFirst, aRest.substring(0, cut) + bRest.substring(cut), genes, a);
+            read(bFirst, bRest.substring(0, cut) + aRest.substring(cut), genes, b);
+        }
+    }
+    
+    /**
+     * Flip one random bit of a genome, on strings
+     * @param genes the array holding the genome
+     * @param g the index of the first word of the genome
+     * @param length the number of words in the genome
+     * @param random the source of randomness used to choose the bit
+     */
+    private static void mutate(int[] genes, int g, int length, SplittableRandom random)
+    {
+        String bits = first(genes[g]);
+        String rest = rest(genes, g, length);
+        int pos = random.nextInt(bits.length() + rest.length());
+        int firstLen = bits.length();
+        bits = bits + rest;
+        char flipped = (bits.charAt(pos) == '0') ? '1' : '0';
+        bits = bits.substring(0, pos) + flipped + bits.substring(pos + 1);
+        read(bits.substring(0, firstLen), bits.substring(firstLen), genes, g);
+    }
+    
+    /**
+     * Make two random genomes, with first words of any size
+     * @param random the source of randomness
+     * @param length the number of words in each genome
+     * @return both genomes, one after the other
+     */
+    private static int[] genomes(SplittableRandom random, int length)
+    {
+        int[] genes = new int[2 * length];
+        for (int i = 0; i < genes.length; i++)
+        {
+            genes[i] = random.nextInt();
+        }
+        for (int g = 0; g < genes.length; g += length)
+        {
+            int bits = random.nextInt(Integer.SIZE + 1);
+            // a first word of 0 counts as one bit, as "0"
+            genes[g] = (bits == Integer.SIZE) ? genes[g] : genes[g] & ((1 << bits) - 1);
+        }
+        return genes;
+    }
+    
+    /**
+     * Crossover gives the same genomes as crossover on strings
+     */
+    @Test
+    void crossoverMatchesStrings()
+    {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int trial = 0; trial < TRIALS; trial++)
+        {
+            int length = 1 + trial % 4;
+            int[] genes = genomes(random, length);
+            int[] expected = genes.clone();
+            long seed = random.nextLong();
+            Genome.crossover(genes, 0, length, length, new SplittableRandom(seed));
+            crossover(expected, 0, length, length, new SplittableRandom(seed));
+            assertArrayEquals(expected, genes, "trial " + trial);
+        }
+    }
+    
+    /**
+     * Mutation gives the same genome as mutation on strings
+     */
+    @Test
+    void mutateMatchesStrings()
+    {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int trial = 0; trial < TRIALS; trial++)
+        {
+            int length = 1 + trial % 4;
+            int[] genes = Arrays.copyOf(genomes(random, length), length);
+            int[] expected = genes.clone();
+            long seed = random.nextLong();
+            Genome.mutate(genes, 0, length, new SplittableRandom(seed));
+            mutate(expected, 0, length, new SplittableRandom(seed));
+            assertArrayEquals(expected, genes, "trial " + trial);
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package world;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import world.creatures.CritterStore;
+
+/**
+ * ShardIntegrationTest.java
+ * @author John Zavidniak
+ * Sharded runs start real worker JVMs, and give the same world over Unix domain sockets
+ * as over TCP. A single shard gives the same world as no sharding at all.
+ */
+
+class ShardIntegrationTest
+{
+    
+    private static final long SEED = 77;
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 400;
+    private static final int CRITTERS = 600;
+    private static final int HEALTHY = 80;
+    private static final int UNHEALTHY = 40;
+    private static final int TICKS = 260;
+    /*
+     * Small generations, networks and separation, so migrants, ghosts and breeding all happen
+     */
+    private static final String[] SETTINGS = {"ticksPerGeneration=100", "hiddenNeurons=3", "separation=24"};
+    
+    /**
+     * The result of one run: its clocks, and the fitness and genomes of its final population
+     */
+    private static class Outcome
+    {
+        
+        private long tick;
+        private long generation;
+        private double fitness;
+        private double[] attractiveness;
+        private int[] genes;
+        
+        /**
+         * Record the outcome of a run
+         * @param tick the number of updates which were run
+         * @param world the World holding the final population
+         */
+        public Outcome(long tick, World world)
+        {
+            CritterStore critters = world.getCritterStore();
+            this.tick = tick;
+            this.generation = world.getGeneration();
+            this.fitness = world.getGenetics().getFitness();
+            this.attractiveness = new double[critters.size()];
+            for (int c = 0; c < critters.size(); c++)
+            {
+                attractiveness[c] = critters.getFoodAttractiveness(c);
+            }
+            this.genes = Arrays.copyOf(critters.getGenes(), critters.size() * critters.getGenomeLength());
+        }
+        
+        /**
+         * Check that another run ended the same way
+         * @param other the outcome of the other run
+         * @param message what is being compared
+         */
+        public void assertSame(Outcome other, String message)
+        {
+            assertEquals(tick, other.tick, message + ": ticks");
+            assertEquals(generation, other.generation, message + ": generations");
+            assertEquals(attractiveness.length, other.attractiveness.length, message + ": population");
+            assertEquals(fitness, other.fitness, message + ": fitness");
+            assertArrayEquals(attractiveness, other.attractiveness, message + ": foodAttractiveness");
+            assertArrayEquals(genes, other.genes, message + ": genomes");
+        }
+        
+    }
+    
+    /**
+     * Create the config every run shares
+     * @return the config
+     */
+    private static WorldConfig config()
+    {
+        WorldConfig config = new WorldConfig();
+        for (String setting : SETTINGS)
+        {
+            config.set(setting.substring(0, setting.indexOf('=')), setting.substring(setting.indexOf('=') + 1));
+        }
+        return config;
+    }
+    
+    /**
+     * Create the populated World a run starts from
+     * @return the World
+     */
+    private static World create()
+    {
+        World world = new World(SEED, WIDTH, HEIGHT, config());
+        world.populate(CRITTERS, HEALTHY, UNHEALTHY);
+        return world;
+    }
+    
+    /**
+     * Get the command which starts a worker of this test's world in a new JVM
+     * @param shards the number of shards
+     * @return the command, to which the coordinator adds the address and shard index
+     */
+    private static List<String> command(int shards)
+    {
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("--add-modules");
+        command.add("jdk.incubator.vector");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Main");
+        command.addAll(Arrays.asList("--shards", Integer.toString(shards), "--seed", Long.toString(SEED),
+                "--width", Integer.toString(WIDTH), "--height", Integer.toString(HEIGHT)));
+        for (String setting : SETTINGS)
+        {
+            command.add("--set");
+            command.add(setting);
+        }
+        return command;
+    }
+    
+    /**
+     * Run a sharded world to the end of the test
+     * @param shards the number of worker JVMs
+     * @param unix true to talk over Unix domain sockets, false for TCP
+     * @return the outcome of the run
+     * @throws IOException if a worker can not be started or talked to
+     */
+    private static Outcome runShards(int shards, boolean unix) throws IOException
+    {
+        ShardCoordinator coordinator = new ShardCoordinator(create(), shards);
+        try
+        {
+            coordinator.start(command(shards), unix);
+            while (coordinator.getTick() < TICKS)
+            {
+                coordinator.step();
+            }
+            coordinator.finish();
+        }
+        finally
+        {
+            coordinator.close();
+        }
+        return new Outcome(coordinator.getTick(), coordinator.getWorld());
+    }
+    
+    /**
+     * Three workers give the same world over either transport, and keep every Critter
+     * @throws IOException if a worker can not be started or talked to
+     */
+    @Test
+    void transportsAgree() throws IOException
+    {
+        Outcome unix = runShards(3, true);
+        Outcome tcp = runShards(3, false);
+        assertEquals(TICKS, unix.tick);
+        assertEquals(TICKS / 100, unix.generation);
+        assertEquals(CRITTERS, unix.attractiveness.length);
+        assertTrue(unix.fitness > 0, "the Critters never ate");
+        unix.assertSame(tcp, "unix against tcp");
+    }
+    
+    /**
+     * Two workers give the same world over either transport
+     * @throws IOException if a worker can not be started or talked to
+     */
+    @Test
+    void twoShardsAgree() throws IOException
+    {
+        runShards(2, true).assertSame(runShards(2, false), "unix against tcp");
+    }
+    
+    /**
+     * One worker gives exactly the world no sharding gives
+     * @throws IOException if the worker can not be started or talked to
+     */
+    @Test
+    void oneShardMatchesUnshardedWorld() throws IOException
+    {
+        World world = TestWorlds.run(create(), TICKS);
+        new Outcome(world.getTick(), world).assertSame(runShards(1, true), "unsharded against one shard");
+    }
+    
+}
\ No newline at end of file
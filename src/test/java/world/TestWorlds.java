@@ -0,0 +1,102 @@
+package world;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * TestWorlds.java
+ * @author John Zavidniak
+ * The Worlds the tests run, and a way to compare the full state of two of them
+ * through the bytes of their checkpoints.
+ */
+
+final class TestWorlds
+{
+    
+    public static final int WIDTH = 600;
+    public static final int HEIGHT = 600;
+    public static final int HEALTHY = 60;
+    public static final int UNHEALTHY = 30;
+    
+    /**
+     * TestWorlds is a collection of static helpers
+     */
+    private TestWorlds()
+    {
+    }
+    
+    /**
+     * Get configs which between them take every path through an update:
+     * plain Critters, networks, separation, an unbounded world, and generations
+     * ended by Food eaten
+     * @return the configs, each ending its generations quickly
+     */
+    public static WorldConfig[] configs()
+    {
+        WorldConfig plain = new WorldConfig();
+        plain.setTicksPerGeneration(120);
+        WorldConfig brains = plain.copy();
+        brains.setHiddenNeurons(4);
+        WorldConfig separation = plain.copy();
+        separation.setSeparation(24);
+        WorldConfig unbounded = plain.copy();
+        unbounded.setBounded(false);
+        WorldConfig food = plain.copy();
+        food.setTicksPerGeneration(0);
+        food.setFoodPerGeneration(40);
+        return new WorldConfig[] {plain, brains, separation, unbounded, food};
+    }
+    
+    /**
+     * Create a populated World
+     * @param seed the seed of the World
+     * @param config the parameters of the World, which is copied
+     * @param critters the number of Critters to add
+     * @param threads the number of threads to update the World with
+     * @return the new World
+     */
+    public static World create(long seed, WorldConfig config, int critters, int threads)
+    {
+        World world = new World(seed, TestWorlds.WIDTH, TestWorlds.HEIGHT, config.copy());
+        world.setThreads(threads);
+        world.populate(critters, TestWorlds.HEALTHY, TestWorlds.UNHEALTHY);
+        return world;
+    }
+    
+    /**
+     * Update a World a number of times
+     * @param world the World to update
+     * @param ticks the number of updates
+     * @return the World
+     */
+    public static World run(World world, int ticks)
+    {
+        for (int i = 0; i < ticks; i++)
+        {
+            world.update();
+        }
+        return world;
+    }
+    
+    /**
+     * Get the full state of a World, as the bytes of its checkpoint
+     * @param world the World, which must not be updating
+     * @return the checkpoint of the World
+     * @throws IOException if the checkpoint can not be written
+     */
+    public static byte[] state(World world) throws IOException
+    {
+        Path path = Files.createTempFile("smartbots", ".ck");
+        try
+        {
+            Checkpoint.save(world, path);
+            return Files.readAllBytes(path);
+        }
+        finally
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package world.selection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import world.WorldConfig;
+import world.creatures.CritterStore;
+
+/**
+ * WeightedSelectionTest.java
+ * @author John Zavidniak
+ * The Fenwick tree of a WeightedSelection draws each Critter in proportion
+ * to its weight, and takes Critters out correctly as they are drawn.
+ */
+
+class WeightedSelectionTest
+{
+    
+    /**
+     * A selection whose weights are given up front
+     */
+    private static class FixedSelection extends WeightedSelection
+    {
+        
+        private long[] fixed;
+        
+        /**
+         * Create a new selection with fixed weights
+         * @param fixed the weight of Critter i, at index i
+         */
+        public FixedSelection(long[] fixed)
+        {
+            this.fixed = fixed;
+        }
+        
+        /**
+         * Copy the fixed weights
+         * @param critters the store holding the Critters
+         * @param weights the array to store the weight of Critter i in, at index i
+         */
+        @Override
+        protected void computeWeights(CritterStore critters, long[] weights)
+        {
+            System.arraycopy(fixed, 0, weights, 0, critters.size());
+        }
+        
+        /**
+         * Get the name of this strategy
+         * @return "fixed"
+         */
+        @Override
+        public String getName()
+        {
+            return "fixed";
+        }
+        
+    }
+    
+    /**
+     * Create a store with some Critters in it
+     * @param size the number of Critters
+     * @return the new store
+     */
+    private static CritterStore store(int size)
+    {
+        CritterStore critters = new CritterStore(100, 100, new WorldConfig());
+        for (int i = 0; i < size; i++)
+        {
+            critters.add(50, 50, 0);
+        }
+        return critters;
+    }
+    
+    /**
+     * Check that a count is within five standard deviations of what a probability predicts
+     * @param probability the chance of the event in one trial
+     * @param count the number of times the event happened
+     * @param trials the number of trials
+     * @param message what the event is
+     */
+    private static void assertFrequency(double probability, int count, int trials, String message)
+    {
+        double expected = probability * trials;
+        double deviation = Math.sqrt(trials * probability * (1 - probability));
+        assertTrue(Math.abs(count - expected) <= 5 * deviation + 1e-9,
+                message + ": expected about " + expected + " but was " + count);
+    }
+    
+    /**
+     * The first Critter drawn is drawn in proportion to its weight, and never if its weight is 0
+     */
+    @Test
+    void firstDrawFollowsWeights()
+    {
+        long[] weights = {0, 1, 2, 3, 4, 10, 0, 5, 1, 6, 8};
+        long total = 0;
+        for (long w : weights)
+        {
+            total += w;
+        }
+        CritterStore critters = store(weights.length);
+        FixedSelection selection = new FixedSelection(weights);
+        SplittableRandom random = new SplittableRandom(3);
+        int trials = 200000;
+        int[] counts = new int[weights.length];
+        for (int t = 0; t < trials; t++)
+        {
+            selection.reset(critters);
+            counts[selection.next(random)]++;
+        }
+        for (int i = 0; i < weights.length; i++)
+        {
+            assertFrequency((double) weights[i] / total, counts[i], trials, "Critter " + i);
+        }
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[6]);
+    }
+    
+    /**
+     * Each whole order of draws is as likely as drawing without replacement predicts,
+     * so removing a drawn Critter leaves the other weights as they were
+     */
+    @Test
+    void ordersFollowWeightsWithoutReplacement()
+    {
+        long[] weights = {1, 2, 3, 6};
+        CritterStore critters = store(weights.length);
+        FixedSelection selection = new FixedSelection(weights);
+        SplittableRandom random = new SplittableRandom(4);
+        int trials = 200000;
+        // orders are counted by their first three draws, which fix the last
+        int[] counts = new int[64];
+        for (int t = 0; t < trials; t++)
+        {
+            selection.reset(critters);
+            int a = selection.next(random);
+            int b = selection.next(random);
+            int c = selection.next(random);
+            selection.next(random);
+            counts[a * 16 + b * 4 + c]++;
+        }
+        for (int a = 0; a < 4; a++)
+        {
+            for (int b = 0; b < 4; b++)
+            {
+                for (int c = 0; c < 4; c++)
+                {
+                    double probability = 0;
+                    if (a != b && b != c && a != c)
+                    {
+                        probability = weights[a] / 12.0 * weights[b] / (12.0 - weights[a])
+                                * weights[c] / (12.0 - weights[a] - weights[b]);
+                    }
+                    assertFrequency(probability, counts[a * 16 + b * 4 + c], trials, "order " + a + b + c);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Every Critter is drawn exactly once, those with weight first,
+     * then those of weight 0, uniformly among themselves
+     */
+    @Test
+    void everyCritterIsDrawnOnce()
+    {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int trial = 0; trial < 500; trial++)
+        {
+            int size = 1 + random.nextInt(300);
+            long[] weights = new long[size];
+            int positive = 0;
+            for (int i = 0; i < size; i++)
+            {
+                weights[i] = (random.nextInt(3) == 0) ? 0 : random.nextLong(1, 1000);
+                positive += (weights[i] > 0) ? 1 : 0;
+            }
+            CritterStore critters = store(size);
+            FixedSelection selection = new FixedSelection(weights.clone());
+            selection.reset(critters);
+            boolean[] drawn = new boolean[size];
+            for (int k = 0; k < size; k++)
+            {
+                int c = selection.next(random);
+                assertTrue(!drawn[c], "Critter " + c + " drawn twice");
+                assertEquals(k < positive, weights[c] > 0, "draw " + k + " of " + positive + " with weight");
+                drawn[c] = true;
+            }
+        }
+    }
+    
+    /**
+     * A selection can be reset and used again, and is not left with the weights of the last draws
+     */
+    @Test
+    void resetRestoresEveryWeight()
+    {
+        long[] weights = {5, 0, 5};
+        CritterStore critters = store(weights.length);
+        FixedSelection selection = new FixedSelection(weights);
+        SplittableRandom random = new SplittableRandom(6);
+        int[] counts = new int[weights.length];
+        int trials = 20000;
+        for (int t = 0; t < trials; t++)
+        {
+            selection.reset(critters);
+            counts[selection.next(random)]++;
+            selection.next(random);
+        }
+        assertEquals(0, counts[1]);
+        assertFrequency(0.5, counts[0], trials, "Critter 0");
+    }
+    
+}
\ No newline at end of file
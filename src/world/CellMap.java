@@ -0,0 +1,161 @@
+package world;
+
+/**
+ * CellMap.java
+ * @author John Zavidniak
+ * A hash map keyed by the coordinates of a grid cell,
+ * with open addressing on primitive keys, so a sparse grid over a huge area
+ * only holds the cells which are actually occupied.
+ * @param <T> the type of the values held for each cell
+ */
+
+class CellMap<T>
+{
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    
+    /**
+     * Create a new, empty map
+     */
+    public CellMap()
+    {
+        this.keys = new long[CellMap.INITIAL_CAPACITY];
+        this.values = new Object[CellMap.INITIAL_CAPACITY];
+        this.size = 0;
+    }
+    
+    /**
+     * Get the key of a cell
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return a key unique to the cell
+     */
+    public static long key(int column, int row)
+    {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Get the slot a key is first looked for in
+     * @param key the key to use
+     * @return the index of the key's home slot
+     */
+    private int home(long key)
+    {
+        return (int) Seeds.mix(key) & (keys.length - 1);
+    }
+    
+    /**
+     * Get the slot holding a key, or the empty slot where it would go
+     * @param key the key to look for
+     * @return the index of the slot
+     */
+    private int slot(long key)
+    {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (values[i] != null && keys[i] != key)
+        {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+    
+    /**
+     * Get the value of a cell
+     * @param key the key of the cell
+     * @return the value of the cell, or null if the cell has none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long key)
+    {
+        return (T) values[slot(key)];
+    }
+    
+    /**
+     * Set the value of a cell
+     * @param key the key of the cell
+     * @param value the new value of the cell, not null
+     */
+    public void put(long key, T value)
+    {
+        int i = slot(key);
+        if (values[i] == null)
+        {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+        if (size * 2 > keys.length)
+        {
+            resize(keys.length * 2);
+        }
+    }
+    
+    /**
+     * Remove the value of a cell
+     * @param key the key of the cell
+     * @return the value which was removed, or null if the cell had none
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(long key)
+    {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        T removed = (T) values[i];
+        if (removed == null)
+        {
+            return null;
+        }
+        values[i] = null;
+        size--;
+        // shift later entries of the same run back, so that no lookup stops early
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask)
+        {
+            int h = home(keys[j]);
+            if ((j > i && (h <= i || h > j)) || (j < i && (h <= i && h > j)))
+            {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Move every entry into a table of a new size
+     * @param capacity the new number of slots, a power of two
+     */
+    private void resize(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldValues[j] != null)
+            {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+    
+    /**
+     * Get the number of cells with a value
+     * @return the number of cells in the map
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checkpoint.java
+ * @author John Zavidniak
+ * A snapshot of the full state of a World, which can be written to
+ * and read from a file without Java serialization.
+ * Every random decision is derived from the seed and a clock,
+ * so the seed, the clocks, and the contents of the stores are enough
+ * for a restored World to carry on exactly where the saved one was.
+ * The file is a little-endian header followed by the stores:
+ *     int magic, int version, long seed, long tick, int width, int height,
+ *     the WorldConfig (7 doubles, 4 ints),
+ *     long generation, int ticks, int foodEaten, double fitness,
+ *     the names of the selection strategy and the respawn policy (each an int length and UTF-8 bytes),
+ *     int regrowth delay,
+ *     the CritterStore, then the FoodStore,
+ *     int growing, then (int food, long ripeTick) for each piece of Food growing back
+ * Only the selection strategies and respawn policies which can be created by name
+ * are restored, so a World using any other can not be read back.
+ */
+
+public class Checkpoint
+{
+    
+    private static final int MAGIC = 0x53424350;
+    private static final int VERSION = 9;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES + 2 * Integer.BYTES
+            + 7 * Double.BYTES + 4 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + Double.BYTES + 3 * Integer.BYTES;
+    
+    private ByteBuffer data;
+    
+    /**
+     * Create a new, empty checkpoint
+     */
+    public Checkpoint()
+    {
+        this.data = ByteBuffer.allocateDirect(0).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Copy the state of a world into this checkpoint, replacing what was there.
+     * The world must not be updating while it is copied.
+     * @param world the world to copy
+     */
+    public void capture(World world)
+    {
+        IntList growing = world.getGrowing();
+        byte[] selection = world.getGenetics().getSelection().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] respawn = world.getRespawn().getName().getBytes(StandardCharsets.UTF_8);
+        long size = HEADER_SIZE + selection.length + respawn.length
+                + world.getCritterStore().getSavedSize() + world.getFoodStore().getSavedSize()
+                + Integer.BYTES + (long) growing.size() * (Integer.BYTES + Long.BYTES);
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("world is too large to checkpoint");
+        }
+        if (data.capacity() < size)
+        {
+            data = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        data.clear();
+        
+        WorldConfig config = world.getConfig();
+        Genetics genetics = world.getGenetics();
+        data.putInt(Checkpoint.MAGIC);
+        data.putInt(Checkpoint.VERSION);
+        data.putLong(world.getSeed());
+        data.putLong(world.getTick());
+        data.putInt(world.getWidth());
+        data.putInt(world.getHeight());
+        data.putDouble(config.getFov());
+        data.putDouble(config.getVelocity());
+        data.putDouble(config.getGrowthRate());
+        data.putDouble(config.getRange());
+        data.putDouble(config.getSeparation());
+        data.putDouble(config.getCrossover());
+        data.putDouble(config.getMutate());
+        data.putInt(config.getTicksPerGeneration());
+        data.putInt(config.getFoodPerGeneration());
+        data.putInt(config.isBounded() ? 1 : 0);
+        data.putInt(config.getHiddenNeurons());
+        data.putLong(genetics.getGeneration());
+        data.putInt(genetics.getTicks());
+        data.putInt(genetics.getFoodEaten());
+        data.putDouble(genetics.getFitness());
+        data.putInt(selection.length);
+        data.put(selection);
+        data.putInt(respawn.length);
+        data.put(respawn);
+        data.putInt(world.getRespawn().getDelay());
+        world.getCritterStore().save(data);
+        world.getFoodStore().save(data);
+        data.putInt(growing.size());
+        for (int i = 0; i < growing.size(); i++)
+        {
+            data.putInt(growing.get(i));
+            data.putLong(world.getRipeTick(growing.get(i)));
+        }
+        data.flip();
+    }
+    
+    /**
+     * Write the captured state to a file.
+     * The state is written next to the file first, then moved over it,
+     * so a crash while writing never leaves a broken checkpoint behind.
+     * @param path the file to write to
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException
+    {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer out = data.duplicate();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (out.hasRemaining())
+            {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Capture a world and write it to a file
+     * @param world the world to save
+     * @param path the file to write to
+     * @throws IOException if the file can not be written
+     */
+    public static void save(World world, Path path) throws IOException
+    {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.capture(world);
+        checkpoint.write(path);
+    }
+    
+    /**
+     * Read a name written as an int length and UTF-8 bytes
+     * @param in the buffer to read from
+     * @return the name
+     */
+    private static String getName(ByteBuffer in)
+    {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining())
+        {
+            throw new IllegalStateException("bad name length " + length);
+        }
+        byte[] name = new byte[length];
+        in.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Read a world back from a checkpoint file
+     * @param path the file to read
+     * @return a new world in the state which was saved
+     * @throws IOException if the file can not be read, or is not a checkpoint
+     */
+    public static World read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < HEADER_SIZE || in.getInt() != Checkpoint.MAGIC)
+            {
+                throw new IOException(path + " is not a checkpoint");
+            }
+            if (in.getInt() != Checkpoint.VERSION)
+            {
+                throw new IOException(path + " was written by another version");
+            }
+            long seed = in.getLong();
+            long tick = in.getLong();
+            int width = in.getInt();
+            int height = in.getInt();
+            WorldConfig config = new WorldConfig();
+            config.setFov(in.getDouble());
+            config.setVelocity(in.getDouble());
+            config.setGrowthRate(in.getDouble());
+            config.setRange(in.getDouble());
+            config.setSeparation(in.getDouble());
+            config.setCrossover(in.getDouble());
+            config.setMutate(in.getDouble());
+            config.setTicksPerGeneration(in.getInt());
+            config.setFoodPerGeneration(in.getInt());
+            config.setBounded(in.getInt() != 0);
+            config.setHiddenNeurons(in.getInt());
+            long generation = in.getLong();
+            int ticks = in.getInt();
+            int foodEaten = in.getInt();
+            double fitness = in.getDouble();
+            
+            World world = new World(seed, width, height, config);
+            try
+            {
+                String selection = Checkpoint.getName(in);
+                String respawn = Checkpoint.getName(in);
+                int regrowth = in.getInt();
+                world.getGenetics().setSelection(Genetics.createSelection(selection));
+                world.setRespawn(World.createRespawn(respawn, regrowth));
+                if (world.getGenetics().getSelection() == null || world.getRespawn() == null || regrowth < 0)
+                {
+                    throw new IllegalStateException("unknown selection " + selection + " or respawn " + respawn);
+                }
+                world.getCritterStore().load(in);
+                world.getFoodStore().load(in);
+                int growing = in.getInt();
+                for (int i = 0; i < growing; i++)
+                {
+                    int f = in.getInt();
+                    long ripeTick = in.getLong();
+                    if (f < 0 || f >= world.getFoodStore().size() || ripeTick <= 0 || world.isGrowing(f))
+                    {
+                        throw new IllegalStateException("bad growing food " + f);
+                    }
+                    world.addGrowing(f, ripeTick);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                throw new IOException(path + " is corrupt", e);
+            }
+            world.restore(tick);
+            world.getGenetics().restore(generation, ticks, foodEaten, fitness);
+            return world;
+        }
+    }
+    
+}
\ No newline at end of file
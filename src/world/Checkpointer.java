@@ -0,0 +1,147 @@
+package world;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Checkpointer.java
+ * @author John Zavidniak
+ * Periodically checkpoints a World while it updates.
+ * Copying the state is the only work done between updates;
+ * writing it to disk happens on a background thread.
+ * If the previous checkpoint is still being written when the next one is due,
+ * the next one is skipped rather than stalling the updates.
+ */
+
+public class Checkpointer
+{
+    
+    private Path path;
+    private long interval;
+    private Checkpoint checkpoint;
+    private ExecutorService writer;
+    private Future<Void> pending;
+    private long written;
+    private long skipped;
+    private boolean closed;
+    
+    /**
+     * Create a new checkpointer
+     * @param path the file to keep the latest checkpoint in
+     * @param interval the number of updates between checkpoints
+     */
+    Checkpointer(Path path, long interval)
+    {
+        if (interval < 1)
+        {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        this.path = path;
+        this.interval = interval;
+        this.checkpoint = new Checkpoint();
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "checkpoint writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.pending = null;
+        this.written = 0;
+        this.skipped = 0;
+        this.closed = false;
+    }
+    
+    /**
+     * Start a checkpoint if one is due. Called by the world after every update.
+     * @param world the world which has just updated
+     */
+    void update(World world)
+    {
+        if (closed || world.getTick() % interval != 0)
+        {
+            return;
+        }
+        if (pending != null)
+        {
+            if (!pending.isDone())
+            {
+                skipped++;
+                return;
+            }
+            finish();
+        }
+        checkpoint.capture(world);
+        pending = writer.submit(new Callable<Void>()
+        {
+            @Override
+            public Void call() throws IOException
+            {
+                checkpoint.write(path);
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * Wait for the checkpoint being written, and report it if it failed
+     */
+    private void finish()
+    {
+        try
+        {
+            pending.get();
+            written++;
+        }
+        catch (ExecutionException e)
+        {
+            e.getCause().printStackTrace();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        pending = null;
+    }
+    
+    /**
+     * Get the number of checkpoints which have been written
+     * @return the number of checkpoints written so far
+     */
+    public long getWritten()
+    {
+        return written;
+    }
+    
+    /**
+     * Get the number of checkpoints skipped because the previous one was still being written
+     * @return the number of checkpoints skipped so far
+     */
+    public long getSkipped()
+    {
+        return skipped;
+    }
+    
+    /**
+     * Wait for the last checkpoint to be written, then stop the writer thread
+     */
+    public void close()
+    {
+        closed = true;
+        if (pending != null)
+        {
+            finish();
+        }
+        writer.shutdown();
+    }
+    
+}
\ No newline at end of file
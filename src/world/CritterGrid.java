@@ -0,0 +1,201 @@
+package world;
+
+import java.util.Arrays;
+
+import world.creatures.CritterStore;
+
+/**
+ * CritterGrid.java
+ * @author John Zavidniak
+ * A spatial hash of every Critter's position, rebuilt from scratch each update
+ * so that a Critter can find its neighbours without looking at every other Critter.
+ * Cells are hashed into as many buckets as there are Critters, and the Critters are
+ * counting-sorted by bucket, so a rebuild takes linear time in any size of world.
+ * The grid keeps its own copy of every position, so it can be read while
+ * the Critters themselves are moving.
+ */
+
+class CritterGrid
+{
+    
+    private static final int MIN_BUCKETS = 16;
+    
+    private double cellSize;
+    /*
+     * The entries of bucket b are starts[b] up to, but not including, starts[b + 1]
+     */
+    private int[] starts;
+    /*
+     * The Critter, the key of its cell, and its position, for every entry
+     */
+    private int[] critters;
+    private long[] keys;
+    private double[] xs;
+    private double[] ys;
+    private int[] buckets;
+    private int mask;
+    
+    /**
+     * Create a new, empty grid
+     * @param cellSize the width and height of a cell, at least the largest radius queried
+     */
+    public CritterGrid(double cellSize)
+    {
+        this.cellSize = cellSize;
+        this.starts = new int[CritterGrid.MIN_BUCKETS + 1];
+        this.critters = new int[0];
+        this.keys = new long[0];
+        this.xs = new double[0];
+        this.ys = new double[0];
+        this.buckets = new int[0];
+        this.mask = CritterGrid.MIN_BUCKETS - 1;
+    }
+    
+    /**
+     * Get the key of the cell containing a position
+     * @param x the x-position to use
+     * @param y the y-position to use
+     * @return the key of the cell containing (x, y)
+     */
+    private long key(double x, double y)
+    {
+        return CellMap.key((int) Math.floor(x / cellSize), (int) Math.floor(y / cellSize));
+    }
+    
+    /**
+     * Get the bucket a cell is hashed into
+     * @param key the key of the cell
+     * @return the index of the bucket
+     */
+    private int bucket(long key)
+    {
+        return (int) Seeds.mix(key) & mask;
+    }
+    
+    /**
+     * Bucket every Critter by its current position, forgetting the old positions
+     * @param store the store holding the Critters
+     */
+    public void rebuild(CritterStore store)
+    {
+        rebuild(store, null, null, 0);
+    }
+    
+    /**
+     * Bucket every Critter by its current position, along with Critters which live
+     * in another world but can be met in this one, forgetting the old positions.
+     * Ghost k is entered as Critter store.size() + k, so it never matches a Critter of the store.
+     * @param store the store holding the Critters
+     * @param ghostX the x-positions of the ghosts
+     * @param ghostY the y-positions of the ghosts
+     * @param ghosts the number of ghosts
+     */
+    public void rebuild(CritterStore store, double[] ghostX, double[] ghostY, int ghosts)
+    {
+        int owned = store.size();
+        int size = owned + ghosts;
+        int count = Math.max(CritterGrid.MIN_BUCKETS, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+        if (starts.length != count + 1)
+        {
+            starts = new int[count + 1];
+            mask = count - 1;
+        }
+        if (critters.length < size)
+        {
+            critters = new int[size];
+            keys = new long[size];
+            xs = new double[size];
+            ys = new double[size];
+            buckets = new int[size];
+        }
+        Arrays.fill(starts, 0);
+        for (int c = 0; c < size; c++)
+        {
+            double x = (c < owned) ? store.getX(c) : ghostX[c - owned];
+            double y = (c < owned) ? store.getY(c) : ghostY[c - owned];
+            int b = bucket(key(x, y));
+            buckets[c] = b;
+            starts[b]++;
+        }
+        for (int b = 1; b < count; b++)
+        {
+            starts[b] += starts[b - 1];
+        }
+        starts[count] = size;
+        // fill each bucket from its end, so the Critters of a bucket stay in index order
+        for (int c = size - 1; c >= 0; c--)
+        {
+            double x = (c < owned) ? store.getX(c) : ghostX[c - owned];
+            double y = (c < owned) ? store.getY(c) : ghostY[c - owned];
+            int i = --starts[buckets[c]];
+            critters[i] = c;
+            keys[i] = key(x, y);
+            xs[i] = x;
+            ys[i] = y;
+        }
+    }
+    
+    /**
+     * Find the closest other Critter to a point, as it was when the grid was rebuilt.
+     * Ties go to the lowest index, so the result does not depend on the order of the buckets.
+     * @param c the index of the Critter to leave out
+     * @param x the x-position of the point
+     * @param y the y-position of the point
+     * @param radius how far to look, at most the cell size
+     * @return the entry of the closest Critter strictly within radius, or -1 if there is none
+     */
+    public int nearest(int c, double x, double y, double radius)
+    {
+        int minCol = (int) Math.floor((x - radius) / cellSize);
+        int maxCol = (int) Math.floor((x + radius) / cellSize);
+        int minRow = (int) Math.floor((y - radius) / cellSize);
+        int maxRow = (int) Math.floor((y + radius) / cellSize);
+        int closest = -1;
+        double cMagSq = radius * radius;
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int col = minCol; col <= maxCol; col++)
+            {
+                long key = CellMap.key(col, r);
+                int b = bucket(key);
+                for (int i = starts[b]; i < starts[b + 1]; i++)
+                {
+                    if (keys[i] != key || critters[i] == c)
+                    {
+                        continue;
+                    }
+                    double dx = xs[i] - x;
+                    double dy = ys[i] - y;
+                    double magSq = dx*dx + dy*dy;
+                    if (magSq < cMagSq || (magSq == cMagSq && closest >= 0 && critters[i] < critters[closest]))
+                    {
+                        closest = i;
+                        cMagSq = magSq;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+    
+    /**
+     * Get the x-position of an entry, as it was when the grid was rebuilt
+     * @param i the entry to use
+     * @return the x-position of the Critter
+     */
+    public double getX(int i)
+    {
+        return xs[i];
+    }
+    
+    /**
+     * Get the y-position of an entry, as it was when the grid was rebuilt
+     * @param i the entry to use
+     * @return the y-position of the Critter
+     */
+    public double getY(int i)
+    {
+        return ys[i];
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,750 @@
+package world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import world.creatures.CritterStore;
+import world.creatures.FoodStore;
+
+/**
+ * FoodGrid.java
+ * @author John Zavidniak
+ * A uniform grid which buckets every piece of Food by position,
+ * so that only the Food near a point has to be looked at.
+ * Small bounded areas keep every cell in a flat array; huge or unbounded
+ * areas only keep the occupied cells, so memory follows the amount of Food,
+ * not the size of the world.
+ * The cells of a sparse grid are grouped into square regions, and only the regions
+ * near a Critter are awake: their Food is in the cells which are searched.
+ * The Food of a sleeping region is only listed by region, so the cells searched
+ * each tick, and the work of keeping regions awake, follow the number of Critters,
+ * not the amount of Food.
+ * Food arriving in a cell, or changing in place, stamps the cell with a new version,
+ * and Food leaving the grid or its cell is stamped itself, so whoever has looked at some
+ * cells can tell whether any Food could have come closer since, and whether the Food
+ * it found is still where it was. A sparse grid only keeps the versions of the cells
+ * of awake regions, since only they hold Food.
+ */
+
+class FoodGrid
+{
+    
+    /*
+     * The most cells a grid holds in a flat array,
+     * larger or unbounded areas only store their occupied cells
+     */
+    private static final long DENSE_CELLS = 1 << 16;
+    
+    /*
+     * The width and height of a region, in cells
+     */
+    private static final int REGION_CELLS = 32;
+    
+    /*
+     * How many updates a region stays awake once no Critter is near it,
+     * and how often idle regions are looked at
+     */
+    private static final long SLEEP_TICKS = 64;
+    private static final long SLEEP_INTERVAL = 16;
+    
+    /*
+     * How far, in cells, a Critter may wander from where it last woke its regions
+     * before it has to wake them again
+     */
+    private static final int SLACK_CELLS = 8;
+    
+    /**
+     * A square of cells in a sparse grid, and all the Food in it
+     */
+    private static class Region
+    {
+        
+        private long key;
+        private IntList food;
+        private boolean awake;
+        private int holders;
+        private boolean idle;
+        private long idleSince;
+        private long[] versions;
+        
+        /**
+         * Create a new, sleeping region with no Food
+         * @param key the key of the region
+         */
+        public Region(long key)
+        {
+            this.key = key;
+            this.food = new IntList();
+            this.awake = false;
+            this.holders = 0;
+            this.idle = false;
+            this.idleSince = 0;
+            this.versions = null;
+        }
+        
+    }
+    
+    private FoodStore food;
+    private double cellSize;
+    private int columns;
+    private int rows;
+    private IntList[] cells;
+    private long[] versions;
+    private long[] removals;
+    private long clock;
+    private CellMap<IntList> sparse;
+    private CellMap<Region> regions;
+    private CellMap<Region> awake;
+    private List<Region> idleRegions;
+    private List<IntList> spare;
+    private long lastSleep;
+    private double[] anchorX;
+    private double[] anchorY;
+    private double[] reach;
+    private int lastCount;
+    
+    /**
+     * Create a new, empty grid covering the given area
+     * @param food the store holding the positions of the Food
+     * @param width the width of the area covered by the grid
+     * @param height the height of the area covered by the grid
+     * @param cellSize the width and height of a single cell
+     * @param bounded true if all the Food stays inside the area, false if it may be anywhere
+     */
+    public FoodGrid(FoodStore food, int width, int height, int cellSize, boolean bounded)
+    {
+        this.food = food;
+        this.cellSize = cellSize;
+        this.columns = width / cellSize + 1;
+        this.rows = height / cellSize + 1;
+        this.clock = 0;
+        this.removals = new long[0];
+        if (bounded && (long) columns * rows <= FoodGrid.DENSE_CELLS)
+        {
+            this.cells = new IntList[columns * rows];
+            this.versions = new long[columns * rows];
+            for (int i = 0; i < cells.length; i++)
+            {
+                cells[i] = new IntList();
+            }
+        }
+        else
+        {
+            this.sparse = new CellMap<IntList>();
+            this.regions = new CellMap<Region>();
+            this.awake = new CellMap<Region>();
+            this.idleRegions = new ArrayList<Region>();
+            this.spare = new ArrayList<IntList>();
+            this.lastSleep = 0;
+            this.anchorX = new double[0];
+            this.anchorY = new double[0];
+            this.reach = new double[0];
+            this.lastCount = 0;
+        }
+    }
+    
+    /**
+     * Get the column containing an x-position
+     * @param x the x-position to use
+     * @return the column containing x, clamped to the grid if it is dense
+     */
+    private int column(double x)
+    {
+        int column = (int) Math.floor(x / cellSize);
+        return (cells == null) ? column : Math.max(0, Math.min(columns - 1, column));
+    }
+    
+    /**
+     * Get the row containing a y-position
+     * @param y the y-position to use
+     * @return the row containing y, clamped to the grid if it is dense
+     */
+    private int row(double y)
+    {
+        int row = (int) Math.floor(y / cellSize);
+        return (cells == null) ? row : Math.max(0, Math.min(rows - 1, row));
+    }
+    
+    /**
+     * Get a cell of the grid
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return the indices of the Food in the cell, or null if a sparse cell is empty
+     */
+    private IntList cell(int column, int row)
+    {
+        if (cells != null)
+        {
+            return cells[row * columns + column];
+        }
+        return sparse.get(CellMap.key(column, row));
+    }
+    
+    /**
+     * Get the index of a cell within the versions of its region
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return the index of the cell's version
+     */
+    private static int regionIndex(int column, int row)
+    {
+        return Math.floorMod(row, FoodGrid.REGION_CELLS) * FoodGrid.REGION_CELLS
+                + Math.floorMod(column, FoodGrid.REGION_CELLS);
+    }
+    
+    /**
+     * Stamp the cell containing a position with a new version, since its Food has changed.
+     * Only the cells of awake regions hold Food, so a sleeping region is left alone.
+     * @param x the x-position to use
+     * @param y the y-position to use
+     */
+    private void stamp(double x, double y)
+    {
+        clock++;
+        int column = column(x);
+        int row = row(y);
+        if (cells != null)
+        {
+            versions[row * columns + column] = clock;
+            return;
+        }
+        Region region = awake.get(FoodGrid.regionKey(column, row));
+        if (region != null)
+        {
+            region.versions[FoodGrid.regionIndex(column, row)] = clock;
+        }
+    }
+    
+    /**
+     * Get the version at which a piece of Food last left the grid or its cell
+     * @param f the index of the Food
+     * @return the version of the Food's last removal, or 0 if it has never been removed
+     */
+    public long getRemoval(int f)
+    {
+        return (f < removals.length) ? removals[f] : 0;
+    }
+    
+    /**
+     * Note that a piece of Food in the grid has changed in place, other than by moving
+     * @param f the index of the Food
+     */
+    public void touch(int f)
+    {
+        stamp(food.getX(f), food.getY(f));
+    }
+    
+    /**
+     * Get the latest version of the grid
+     * @return the version of the last change to any cell
+     */
+    public long getClock()
+    {
+        return clock;
+    }
+    
+    /**
+     * Get the latest version of the cells overlapping a square around a point,
+     * which must have been activated
+     * @param x the x-position of the center of the square
+     * @param y the y-position of the center of the square
+     * @param radius half the width of the square
+     * @return the version of the last change to any of the cells
+     */
+    public long getVersion(double x, double y, double radius)
+    {
+        long version = 0;
+        if (cells != null)
+        {
+            int maxCol = column(x + radius);
+            int maxRow = row(y + radius);
+            for (int r = row(y - radius); r <= maxRow; r++)
+            {
+                for (int col = column(x - radius); col <= maxCol; col++)
+                {
+                    version = Math.max(version, versions[r * columns + col]);
+                }
+            }
+            return version;
+        }
+        int maxCol = column(x + radius);
+        int maxRow = row(y + radius);
+        Region region = null;
+        for (int r = row(y - radius); r <= maxRow; r++)
+        {
+            for (int col = column(x - radius); col <= maxCol; col++)
+            {
+                long key = FoodGrid.regionKey(col, r);
+                if (region == null || region.key != key)
+                {
+                    region = awake.get(key);
+                }
+                version = Math.max(version, region.versions[FoodGrid.regionIndex(col, r)]);
+            }
+        }
+        return version;
+    }
+    
+    /**
+     * Add a piece of Food to the cell containing a position
+     * @param f the index of the Food
+     * @param x the x-position of the Food
+     * @param y the y-position of the Food
+     */
+    private void insert(int f, double x, double y)
+    {
+        stamp(x, y);
+        if (cells != null)
+        {
+            cells[row(y) * columns + column(x)].add(f);
+            return;
+        }
+        long key = CellMap.key(column(x), row(y));
+        IntList cell = sparse.get(key);
+        if (cell == null)
+        {
+            cell = spare.isEmpty() ? new IntList() : spare.remove(spare.size() - 1);
+            sparse.put(key, cell);
+        }
+        cell.add(f);
+    }
+    
+    /**
+     * Remove a piece of Food from the cell containing a position
+     * @param f the index of the Food
+     * @param x the x-position of the Food
+     * @param y the y-position of the Food
+     */
+    private void delete(int f, double x, double y)
+    {
+        if (removals.length <= f)
+        {
+            removals = Arrays.copyOf(removals, Math.max(f + 1, removals.length * 2));
+        }
+        removals[f] = ++clock;
+        if (cells != null)
+        {
+            cells[row(y) * columns + column(x)].removeValue(f);
+            return;
+        }
+        long key = CellMap.key(column(x), row(y));
+        IntList cell = sparse.get(key);
+        cell.removeValue(f);
+        if (cell.size() == 0)
+        {
+            sparse.remove(key);
+            spare.add(cell);
+        }
+    }
+    
+    /**
+     * Get the key of the region containing a cell
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return the key of the region
+     */
+    private static long regionKey(int column, int row)
+    {
+        return CellMap.key(Math.floorDiv(column, FoodGrid.REGION_CELLS), Math.floorDiv(row, FoodGrid.REGION_CELLS));
+    }
+    
+    /**
+     * Get the region containing a position, listing it among the regions with Food
+     * @param x the x-position to use
+     * @param y the y-position to use
+     * @return the region containing the position
+     */
+    private Region region(double x, double y)
+    {
+        long key = FoodGrid.regionKey(column(x), row(y));
+        Region region = regions.get(key);
+        if (region == null)
+        {
+            region = awake.get(key);
+            if (region == null)
+            {
+                region = new Region(key);
+            }
+            regions.put(key, region);
+        }
+        return region;
+    }
+    
+    /**
+     * Add a piece of Food to its region, and to its cell if the region is awake
+     * @param f the index of the Food
+     * @param x the x-position of the Food
+     * @param y the y-position of the Food
+     */
+    private void file(int f, double x, double y)
+    {
+        Region region = region(x, y);
+        region.food.add(f);
+        if (region.awake)
+        {
+            insert(f, x, y);
+        }
+    }
+    
+    /**
+     * Remove a piece of Food from its region, and from its cell if the region is awake.
+     * A region left with no Food is only kept while it is awake.
+     * @param f the index of the Food
+     * @param x the x-position of the Food
+     * @param y the y-position of the Food
+     */
+    private void unfile(int f, double x, double y)
+    {
+        Region region = region(x, y);
+        region.food.removeValue(f);
+        if (region.awake)
+        {
+            delete(f, x, y);
+        }
+        if (region.food.size() == 0)
+        {
+            regions.remove(region.key);
+        }
+    }
+    
+    /**
+     * Add a piece of Food to the grid at its current position
+     * @param f the index of the Food to add
+     */
+    public void add(int f)
+    {
+        if (cells != null)
+        {
+            insert(f, food.getX(f), food.getY(f));
+            return;
+        }
+        file(f, food.getX(f), food.getY(f));
+    }
+    
+    /**
+     * Take a piece of Food out of the grid, leaving it where it is in the store
+     * @param f the index of the Food to remove
+     */
+    public void remove(int f)
+    {
+        if (cells != null)
+        {
+            delete(f, food.getX(f), food.getY(f));
+            return;
+        }
+        unfile(f, food.getX(f), food.getY(f));
+    }
+    
+    /**
+     * Move a piece of Food which is already in the grid
+     * @param f the index of the Food to move
+     * @param x the new x-position of the Food
+     * @param y the new y-position of the Food
+     */
+    public void move(int f, double x, double y)
+    {
+        double oldX = food.getX(f);
+        double oldY = food.getY(f);
+        food.setPosition(f, x, y);
+        int oldColumn = column(oldX);
+        int oldRow = row(oldY);
+        if (oldColumn == column(x) && oldRow == row(y))
+        {
+            stamp(x, y);
+            return;
+        }
+        if (cells != null)
+        {
+            delete(f, oldX, oldY);
+            insert(f, x, y);
+        }
+        else if (FoodGrid.regionKey(oldColumn, oldRow) == FoodGrid.regionKey(column(x), row(y)))
+        {
+            if (regions.get(FoodGrid.regionKey(oldColumn, oldRow)).awake)
+            {
+                delete(f, oldX, oldY);
+                insert(f, x, y);
+            }
+        }
+        else
+        {
+            unfile(f, oldX, oldY);
+            file(f, x, y);
+        }
+    }
+    
+    /**
+     * Get a region, waking it if it is asleep, which puts all its Food
+     * into the cells which are searched
+     * @param key the key of the region
+     * @return the region, which is awake
+     */
+    private Region wake(long key)
+    {
+        Region region = awake.get(key);
+        if (region != null)
+        {
+            return region;
+        }
+        region = regions.get(key);
+        if (region == null)
+        {
+            region = new Region(key);
+        }
+        region.awake = true;
+        region.versions = new long[FoodGrid.REGION_CELLS * FoodGrid.REGION_CELLS];
+        awake.put(key, region);
+        for (int i = 0; i < region.food.size(); i++)
+        {
+            int f = region.food.get(i);
+            insert(f, food.getX(f), food.getY(f));
+        }
+        return region;
+    }
+    
+    /**
+     * Put a region to sleep, taking all its Food out of the cells which are searched
+     * @param region the region to put to sleep
+     */
+    private void sleep(Region region)
+    {
+        for (int i = 0; i < region.food.size(); i++)
+        {
+            int f = region.food.get(i);
+            delete(f, food.getX(f), food.getY(f));
+        }
+        region.awake = false;
+        region.versions = null;
+        awake.remove(region.key);
+    }
+    
+    /**
+     * Note that no Critter holds a region awake any more, so that it falls asleep
+     * if none comes back to it soon
+     * @param region the region nobody holds
+     * @param tick the current tick
+     */
+    private void idle(Region region, long tick)
+    {
+        region.idleSince = tick;
+        if (!region.idle)
+        {
+            region.idle = true;
+            idleRegions.add(region);
+        }
+    }
+    
+    /**
+     * Get the column of regions containing an x-position
+     * @param x the x-position to use
+     * @return the column of the region containing x
+     */
+    private int regionColumn(double x)
+    {
+        return Math.floorDiv(column(x), FoodGrid.REGION_CELLS);
+    }
+    
+    /**
+     * Get the row of regions containing a y-position
+     * @param y the y-position to use
+     * @return the row of the region containing y
+     */
+    private int regionRow(double y)
+    {
+        return Math.floorDiv(row(y), FoodGrid.REGION_CELLS);
+    }
+    
+    /**
+     * Check whether two squares overlap exactly the same regions
+     * @param x0 the x-position of the center of the first square
+     * @param y0 the y-position of the center of the first square
+     * @param r0 half the width of the first square
+     * @param x1 the x-position of the center of the second square
+     * @param y1 the y-position of the center of the second square
+     * @param r1 half the width of the second square
+     * @return true if the squares overlap the same regions
+     */
+    private boolean sameRegions(double x0, double y0, double r0, double x1, double y1, double r1)
+    {
+        return regionColumn(x0 - r0) == regionColumn(x1 - r1) && regionColumn(x0 + r0) == regionColumn(x1 + r1)
+                && regionRow(y0 - r0) == regionRow(y1 - r1) && regionRow(y0 + r0) == regionRow(y1 + r1);
+    }
+    
+    /**
+     * Wake, or let go of, every region overlapping a square around a point
+     * @param x the x-position of the center of the square
+     * @param y the y-position of the center of the square
+     * @param radius half the width of the square
+     * @param change 1 to hold the regions awake, -1 to let go of them, 0 to only wake them
+     * @param tick the current tick
+     */
+    private void hold(double x, double y, double radius, int change, long tick)
+    {
+        int minCol = regionColumn(x - radius);
+        int maxCol = regionColumn(x + radius);
+        int minRow = regionRow(y - radius);
+        int maxRow = regionRow(y + radius);
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int col = minCol; col <= maxCol; col++)
+            {
+                Region region = wake(CellMap.key(col, r));
+                region.holders += change;
+                if (region.holders == 0)
+                {
+                    idle(region, tick);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Make sure every region overlapping a square around a point is awake,
+     * so that queries inside the square see all the Food in it
+     * @param x the x-position of the center of the square
+     * @param y the y-position of the center of the square
+     * @param radius half the width of the square
+     * @param tick the current tick
+     */
+    public void activate(double x, double y, double radius, long tick)
+    {
+        if (cells == null)
+        {
+            hold(x, y, radius, 0, tick);
+        }
+    }
+    
+    /**
+     * Wake the regions every Critter can see or reach this tick, and put to sleep
+     * the regions no Critter has been near for a while.
+     * A move never takes a Critter further than its speed, so each Critter holds awake
+     * the regions in a square a little larger than it can query from,
+     * and only moves its square once it wanders out of it.
+     * @param critters the store holding the Critters
+     * @param radius the furthest any Critter queries from its position
+     * @param tick the current tick
+     */
+    public void activate(CritterStore critters, double radius, long tick)
+    {
+        if (cells != null)
+        {
+            return;
+        }
+        int count = critters.size();
+        if (anchorX.length < count)
+        {
+            int old = anchorX.length;
+            anchorX = Arrays.copyOf(anchorX, count);
+            anchorY = Arrays.copyOf(anchorY, count);
+            reach = Arrays.copyOf(reach, count);
+            // a Critter with a negative reach holds no regions
+            Arrays.fill(reach, old, count, -1);
+        }
+        for (int c = count; c < lastCount; c++)
+        {
+            hold(anchorX[c], anchorY[c], reach[c], -1, tick);
+            reach[c] = -1;
+        }
+        lastCount = count;
+        double slack = FoodGrid.SLACK_CELLS * cellSize;
+        for (int c = 0; c < count; c++)
+        {
+            double x = critters.getX(c);
+            double y = critters.getY(c);
+            double vx = critters.getVelocityX(c);
+            double vy = critters.getVelocityY(c);
+            double needed = radius + Math.sqrt(vx*vx + vy*vy);
+            if (Math.abs(x - anchorX[c]) + needed > reach[c] || Math.abs(y - anchorY[c]) + needed > reach[c])
+            {
+                if (reach[c] < 0)
+                {
+                    hold(x, y, needed + slack, 1, tick);
+                }
+                else if (!sameRegions(x, y, needed + slack, anchorX[c], anchorY[c], reach[c]))
+                {
+                    // hold the new square before letting go of the old one, so shared regions stay awake
+                    hold(x, y, needed + slack, 1, tick);
+                    hold(anchorX[c], anchorY[c], reach[c], -1, tick);
+                }
+                anchorX[c] = x;
+                anchorY[c] = y;
+                reach[c] = needed + slack;
+            }
+        }
+        if (tick - lastSleep >= FoodGrid.SLEEP_INTERVAL)
+        {
+            lastSleep = tick;
+            int kept = 0;
+            for (int i = 0; i < idleRegions.size(); i++)
+            {
+                Region region = idleRegions.get(i);
+                if (region.holders > 0)
+                {
+                    region.idle = false;
+                }
+                else if (tick - region.idleSince > FoodGrid.SLEEP_TICKS)
+                {
+                    region.idle = false;
+                    sleep(region);
+                }
+                else
+                {
+                    idleRegions.set(kept++, region);
+                }
+            }
+            idleRegions.subList(kept, idleRegions.size()).clear();
+        }
+    }
+    
+    /**
+     * Collect all the Food in the cells overlapping a square around a point.
+     * The result may contain Food which is further away than radius,
+     * but never misses Food which is closer, as long as the square has been activated.
+     * @param x the x-position of the center of the square
+     * @param y the y-position of the center of the square
+     * @param radius half the width of the square
+     * @param out the list to add the indices of the Food to
+     */
+    public void query(double x, double y, double radius, IntList out)
+    {
+        int minCol = column(x - radius);
+        int maxCol = column(x + radius);
+        int minRow = row(y - radius);
+        int maxRow = row(y + radius);
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int col = minCol; col <= maxCol; col++)
+            {
+                IntList cell = cell(col, r);
+                if (cell == null)
+                {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++)
+                {
+                    out.add(cell.get(i));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the number of cells holding memory
+     * @return the number of cells in a dense grid, or the number of occupied cells in a sparse one
+     */
+    public int getCellCount()
+    {
+        return (cells != null) ? cells.length : sparse.size();
+    }
+    
+    /**
+     * Get the number of regions which are awake
+     * @return the number of awake regions, or 0 if the grid is dense
+     */
+    public int getAwakeRegionCount()
+    {
+        return (cells != null) ? 0 : awake.size();
+    }
+    
+}
\ No newline at end of file
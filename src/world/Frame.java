@@ -0,0 +1,363 @@
+package world;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import world.creatures.CritterStore;
+import world.creatures.FoodStore;
+
+/**
+ * Frame.java
+ * @author John Zavidniak
+ * A copy of everything needed to draw the world at one tick.
+ * A Frame is only written by the simulation thread before it is published,
+ * and only read by the renderer after, so neither ever waits for the other.
+ */
+
+public class Frame
+{
+    
+    private long tick;
+    private long generation;
+    private int width;
+    private int height;
+    private int critterCount;
+    private float[] critterX;
+    private float[] critterY;
+    private float[] headingX;
+    private float[] headingY;
+    private float[] attractiveness;
+    private int foodCount;
+    private float[] foodX;
+    private float[] foodY;
+    private boolean[] foodHealthy;
+    /*
+     * The index of the Critter which ate each piece of Food during the tick, or -1
+     */
+    private int[] foodEater;
+    
+    /**
+     * Create a new, empty frame
+     */
+    public Frame()
+    {
+        critterX = new float[0];
+        critterY = new float[0];
+        headingX = new float[0];
+        headingY = new float[0];
+        attractiveness = new float[0];
+        foodX = new float[0];
+        foodY = new float[0];
+        foodHealthy = new boolean[0];
+        foodEater = new int[0];
+    }
+    
+    /**
+     * Copy the state of a world into this frame, reusing its arrays when they are big enough
+     * @param world the world to copy
+     */
+    void fill(World world)
+    {
+        CritterStore critters = world.getCritterStore();
+        FoodStore food = world.getFoodStore();
+        tick = world.getTick();
+        generation = world.getGeneration();
+        width = world.getWidth();
+        height = world.getHeight();
+        
+        critterCount = critters.size();
+        if (critterX.length < critterCount)
+        {
+            int capacity = critterCount + critterCount / 2;
+            critterX = Arrays.copyOf(critterX, capacity);
+            critterY = Arrays.copyOf(critterY, capacity);
+            headingX = Arrays.copyOf(headingX, capacity);
+            headingY = Arrays.copyOf(headingY, capacity);
+            attractiveness = Arrays.copyOf(attractiveness, capacity);
+        }
+        for (int i = 0; i < critterCount; i++)
+        {
+            critterX[i] = (float) critters.getX(i);
+            critterY[i] = (float) critters.getY(i);
+            double vx = critters.getVelocityX(i);
+            double vy = critters.getVelocityY(i);
+            double mag = Math.sqrt(vx*vx + vy*vy);
+            headingX[i] = (mag == 0) ? 1 : (float) (vx / mag);
+            headingY[i] = (mag == 0) ? 0 : (float) (vy / mag);
+            attractiveness[i] = (float) critters.getFoodAttractiveness(i);
+        }
+        
+        foodCount = food.size();
+        if (foodX.length < foodCount)
+        {
+            int capacity = foodCount + foodCount / 2;
+            foodX = Arrays.copyOf(foodX, capacity);
+            foodY = Arrays.copyOf(foodY, capacity);
+            foodHealthy = Arrays.copyOf(foodHealthy, capacity);
+            foodEater = Arrays.copyOf(foodEater, capacity);
+        }
+        for (int i = 0; i < foodCount; i++)
+        {
+            // Food which is growing back is not drawn
+            foodX[i] = world.isGrowing(i) ? Float.NaN : (float) food.getX(i);
+            foodY[i] = world.isGrowing(i) ? Float.NaN : (float) food.getY(i);
+            foodHealthy[i] = food.isHealthy(i);
+        }
+        Arrays.fill(foodEater, 0, foodCount, -1);
+        IntList meals = world.getMeals();
+        for (int i = 0; i < meals.size(); i += 2)
+        {
+            foodEater[meals.get(i + 1)] = meals.get(i);
+        }
+    }
+    
+    /**
+     * Get the number of bytes write will use for a frame of the given size
+     * @param critterCount the number of Critters in the frame
+     * @param foodCount the number of pieces of Food in the frame
+     * @return the size of a written frame, in bytes
+     */
+    static int getWrittenSize(int critterCount, int foodCount)
+    {
+        return 2 * Long.BYTES + critterCount * 5 * Float.BYTES + foodCount * (2 * Float.BYTES + Integer.BYTES + 1);
+    }
+    
+    /**
+     * Write this frame to a buffer, as the tick and generation
+     * followed by one block per array
+     * @param out the buffer to write to, with at least getWrittenSize bytes remaining
+     */
+    void write(ByteBuffer out)
+    {
+        out.putLong(tick);
+        out.putLong(generation);
+        Frame.putFloats(out, critterX, critterCount);
+        Frame.putFloats(out, critterY, critterCount);
+        Frame.putFloats(out, headingX, critterCount);
+        Frame.putFloats(out, headingY, critterCount);
+        Frame.putFloats(out, attractiveness, critterCount);
+        Frame.putFloats(out, foodX, foodCount);
+        Frame.putFloats(out, foodY, foodCount);
+        out.asIntBuffer().put(foodEater, 0, foodCount);
+        out.position(out.position() + foodCount * Integer.BYTES);
+        for (int i = 0; i < foodCount; i++)
+        {
+            out.put(foodHealthy[i] ? (byte) 1 : (byte) 0);
+        }
+    }
+    
+    /**
+     * Replace this frame with one written by write, reusing its arrays when they are big enough
+     * @param in the buffer to read from
+     * @param width the width of the world the frame was taken of
+     * @param height the height of the world the frame was taken of
+     * @param critterCount the number of Critters in the frame
+     * @param foodCount the number of pieces of Food in the frame
+     */
+    void read(ByteBuffer in, int width, int height, int critterCount, int foodCount)
+    {
+        this.width = width;
+        this.height = height;
+        this.critterCount = critterCount;
+        this.foodCount = foodCount;
+        if (critterX.length < critterCount)
+        {
+            critterX = new float[critterCount];
+            critterY = new float[critterCount];
+            headingX = new float[critterCount];
+            headingY = new float[critterCount];
+            attractiveness = new float[critterCount];
+        }
+        if (foodX.length < foodCount)
+        {
+            foodX = new float[foodCount];
+            foodY = new float[foodCount];
+            foodHealthy = new boolean[foodCount];
+            foodEater = new int[foodCount];
+        }
+        tick = in.getLong();
+        generation = in.getLong();
+        Frame.getFloats(in, critterX, critterCount);
+        Frame.getFloats(in, critterY, critterCount);
+        Frame.getFloats(in, headingX, critterCount);
+        Frame.getFloats(in, headingY, critterCount);
+        Frame.getFloats(in, attractiveness, critterCount);
+        Frame.getFloats(in, foodX, foodCount);
+        Frame.getFloats(in, foodY, foodCount);
+        in.asIntBuffer().get(foodEater, 0, foodCount);
+        in.position(in.position() + foodCount * Integer.BYTES);
+        for (int i = 0; i < foodCount; i++)
+        {
+            foodHealthy[i] = in.get() != 0;
+        }
+    }
+    
+    /**
+     * Write the start of an array of floats to a buffer
+     * @param out the buffer to write to
+     * @param values the array to write from
+     * @param count the number of values to write
+     */
+    private static void putFloats(ByteBuffer out, float[] values, int count)
+    {
+        out.asFloatBuffer().put(values, 0, count);
+        out.position(out.position() + count * Float.BYTES);
+    }
+    
+    /**
+     * Read floats from a buffer into the start of an array
+     * @param in the buffer to read from
+     * @param values the array to read into
+     * @param count the number of values to read
+     */
+    private static void getFloats(ByteBuffer in, float[] values, int count)
+    {
+        in.asFloatBuffer().get(values, 0, count);
+        in.position(in.position() + count * Float.BYTES);
+    }
+    
+    /**
+     * Get the tick this frame was taken at
+     * @return the tick this frame was taken at
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+    
+    /**
+     * Get the generation this frame was taken in
+     * @return the generation this frame was taken in
+     */
+    public long getGeneration()
+    {
+        return generation;
+    }
+    
+    /**
+     * Get the width of the world
+     * @return the width of the world
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+    
+    /**
+     * Get the height of the world
+     * @return the height of the world
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+    
+    /**
+     * Get the number of Critters in this frame
+     * @return the number of Critters in this frame
+     */
+    public int getCritterCount()
+    {
+        return critterCount;
+    }
+    
+    /**
+     * Get the x-position of a Critter
+     * @param i the index of the Critter
+     * @return the x-position of the Critter
+     */
+    public float getCritterX(int i)
+    {
+        return critterX[i];
+    }
+    
+    /**
+     * Get the y-position of a Critter
+     * @param i the index of the Critter
+     * @return the y-position of the Critter
+     */
+    public float getCritterY(int i)
+    {
+        return critterY[i];
+    }
+    
+    /**
+     * Get the x-component of the unit vector a Critter is heading along
+     * @param i the index of the Critter
+     * @return the x-component of the Critter's heading
+     */
+    public float getHeadingX(int i)
+    {
+        return headingX[i];
+    }
+    
+    /**
+     * Get the y-component of the unit vector a Critter is heading along
+     * @param i the index of the Critter
+     * @return the y-component of the Critter's heading
+     */
+    public float getHeadingY(int i)
+    {
+        return headingY[i];
+    }
+    
+    /**
+     * Get a Critter's foodAttractiveness
+     * @param i the index of the Critter
+     * @return the Critter's foodAttractiveness
+     */
+    public float getFoodAttractiveness(int i)
+    {
+        return attractiveness[i];
+    }
+    
+    /**
+     * Get the number of pieces of Food in this frame
+     * @return the number of pieces of Food in this frame
+     */
+    public int getFoodCount()
+    {
+        return foodCount;
+    }
+    
+    /**
+     * Get the x-position of a piece of Food
+     * @param i the index of the Food
+     * @return the x-position of the Food, or NaN if it is growing back
+     */
+    public float getFoodX(int i)
+    {
+        return foodX[i];
+    }
+    
+    /**
+     * Get the y-position of a piece of Food
+     * @param i the index of the Food
+     * @return the y-position of the Food, or NaN if it is growing back
+     */
+    public float getFoodY(int i)
+    {
+        return foodY[i];
+    }
+    
+    /**
+     * Determine whether or not a piece of Food is healthy
+     * @param i the index of the Food
+     * @return true if the Food is healthy, false if not
+     */
+    public boolean isFoodHealthy(int i)
+    {
+        return foodHealthy[i];
+    }
+    
+    /**
+     * Get the Critter which ate a piece of Food during the tick this frame was taken at
+     * @param i the index of the Food
+     * @return the index of the Critter which ate the Food, or -1 if it was not eaten
+     */
+    public int getFoodEater(int i)
+    {
+        return foodEater[i];
+    }
+    
+}
\ No newline at end of file
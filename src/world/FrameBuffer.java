@@ -0,0 +1,99 @@
+package world;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * FrameBuffer.java
+ * @author John Zavidniak
+ * Hands Frames from the simulation thread to the renderer without locks.
+ * Frames rotate between the writer's back buffer, the latest published frame,
+ * the reader's front buffer, and a free slot, so in the steady state
+ * no Frames are allocated and neither side ever blocks.
+ */
+
+public class FrameBuffer
+{
+    
+    private AtomicReference<Frame> ready;
+    private AtomicReference<Frame> free;
+    /*
+     * Only touched by the simulation thread
+     */
+    private Frame back;
+    /*
+     * Only touched by the renderer
+     */
+    private Frame front;
+    
+    /**
+     * Create a new buffer with nothing published yet
+     */
+    public FrameBuffer()
+    {
+        this.ready = new AtomicReference<Frame>();
+        this.free = new AtomicReference<Frame>();
+    }
+    
+    /**
+     * Get the spare Frame to write the next published Frame into
+     * @return the writer's back buffer
+     */
+    private Frame back()
+    {
+        if (back == null)
+        {
+            back = free.getAndSet(null);
+            if (back == null)
+            {
+                back = new Frame();
+            }
+        }
+        return back;
+    }
+    
+    /**
+     * Copy the state of a world into a spare Frame and make it the latest one.
+     * Only called by the simulation thread.
+     * @param world the world to copy
+     */
+    void publish(World world)
+    {
+        back().fill(world);
+        back = ready.getAndSet(back);
+    }
+    
+    /**
+     * Read a recorded tick into a spare Frame and make it the latest one.
+     * Only called by the thread playing the replay.
+     * @param replay the replay to read from
+     * @param record the index of the recorded tick
+     * @throws IOException if the recording can not be read
+     */
+    void publish(Replay replay, long record) throws IOException
+    {
+        replay.read(record, back());
+        back = ready.getAndSet(back);
+    }
+    
+    /**
+     * Get the most recently published Frame.
+     * The Frame stays valid until the next call to this method.
+     * Only called by the renderer.
+     * @return the latest Frame, or null if nothing has been published yet
+     */
+    public Frame latest()
+    {
+        Frame f = ready.getAndSet(null);
+        if (f != null)
+        {
+            if (front != null)
+            {
+                free.compareAndSet(null, front);
+            }
+            front = f;
+        }
+        return front;
+    }
+    
+}
\ No newline at end of file
@@ -1,12 +1,14 @@
 package world;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
-import world.creatures.Critter;
+import world.creatures.CritterStore;
+import world.metrics.SimulationMetrics;
+import world.selection.RankSelection;
+import world.selection.RouletteSelection;
+import world.selection.SelectionStrategy;
+import world.selection.TournamentSelection;
 
 /**
  * Genetics.java
@@ -19,12 +21,20 @@ import world.creatures.Critter;
 public class Genetics
 {
     
-    private static final int STEP_TIME = 1000;
-    private static final double CROSSOVER = 0.7;
-    private static final double MUTATE = 0.1;
+    public static final int DEFAULT_TICKS_PER_GENERATION = 1000;
+    public static final double CROSSOVER = 0.7;
+    public static final double MUTATE = 0.1;
+    public static final int TOURNAMENT_SIZE = 4;
     
     private World world;
-    private long lastMutation;
+    private int ticks;
+    private int foodEaten;
+    private long generation;
+    private double fitness;
+    private boolean held;
+    private boolean due;
+    private SelectionStrategy selection;
+    private int[] drawn;
     
     /**
      * Create a new Genetics object which operates on a given World
@@ -33,115 +43,326 @@ public class Genetics
     public Genetics(World world)
     {
         this.world = world;
-        this.lastMutation = System.currentTimeMillis();
+        this.ticks = 0;
+        this.foodEaten = 0;
+        this.generation = 0;
+        this.fitness = 0;
+        this.held = false;
+        this.due = false;
+        this.selection = new RouletteSelection();
+        this.drawn = new int[0];
     }
     
     /**
-     * Swap the genes of two Critters
-     * @param a the first Critter
-     * @param b the second Critter
+     * Set the way Critters are chosen to reproduce
+     * @param selection the new selection strategy
      */
-    private void swap(Critter a, Critter b)
+    public void setSelection(SelectionStrategy selection)
     {
-        String aBits = Integer.toBinaryString(a.getFoodEaten());
-        String bBits = Integer.toBinaryString(b.getFoodEaten());
-        
-        int len = (aBits.length() > bBits.length()) ? bBits.length() : aBits.length();
-        int swapPos = (int) (Math.random() * len);
-        
-        String aSubstr = aBits.substring(0, swapPos);
-        String bSubstr = bBits.substring(0, swapPos);
-        
-        int aFoodEaten = Integer.parseInt(aSubstr + bBits.substring(swapPos), 2);
-        int bFoodEaten = Integer.parseInt(bSubstr + aBits.substring(swapPos), 2);
-        
-        a.setFoodEaten(aFoodEaten);
-        b.setFoodEaten(bFoodEaten);
+        this.selection = selection;
     }
     
     /**
-     * Mutate the genes of the given Critter
-     * @param c the Critter whose genes should be mutated
+     * Get the way Critters are chosen to reproduce
+     * @return the selection strategy
      */
-    private void mutate(Critter c)
+    public SelectionStrategy getSelection()
     {
-        if (Math.random() >= MUTATE || Math.random() >= MUTATE)
+        return selection;
+    }
+    
+    /**
+     * Create a new selection strategy from its name
+     * @param name the name of the strategy: roulette, rank or tournament
+     * @return the new strategy, or null if there is no strategy with that name
+     */
+    public static SelectionStrategy createSelection(String name)
+    {
+        if (name.equals("roulette"))
         {
-            return;
+            return new RouletteSelection();
         }
-        System.out.println("mutate");
-        String bits = Integer.toBinaryString(c.getFoodEaten());
-        int pos = (int) (Math.random() * bits.length());
-        char bit = bits.charAt(pos);
-        bit = (bit == '0') ? '1' : '0';
-        
-        String newBits = bits.substring(0, pos) + bit;
-        if (pos < bits.length() - 1)
+        if (name.equals("rank"))
         {
-            newBits = newBits + bits.substring(pos+1);
+            return new RankSelection();
         }
-        
-        int foodEaten = Integer.parseInt(newBits, 2);
-        c.setFoodEaten(foodEaten);
+        if (name.equals("tournament"))
+        {
+            return new TournamentSelection(Genetics.TOURNAMENT_SIZE);
+        }
+        return null;
     }
     
     /**
-     * Select a Critter from the list of all Critters.
-     * A Critter's chance of being selected is directly
-     * proportional to the amount off food they've eaten
-     * @return the Critter who has been selected
+     * Advance the generation clock by one update of the world,
+     * and create a new population once the generation is over.
+     * A generation ends after the configured number of updates or once
+     * the configured amount of healthy Food has been eaten,
+     * whichever comes first.
+     * @param healthyEaten the amount of healthy Food eaten during the update
      */
-    private Critter selectCritter(List<Critter> critters)
+    public void tick(int healthyEaten)
     {
-        List<Critter> potCritters = new ArrayList<Critter>();
-        for (Critter c : critters)
+        if (advance(healthyEaten))
         {
-            int count = Math.round(c.getFoodEaten() / 100.0f);
-            for (int i = 0; i < count; i++)
+            if (held)
             {
-                potCritters.add(c);
+                fitness = measure(world.getCritterStore());
+                due = true;
+            }
+            else
+            {
+                reproduce();
             }
         }
-        if (potCritters.size() == 0)
-        {
-            return critters.get((int) (Math.random() * critters.size()));
-        }
-        int index = (int) (Math.random() * potCritters.size());
-        return potCritters.get(index);
     }
     
     /**
-     * Create a new population of Critters
+     * Choose whether a generation which ends waits for reproduce to be called,
+     * so that its Critters can still be compared by the food they ate
+     * @param held true to leave reproducing to the caller
      */
-    public void reproduce()
+    void setHeld(boolean held)
     {
-        if (System.currentTimeMillis() - lastMutation < STEP_TIME)
+        this.held = held;
+    }
+    
+    /**
+     * Check whether a held generation has ended and is waiting to reproduce
+     * @return true if reproduce should be called before the world updates again
+     */
+    boolean isDue()
+    {
+        return due;
+    }
+    
+    /**
+     * Advance the generation clock by one update, without creating a new population,
+     * for whoever has to collect the population before it can reproduce
+     * @param healthyEaten the amount of healthy Food eaten during the update
+     * @return true if the generation is over and reproduce should be called
+     */
+    boolean advance(int healthyEaten)
+    {
+        WorldConfig config = world.getConfig();
+        int ticksPerGeneration = config.getTicksPerGeneration();
+        int foodPerGeneration = config.getFoodPerGeneration();
+        ticks++;
+        foodEaten += healthyEaten;
+        return (ticksPerGeneration > 0 && ticks >= ticksPerGeneration)
+                || (foodPerGeneration > 0 && foodEaten >= foodPerGeneration);
+    }
+    
+    /**
+     * Get the number of new populations which have been created
+     * @return the number of new populations which have been created
+     */
+    public long getGeneration()
+    {
+        return generation;
+    }
+    
+    /**
+     * Get the fitness of the last generation: the mean amount of food its Critters
+     * had eaten when it ended, before they reproduced. Critters with networks start
+     * every generation having eaten nothing, so this is how well their networks did.
+     * @return the mean foodEaten of the last generation, or 0 before the first one ends
+     */
+    public double getFitness()
+    {
+        return fitness;
+    }
+    
+    /**
+     * Get the number of updates since the last new population
+     * @return the number of updates into the current generation
+     */
+    int getTicks()
+    {
+        return ticks;
+    }
+    
+    /**
+     * Get the amount of healthy Food eaten since the last new population
+     * @return the amount of healthy Food eaten during the current generation
+     */
+    int getFoodEaten()
+    {
+        return foodEaten;
+    }
+    
+    /**
+     * Move the generation clock to a saved position
+     * @param generation the number of new populations which have been created
+     * @param ticks the number of updates into the current generation
+     * @param foodEaten the amount of healthy Food eaten during the current generation
+     * @param fitness the fitness of the last generation
+     */
+    void restore(long generation, int ticks, int foodEaten, double fitness)
+    {
+        this.generation = generation;
+        this.ticks = ticks;
+        this.foodEaten = foodEaten;
+        this.fitness = fitness;
+    }
+    
+    /**
+     * Swap the genes of two Critters after a random point
+     * @param critters the store holding both Critters
+     * @param a the index of the first Critter
+     * @param b the index of the second Critter
+     * @param random the source of randomness used to choose the point
+     */
+    private void swap(CritterStore critters, int a, int b, RandomGenerator random)
+    {
+        int length = critters.getGenomeLength();
+        int[] genes = critters.getGenes();
+        Genome.crossover(genes, a * length, b * length, length, random);
+        critters.setFoodEaten(a, genes[a * length]);
+        critters.setFoodEaten(b, genes[b * length]);
+    }
+    
+    /**
+     * Mutate the genes of the given Critter
+     * @param critters the store holding the Critter
+     * @param c the index of the Critter whose genes should be mutated
+     * @param random the source of randomness used to mutate
+     */
+    private void mutate(CritterStore critters, int c, RandomGenerator random)
+    {
+        double mutate = world.getConfig().getMutate();
+        if (random.nextDouble() >= mutate || random.nextDouble() >= mutate)
         {
             return;
         }
-        List<Critter> critters = new ArrayList<Critter>(world.getCritters());
-        List<Critter> newCritters = new LinkedList<Critter>();
+        int length = critters.getGenomeLength();
+        int[] genes = critters.getGenes();
+        Genome.mutate(genes, c * length, length, random);
+        critters.setFoodEaten(c, genes[c * length]);
+    }
+    
+    /**
+     * Pair up the current Critters and rewrite their genes in place
+     * @param critters the store holding the Critters
+     * @param random the source of randomness for reproduction
+     */
+    private void pair(CritterStore critters, RandomGenerator random)
+    {
+        double crossover = world.getConfig().getCrossover();
         int size = critters.size();
-        while (newCritters.size() < size - size % 2)
+        for (int paired = 0; paired < size - size % 2; paired += 2)
         {
-            Critter a = this.selectCritter(critters);
-            critters.remove(a);
-            Critter b = this.selectCritter(critters);
-            critters.remove(b);
+            int a = selection.next(random);
+            int b = selection.next(random);
             
-            if (Math.random() < CROSSOVER)
+            if (random.nextDouble() < crossover)
             {
-                swap(a, b);
+                swap(critters, a, b, random);
             }
             
-            mutate(a);
-            mutate(b);
+            mutate(critters, a, random);
+            mutate(critters, b, random);
+        }
+    }
+    
+    /**
+     * Replace the half of the Critters drawn last with the children of the half drawn first.
+     * Networks do not learn while a Critter lives, so the genomes of the Critters which
+     * ate the least have to be overwritten for the population to improve.
+     * Each weight of a child's network is mutated with the chance given by the mutation parameter.
+     * Every Critter then starts the next generation having eaten nothing.
+     * @param critters the store holding the Critters
+     * @param random the source of randomness for reproduction
+     */
+    private void breed(CritterStore critters, RandomGenerator random)
+    {
+        double crossover = world.getConfig().getCrossover();
+        double mutate = world.getConfig().getMutate();
+        int size = critters.size();
+        int length = critters.getGenomeLength();
+        if (drawn.length < size)
+        {
+            drawn = new int[size];
+        }
+        for (int i = 0; i < size; i++)
+        {
+            drawn[i] = selection.next(random);
+        }
+        int half = size / 2;
+        int[] genes = critters.getGenes();
+        for (int i = 0; i + 1 < half; i += 2)
+        {
+            int a = drawn[half + i];
+            int b = drawn[half + i + 1];
+            System.arraycopy(genes, drawn[i] * length, genes, a * length, length);
+            System.arraycopy(genes, drawn[i + 1] * length, genes, b * length, length);
+            
+            if (random.nextDouble() < crossover)
+            {
+                swap(critters, a, b, random);
+            }
             
-            newCritters.add(a);
-            newCritters.add(b);
+            world.getBrains().mutate(critters, a, mutate, random);
+            world.getBrains().mutate(critters, b, mutate, random);
+        }
+        for (int c = 0; c < size; c++)
+        {
+            critters.setFoodEaten(c, 0);
+        }
+    }
+    
+    /**
+     * Measure a generation which has just ended
+     * @param critters the store holding the Critters
+     * @return the mean amount of food the Critters have eaten
+     */
+    private static double measure(CritterStore critters)
+    {
+        long eaten = 0;
+        for (int c = 0; c < critters.size(); c++)
+        {
+            eaten += critters.getFoodEaten(c);
+        }
+        return (critters.size() > 0) ? (double) eaten / critters.size() : 0;
+    }
+    
+    /**
+     * Create a new population of Critters. Critters which steer by foodAttractiveness
+     * are paired up and have their genes rewritten in place; Critters with networks
+     * are bred, with the least fit replaced by the children of the fittest.
+     */
+    public void reproduce()
+    {
+        CritterStore critters = world.getCritterStore();
+        SimulationMetrics metrics = world.getMetrics();
+        long start = 0;
+        if (metrics != null)
+        {
+            metrics.recordGeneration(generation, critters);
+            start = System.nanoTime();
+        }
+        if (!due)
+        {
+            fitness = measure(critters);
+        }
+        SplittableRandom random = Seeds.random(world.getSeed(), Seeds.GENETICS_STREAM, generation);
+        selection.reset(critters);
+        if (world.getBrains() != null)
+        {
+            breed(critters, random);
+        }
+        else
+        {
+            pair(critters, random);
+        }
+        ticks = 0;
+        foodEaten = 0;
+        due = false;
+        generation++;
+        if (metrics != null)
+        {
+            metrics.recordReproduce(System.nanoTime() - start);
         }
-        world.setCritters(newCritters);
-        lastMutation = System.currentTimeMillis();
     }
     
 }
\ No newline at end of file
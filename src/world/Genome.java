@@ -0,0 +1,125 @@
+package world;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Genome.java
+ * @author John Zavidniak
+ * Crossover and mutation of genomes made of int words, done with masks and shifts.
+ * A genome is read from its most significant bit down. The first word only counts
+ * its significant bits, as Integer.toBinaryString would, and every other word counts
+ * all 32 bits.
+ */
+
+class Genome
+{
+    
+    /**
+     * Genome is a collection of static operators
+     */
+    private Genome()
+    {
+    }
+    
+    /**
+     * Get the number of significant bits in a word, counting 0 as one bit
+     * @param word the word to use
+     * @return the number of significant bits in word
+     */
+    static int bitLength(int word)
+    {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(word));
+    }
+    
+    /**
+     * Get a mask of the lowest bits of a word
+     * @param bits the number of bits to set, from 0 to 32
+     * @return a word with the lowest bits set
+     */
+    private static int lowMask(int bits)
+    {
+        return (bits >= Integer.SIZE) ? -1 : (1 << bits) - 1;
+    }
+    
+    /**
+     * Take the highest bits of a word and move them up above some other bits
+     * @param word the word to take the bits from
+     * @param length the number of significant bits in word
+     * @param keep the number of bits of word to keep, counted from its most significant bit
+     * @param below the number of bits to leave free below the kept bits
+     * @return the kept bits of word, shifted up above the free bits
+     */
+    private static int head(int word, int length, int keep, int below)
+    {
+        if (keep == 0)
+        {
+            return 0;
+        }
+        return (word >>> (length - keep)) << below;
+    }
+    
+    /**
+     * Swap the tails of two genomes after a random point, in place.
+     * The point is chosen among the bits both genomes have.
+     * @param genes the array holding both genomes
+     * @param a the index of the first word of the first genome
+     * @param b the index of the first word of the second genome
+     * @param length the number of words in each genome
+     * @param random the source of randomness used to choose the point
+     */
+    static void crossover(int[] genes, int a, int b, int length, RandomGenerator random)
+    {
+        int aLen = bitLength(genes[a]);
+        int bLen = bitLength(genes[b]);
+        int firstLen = Math.min(aLen, bLen);
+        int pos = random.nextInt(firstLen + Integer.SIZE * (length - 1));
+        int word;
+        if (pos < firstLen)
+        {
+            int aWord = genes[a];
+            int bWord = genes[b];
+            genes[a] = head(aWord, aLen, pos, bLen - pos) | (bWord & lowMask(bLen - pos));
+            genes[b] = head(bWord, bLen, pos, aLen - pos) | (aWord & lowMask(aLen - pos));
+            word = 1;
+        }
+        else
+        {
+            word = 1 + (pos - firstLen) / Integer.SIZE;
+            int mask = lowMask(Integer.SIZE - (pos - firstLen) % Integer.SIZE);
+            int aWord = genes[a + word];
+            int bWord = genes[b + word];
+            genes[a + word] = (aWord & ~mask) | (bWord & mask);
+            genes[b + word] = (bWord & ~mask) | (aWord & mask);
+            word++;
+        }
+        for (; word < length; word++)
+        {
+            int tmp = genes[a + word];
+            genes[a + word] = genes[b + word];
+            genes[b + word] = tmp;
+        }
+    }
+    
+    /**
+     * Flip one random bit of a genome, in place.
+     * The bit is counted from the most significant end, like the point of a crossover.
+     * @param genes the array holding the genome
+     * @param g the index of the first word of the genome
+     * @param length the number of words in the genome
+     * @param random the source of randomness used to choose the bit
+     */
+    static void mutate(int[] genes, int g, int length, RandomGenerator random)
+    {
+        int firstLen = bitLength(genes[g]);
+        int pos = random.nextInt(firstLen + Integer.SIZE * (length - 1));
+        if (pos < firstLen)
+        {
+            genes[g] ^= 1 << (firstLen - 1 - pos);
+        }
+        else
+        {
+            genes[g + 1 + (pos - firstLen) / Integer.SIZE] ^= Integer.MIN_VALUE >>> ((pos - firstLen) % Integer.SIZE);
+        }
+    }
+    
+}
\ No newline at end of file
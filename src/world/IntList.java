@@ -0,0 +1,104 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * IntList.java
+ * @author John Zavidniak
+ * A growable list of primitive ints, used so that lists of
+ * indices can be built and reused without boxing
+ */
+
+class IntList
+{
+    
+    private int[] items;
+    private int size;
+    
+    /**
+     * Create a new, empty list
+     */
+    public IntList()
+    {
+        this.items = new int[8];
+        this.size = 0;
+    }
+    
+    /**
+     * Add a value to the end of this list
+     * @param value the value to add
+     */
+    public void add(int value)
+    {
+        if (size == items.length)
+        {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = value;
+    }
+    
+    /**
+     * Remove a value from this list, moving the last value into its place
+     * @param value the value to remove
+     * @return true if the value was found and removed, false otherwise
+     */
+    public boolean removeValue(int value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (items[i] == value)
+            {
+                items[i] = items[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the value at a position in this list
+     * @param i the position of the value
+     * @return the value at position i
+     */
+    public int get(int i)
+    {
+        return items[i];
+    }
+    
+    /**
+     * Replace the value at a position in this list
+     * @param i the position of the value
+     * @param value the new value
+     */
+    public void set(int i, int value)
+    {
+        items[i] = value;
+    }
+    
+    /**
+     * Get the number of values in this list
+     * @return the number of values in this list
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Remove every value after the first few from this list
+     * @param size the number of values to keep
+     */
+    public void truncate(int size)
+    {
+        this.size = Math.min(this.size, size);
+    }
+    
+    /**
+     * Remove every value from this list, keeping its storage
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+    
+}
\ No newline at end of file
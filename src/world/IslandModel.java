@@ -0,0 +1,276 @@
+package world;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import world.creatures.CritterStore;
+
+/**
+ * IslandModel.java
+ * @author John Zavidniak
+ * Evolve several independent Worlds ("islands"), each with its own Genetics,
+ * at the same time on a pool of threads. Every few generations the fittest
+ * Critters of each island migrate to the next island around a ring, where
+ * their genes replace those of the least fit Critters. Migration happens as a
+ * generation ends, before the islands reproduce, so Critters are compared by
+ * the food they ate during that generation. Migrations fall on every generation
+ * which is a multiple of the migration interval, however far a run has been restored.
+ * Checkpoints of every island are written together, once the islands have met,
+ * so they restore to the same run. Islands only meet
+ * during migration, which runs on one thread, so results are the same
+ * for any number of threads.
+ */
+
+public class IslandModel
+{
+    
+    private World[] islands;
+    private int migrationInterval;
+    private int migrants;
+    private Path[] checkpoints;
+    private long checkpointInterval;
+    private long checkpointed;
+    
+    /**
+     * Create a new island model over some Worlds
+     * @param islands the Worlds to evolve, which should end their generations by ticks or food eaten
+     * @param migrationInterval the number of generations between migrations
+     * @param migrants the number of Critters which leave each island at every migration
+     * @throws IllegalArgumentException if migrationInterval is not positive, migrants is negative,
+     * an island never ends its generations, or the islands are not all at the same generation
+     */
+    public IslandModel(World[] islands, int migrationInterval, int migrants)
+    {
+        for (World island : islands)
+        {
+            if (!island.getConfig().endsGenerations())
+            {
+                throw new IllegalArgumentException("an island would never reach its next generation");
+            }
+            if (island.getGeneration() != islands[0].getGeneration())
+            {
+                throw new IllegalArgumentException("the islands must all be at the same generation");
+            }
+        }
+        if (migrationInterval <= 0)
+        {
+            throw new IllegalArgumentException("the migration interval must be positive");
+        }
+        if (migrants < 0)
+        {
+            throw new IllegalArgumentException("the number of migrants must not be negative");
+        }
+        this.islands = islands;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        this.checkpoints = null;
+        this.checkpointInterval = 0;
+        this.checkpointed = 0;
+        for (World island : islands)
+        {
+            island.getGenetics().setHeld(true);
+        }
+    }
+    
+    /**
+     * Get the islands of this model
+     * @return the Worlds being evolved
+     */
+    public World[] getIslands()
+    {
+        return islands;
+    }
+    
+    /**
+     * Start writing a checkpoint of every island once the islands meet,
+     * after every so many updates of the first island
+     * @param interval the number of updates of the first island between checkpoints
+     * @param paths the file to keep the latest checkpoint of each island in
+     */
+    public void checkpointEvery(long interval, Path[] paths)
+    {
+        if (interval < 1)
+        {
+            throw new IllegalArgumentException("interval must be at least 1");
+        }
+        if (paths.length != islands.length)
+        {
+            throw new IllegalArgumentException("every island needs its own checkpoint file");
+        }
+        this.checkpoints = paths;
+        this.checkpointInterval = interval;
+        this.checkpointed = islands[0].getTick();
+    }
+    
+    /**
+     * Write a checkpoint of every island if one is due. Called once the islands have
+     * migrated and reproduced, so every island is at the start of the same generation.
+     */
+    private void checkpoint()
+    {
+        if (checkpoints == null || islands[0].getTick() - checkpointed < checkpointInterval)
+        {
+            return;
+        }
+        checkpointed = islands[0].getTick();
+        for (int i = 0; i < islands.length; i++)
+        {
+            try
+            {
+                Checkpoint.save(islands[i], checkpoints[i]);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Update a World until the generation before a given one has ended,
+     * leaving that generation to reproduce
+     * @param world the World to update, which must be before the given generation
+     * @param generation the generation to stop just short of
+     */
+    private static void advance(World world, long generation)
+    {
+        Genetics genetics = world.getGenetics();
+        while (genetics.getGeneration() + 1 < generation || !genetics.isDue())
+        {
+            if (genetics.isDue())
+            {
+                genetics.reproduce();
+            }
+            world.update();
+        }
+    }
+    
+    /**
+     * Evolve every island for a number of generations
+     * @param generations the number of generations each island should go through
+     * @param threads the number of threads to share the islands between
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void run(long generations, int threads) throws InterruptedException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, islands.length)));
+        try
+        {
+            long end = islands[0].getGeneration() + generations;
+            while (islands[0].getGeneration() < end)
+            {
+                long next = (islands[0].getGeneration() / migrationInterval + 1) * migrationInterval;
+                final long target = Math.min(next, end);
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(islands.length);
+                for (final World island : islands)
+                {
+                    tasks.add(new Callable<Void>()
+                    {
+                        @Override
+                        public Void call()
+                        {
+                            advance(island, target);
+                            return null;
+                        }
+                    });
+                }
+                for (Future<Void> result : pool.invokeAll(tasks))
+                {
+                    try
+                    {
+                        result.get();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        throw new IllegalStateException("an island failed to evolve", e.getCause());
+                    }
+                }
+                if (target == next)
+                {
+                    migrate();
+                }
+                for (World island : islands)
+                {
+                    island.getGenetics().reproduce();
+                }
+                checkpoint();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Sort the Critters of a store by the amount of food they have eaten
+     * @param critters the store holding the Critters
+     * @return the indices of the Critters, from least to most food eaten
+     */
+    private static int[] byFitness(CritterStore critters)
+    {
+        long[] keys = new long[critters.size()];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = ((long) critters.getFoodEaten(i) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+        {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+    
+    /**
+     * Copy the genes of the fittest Critters of every island over
+     * the least fit Critters of the next island around the ring.
+     * Called once a generation has ended, before the islands reproduce.
+     */
+    public void migrate()
+    {
+        if (islands.length < 2)
+        {
+            return;
+        }
+        int[][] emigrants = new int[islands.length][];
+        for (int i = 0; i < islands.length; i++)
+        {
+            CritterStore critters = islands[i].getCritterStore();
+            int length = critters.getGenomeLength();
+            int[] order = byFitness(critters);
+            int count = Math.min(migrants, order.length);
+            emigrants[i] = new int[count * length];
+            for (int m = 0; m < count; m++)
+            {
+                int c = order[order.length - 1 - m];
+                System.arraycopy(critters.getGenes(), c * length, emigrants[i], m * length, length);
+            }
+        }
+        for (int i = 0; i < islands.length; i++)
+        {
+            CritterStore critters = islands[(i + 1) % islands.length].getCritterStore();
+            int length = critters.getGenomeLength();
+            int[] order = byFitness(critters);
+            int words = Math.min(length, islands[i].getCritterStore().getGenomeLength());
+            int sourceLength = islands[i].getCritterStore().getGenomeLength();
+            int count = Math.min(emigrants[i].length / sourceLength, order.length);
+            for (int m = 0; m < count; m++)
+            {
+                int c = order[m];
+                System.arraycopy(emigrants[i], m * sourceLength, critters.getGenes(), c * length, words);
+                critters.setFoodEaten(c, critters.getGenes()[c * length]);
+            }
+        }
+    }
+    
+}
\ No newline at end of file
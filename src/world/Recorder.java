@@ -0,0 +1,156 @@
+package world;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Recorder.java
+ * @author John Zavidniak
+ * Appends the state of a World after every update to a memory-mapped file,
+ * to be replayed or analysed later. Every tick is one fixed-size record,
+ * laid out by Frame.write, so any tick can be found without reading the ones before it.
+ * The file is a little-endian header followed by the records:
+ *     int magic, int version, int width, int height,
+ *     int critterCount, int foodCount, int recordSize, int unused, long records
+ * The number of records in the header is kept up to date after every tick,
+ * so a recording cut short by a crash can still be replayed.
+ * The numbers of Critters and Food must not change while recording.
+ */
+
+public class Recorder
+{
+    
+    static final int MAGIC = 0x53425452;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8 * Integer.BYTES + Long.BYTES;
+    static final int RECORDS_OFFSET = 8 * Integer.BYTES;
+    /*
+     * The number of bytes of records mapped at once
+     */
+    static final long WINDOW_SIZE = 64L << 20;
+    
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowRecords;
+    private int critterCount;
+    private int foodCount;
+    private int recordSize;
+    private long records;
+    private Frame frame;
+    private boolean closed;
+    
+    /**
+     * Create a new recorder, writing the header of the file
+     * @param path the file to record to, which is replaced
+     * @param world the world which will be recorded
+     * @throws IOException if the file can not be created
+     */
+    Recorder(Path path, World world) throws IOException
+    {
+        this.critterCount = world.getCritterStore().size();
+        this.foodCount = world.getFoodStore().size();
+        this.recordSize = Frame.getWrittenSize(critterCount, foodCount);
+        this.windowRecords = (int) Math.max(1, Recorder.WINDOW_SIZE / recordSize);
+        this.windowStart = 0;
+        this.records = 0;
+        this.frame = new Frame();
+        this.closed = false;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, Recorder.HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Recorder.MAGIC);
+        header.putInt(Recorder.VERSION);
+        header.putInt(world.getWidth());
+        header.putInt(world.getHeight());
+        header.putInt(critterCount);
+        header.putInt(foodCount);
+        header.putInt(recordSize);
+        header.putInt(0);
+        header.putLong(0);
+        this.window = map(0);
+    }
+    
+    /**
+     * Map the window of the file starting at a record, growing the file to fit it
+     * @param record the index of the first record in the window
+     * @return the mapped window
+     * @throws IOException if the window can not be mapped
+     */
+    private MappedByteBuffer map(long record) throws IOException
+    {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE,
+                Recorder.HEADER_SIZE + record * recordSize, (long) windowRecords * recordSize);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+    
+    /**
+     * Append the state of a world to the recording. Called by the world after every update.
+     * @param world the world which has just updated
+     * @throws IllegalStateException if the number of Critters or Food has changed
+     * @throws UncheckedIOException if the next part of the file can not be mapped
+     */
+    void update(World world)
+    {
+        if (closed)
+        {
+            return;
+        }
+        if (world.getCritterStore().size() != critterCount || world.getFoodStore().size() != foodCount)
+        {
+            throw new IllegalStateException("the population changed while recording");
+        }
+        if (records - windowStart == windowRecords)
+        {
+            try
+            {
+                window = map(records);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            windowStart = records;
+        }
+        frame.fill(world);
+        window.position((int) (records - windowStart) * recordSize);
+        frame.write(window);
+        records++;
+        header.putLong(Recorder.RECORDS_OFFSET, records);
+    }
+    
+    /**
+     * Get the number of ticks which have been recorded
+     * @return the number of records written so far
+     */
+    public long getRecords()
+    {
+        return records;
+    }
+    
+    /**
+     * Stop recording, and cut the file down to the records which were written
+     * @throws IOException if the file can not be closed
+     */
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        window.force();
+        header.force();
+        channel.truncate(Recorder.HEADER_SIZE + records * recordSize);
+        channel.close();
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package world;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replay.java
+ * @author John Zavidniak
+ * Reads back a file written by a Recorder, one tick at a time,
+ * either into Frames for analysis or into a FrameBuffer for a View to draw.
+ */
+
+public class Replay
+{
+    
+    private FileChannel channel;
+    private int width;
+    private int height;
+    private int critterCount;
+    private int foodCount;
+    private int recordSize;
+    private long records;
+    private int windowRecords;
+    private long windowStart;
+    private MappedByteBuffer window;
+    
+    /**
+     * Open a recording
+     * @param path the file the recording was written to
+     * @throws IOException if the file can not be read, or is not a recording
+     */
+    public Replay(Path path) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() < Recorder.HEADER_SIZE)
+        {
+            channel.close();
+            throw new IOException(path + " is not a recording");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Recorder.HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != Recorder.MAGIC || header.getInt() != Recorder.VERSION)
+        {
+            channel.close();
+            throw new IOException(path + " is not a recording");
+        }
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.critterCount = header.getInt();
+        this.foodCount = header.getInt();
+        this.recordSize = header.getInt();
+        header.getInt();
+        this.records = Math.min(header.getLong(), (channel.size() - Recorder.HEADER_SIZE) / recordSize);
+        this.windowRecords = (int) Math.max(1, Recorder.WINDOW_SIZE / recordSize);
+        this.windowStart = -1;
+        this.window = null;
+    }
+    
+    /**
+     * Get the width of the recorded world
+     * @return the width of the recorded world
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+    
+    /**
+     * Get the height of the recorded world
+     * @return the height of the recorded world
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+    
+    /**
+     * Get the number of ticks in the recording
+     * @return the number of records in the recording
+     */
+    public long getRecords()
+    {
+        return records;
+    }
+    
+    /**
+     * Read a recorded tick into a frame
+     * @param record the index of the recorded tick, from 0 to getRecords() - 1
+     * @param frame the frame to read into
+     * @throws IOException if the recording can not be read
+     */
+    public void read(long record, Frame frame) throws IOException
+    {
+        if (record < 0 || record >= records)
+        {
+            throw new IndexOutOfBoundsException("no record " + record);
+        }
+        if (window == null || record < windowStart || record >= windowStart + windowRecords)
+        {
+            windowStart = record - record % windowRecords;
+            long length = Math.min(windowRecords, records - windowStart) * recordSize;
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    Recorder.HEADER_SIZE + windowStart * recordSize, length);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        window.position((int) (record - windowStart) * recordSize);
+        frame.read(window, width, height, critterCount, foodCount);
+    }
+    
+    /**
+     * Publish every recorded tick in order, waiting between them
+     * @param frames the buffer to publish the ticks to
+     * @param delay the number of milliseconds to wait between ticks
+     * @throws IOException if the recording can not be read
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void play(FrameBuffer frames, long delay) throws IOException, InterruptedException
+    {
+        for (long record = 0; record < records; record++)
+        {
+            frames.publish(this, record);
+            Thread.sleep(delay);
+        }
+    }
+    
+    /**
+     * Close the recording
+     * @throws IOException if the file can not be closed
+     */
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+    
+}
\ No newline at end of file
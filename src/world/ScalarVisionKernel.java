@@ -0,0 +1,64 @@
+package world;
+
+/**
+ * ScalarVisionKernel.java
+ * @author John Zavidniak
+ * Tests a block of points one at a time.
+ * Used wherever the Vector API is not available.
+ */
+
+class ScalarVisionKernel implements VisionKernel
+{
+    
+    /**
+     * Find how far away each point in a block is, if it is visible
+     * @param xs the x-positions of the points
+     * @param ys the y-positions of the points
+     * @param count the number of points in the block
+     * @param cx the x-position of the Critter
+     * @param cy the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param cosHalfFov the cosine of half the Critter's field of view
+     * @param rangeSq the square of the Critter's range of sight
+     * @param out the array to write the squared distance of each visible point to,
+     *            or positive infinity for each point which is not visible
+     */
+    @Override
+    public void distances(double[] xs, double[] ys, int count, double cx, double cy, double vx, double vy,
+            double cosHalfFov, double rangeSq, double[] out)
+    {
+        ScalarVisionKernel.distances(xs, ys, 0, count, cx, cy, vx, vy, cosHalfFov, rangeSq, out);
+    }
+    
+    /**
+     * Find how far away each point in part of a block is, if it is visible
+     * @param xs the x-positions of the points
+     * @param ys the y-positions of the points
+     * @param from the index of the first point to test
+     * @param to one past the index of the last point to test
+     * @param cx the x-position of the Critter
+     * @param cy the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param cosHalfFov the cosine of half the Critter's field of view
+     * @param rangeSq the square of the Critter's range of sight
+     * @param out the array to write the squared distance of each visible point to,
+     *            or positive infinity for each point which is not visible
+     */
+    static void distances(double[] xs, double[] ys, int from, int to, double cx, double cy, double vx, double vy,
+            double cosHalfFov, double rangeSq, double[] out)
+    {
+        double vMagSq = vx*vx + vy*vy;
+        for (int i = from; i < to; i++)
+        {
+            double dx = xs[i] - cx;
+            double dy = ys[i] - cy;
+            double magSq = dx*dx + dy*dy;
+            boolean visible = magSq != 0 && magSq <= rangeSq
+                    && vx*dx + vy*dy >= cosHalfFov * Math.sqrt(vMagSq * magSq);
+            out[i] = visible ? magSq : Double.POSITIVE_INFINITY;
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package world;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeds.java
+ * @author John Zavidniak
+ * Derive independent random generators from the seed of a simulation.
+ * Every random decision belongs to a stream (updating, spawning, reproducing),
+ * and every stream is indexed by a clock (the tick or the generation), so any
+ * generator can be recreated from the seed alone, in any order, on any thread.
+ */
+
+public class Seeds
+{
+    
+    public static final long TICK_STREAM = 1;
+    public static final long SPAWN_STREAM = 2;
+    public static final long GENETICS_STREAM = 3;
+    public static final long ISLAND_STREAM = 4;
+    public static final long SWEEP_STREAM = 5;
+    public static final long SHARD_STREAM = 6;
+    
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    /**
+     * Seeds is a collection of static helpers
+     */
+    private Seeds()
+    {
+    }
+    
+    /**
+     * Scramble the bits of a value, as SplittableRandom does
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    public static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Derive the seed of one generator of a stream
+     * @param seed the seed of the simulation
+     * @param stream the stream the generator belongs to
+     * @param index the position of the generator in the stream
+     * @return the seed of the generator
+     */
+    public static long derive(long seed, long stream, long index)
+    {
+        return mix(mix(mix(seed) + stream * Seeds.GOLDEN_GAMMA) + index * Seeds.GOLDEN_GAMMA);
+    }
+    
+    /**
+     * Create one generator of a stream
+     * @param seed the seed of the simulation
+     * @param stream the stream the generator belongs to
+     * @param index the position of the generator in the stream
+     * @return a new generator
+     */
+    public static SplittableRandom random(long seed, long stream, long index)
+    {
+        return new SplittableRandom(derive(seed, stream, index));
+    }
+    
+}
\ No newline at end of file
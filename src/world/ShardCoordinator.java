@@ -0,0 +1,568 @@
+package world;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import world.creatures.CritterStore;
+import world.creatures.FoodStore;
+
+/**
+ * ShardCoordinator.java
+ * @author John Zavidniak
+ * Run a world split into vertical strips, each owned by a ShardWorker in its own process,
+ * all on one machine. The coordinator starts the workers, hands each the Critters and Food
+ * of its strip, then steps them in lockstep: every tick it sends each shard the Critters
+ * which crossed into its strip and the halos of its neighbours, and collects what each shard
+ * sends back. Shards only talk to the coordinator, and it handles them in shard order,
+ * so a run depends on its seed and number of shards, never on how the processes are scheduled.
+ * The coordinator also keeps the generation clock of the whole world: when a generation
+ * is over, it gathers every shard's Critters, in shard order, into the World the run started
+ * from, breeds them there with that World's Genetics, and scatters the children back.
+ */
+
+public class ShardCoordinator
+{
+    
+    private static final long ACCEPT_POLL_MILLIS = 10;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    
+    private World world;
+    private ShardLayout layout;
+    private Process[] processes;
+    private ShardProtocol[] links;
+    private Path socketDirectory;
+    private long tick;
+    /*
+     * A copy of the last REPORT of every shard, and where its sections start:
+     * the Critters moving out, then the Food and Critters near its left and right neighbours
+     */
+    private ByteBuffer[] reports;
+    private int[] leaving;
+    private int[] leftFood;
+    private int[] leftCritters;
+    private int[] rightFood;
+    private int[] rightCritters;
+    private int healthyEaten;
+    /*
+     * The number of Critters every shard had when they were last gathered
+     */
+    private int[] counts;
+    
+    /**
+     * Create a new coordinator for a populated World
+     * @param world the World holding the Critters and Food to share out, whose Genetics breeds every shard's Critters
+     * @param shards the number of shards to split the world into
+     */
+    public ShardCoordinator(World world, int shards)
+    {
+        this.world = world;
+        this.layout = new ShardLayout(world.getWidth(), shards, world.getConfig());
+        this.processes = new Process[shards];
+        this.links = new ShardProtocol[shards];
+        this.socketDirectory = null;
+        this.tick = 0;
+        this.reports = new ByteBuffer[shards];
+        this.leaving = new int[shards];
+        this.leftFood = new int[shards];
+        this.leftCritters = new int[shards];
+        this.rightFood = new int[shards];
+        this.rightCritters = new int[shards];
+        this.healthyEaten = 0;
+        this.counts = new int[shards];
+    }
+    
+    /**
+     * Get the World the run started from, which holds the genomes of every Critter
+     * as of the last time they were gathered
+     * @return the World of this coordinator
+     */
+    public World getWorld()
+    {
+        return world;
+    }
+    
+    /**
+     * Get the number of shards
+     * @return the number of shards the world is split into
+     */
+    public int getShards()
+    {
+        return layout.getShards();
+    }
+    
+    /**
+     * Get the number of ticks every shard has run
+     * @return the number of updates which have been run
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+    
+    /**
+     * Get the number of new populations which have been bred
+     * @return the current generation of Critters
+     */
+    public long getGeneration()
+    {
+        return world.getGeneration();
+    }
+    
+    /**
+     * Start a process for every shard, wait for them all to connect, and hand out the world
+     * @param command the command which starts a shard, to which "--shard-worker ADDRESS --shard INDEX" is added
+     * @param unix true to talk over Unix domain sockets, false to talk over TCP on the loopback interface
+     * @throws IOException if a process can not be started, exits before it connects, or can not be talked to
+     */
+    public void start(List<String> command, boolean unix) throws IOException
+    {
+        ServerSocketChannel server;
+        if (unix)
+        {
+            socketDirectory = Files.createTempDirectory("shards");
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketDirectory.resolve("coordinator.sock")));
+        }
+        else
+        {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        }
+        try
+        {
+            String address = ShardProtocol.format(server.getLocalAddress());
+            for (int k = 0; k < processes.length; k++)
+            {
+                List<String> args = new ArrayList<String>(command);
+                args.add("--shard-worker");
+                args.add(address);
+                args.add("--shard");
+                args.add(Integer.toString(k));
+                processes[k] = new ProcessBuilder(args).inheritIO().start();
+            }
+            accept(server, unix);
+        }
+        finally
+        {
+            server.close();
+        }
+        for (int k = 0; k < links.length; k++)
+        {
+            init(k);
+        }
+        for (int k = 0; k < links.length; k++)
+        {
+            receiveReport(k);
+        }
+    }
+    
+    /**
+     * Wait for every shard to connect and say which shard it is
+     * @param server the channel the shards connect to
+     * @param unix true if the shards connect over Unix domain sockets
+     * @throws IOException if a process exits before it connects, or says something unexpected
+     */
+    private void accept(ServerSocketChannel server, boolean unix) throws IOException
+    {
+        server.configureBlocking(false);
+        int connected = 0;
+        while (connected < links.length)
+        {
+            SocketChannel channel = server.accept();
+            if (channel == null)
+            {
+                for (int k = 0; k < processes.length; k++)
+                {
+                    if (links[k] == null && !processes[k].isAlive())
+                    {
+                        throw new IOException("shard " + k + " exited with " + processes[k].exitValue());
+                    }
+                }
+                try
+                {
+                    Thread.sleep(ShardCoordinator.ACCEPT_POLL_MILLIS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting for shards");
+                }
+                continue;
+            }
+            channel.configureBlocking(true);
+            if (!unix)
+            {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            ShardProtocol link = new ShardProtocol(channel);
+            int k = link.receive(ShardProtocol.HELLO).getInt();
+            if (k < 0 || k >= links.length || links[k] != null)
+            {
+                link.close();
+                throw new IOException("unexpected shard " + k);
+            }
+            links[k] = link;
+            connected++;
+        }
+    }
+    
+    /**
+     * Send a shard the Critters and Food which start out in its strip
+     * @param k the index of the shard
+     * @throws IOException if the message can not be sent
+     */
+    private void init(int k) throws IOException
+    {
+        CritterStore critters = world.getCritterStore();
+        FoodStore food = world.getFoodStore();
+        ShardProtocol link = links[k];
+        ByteBuffer out = link.begin(ShardProtocol.INIT);
+        int count = out.position();
+        out.putInt(0);
+        int written = 0;
+        int bytes = ShardProtocol.critterBytes(critters.getGenomeLength());
+        for (int c = 0; c < critters.size(); c++)
+        {
+            if (layout.owner(critters.getX(c)) == k)
+            {
+                out = link.reserve(bytes);
+                ShardProtocol.putCritter(out, critters, c);
+                written++;
+            }
+        }
+        out.putInt(count, written);
+        out = link.reserve(Integer.BYTES);
+        count = out.position();
+        out.putInt(0);
+        written = 0;
+        for (int f = 0; f < food.size(); f++)
+        {
+            if (layout.owner(food.getX(f)) == k)
+            {
+                out = link.reserve(2 * Double.BYTES + 1);
+                out.putDouble(food.getX(f));
+                out.putDouble(food.getY(f));
+                out.put(food.isHealthy(f) ? (byte) 1 : (byte) 0);
+                written++;
+            }
+        }
+        out.putInt(count, written);
+        link.send();
+    }
+    
+    /**
+     * Skip over a section of records
+     * @param in the buffer holding the section, positioned at its count
+     * @param bytes the size of each record
+     * @return the position of the section's count
+     */
+    private static int skip(ByteBuffer in, int bytes)
+    {
+        int start = in.position();
+        in.position(start + Integer.BYTES + in.getInt(start) * bytes);
+        return start;
+    }
+    
+    /**
+     * Receive the REPORT of a shard, keeping a copy, since its connection's buffer
+     * is reused for the messages of any new generation
+     * @param k the index of the shard
+     * @throws IOException if the message can not be received
+     */
+    private void receiveReport(int k) throws IOException
+    {
+        ByteBuffer in = links[k].receive(ShardProtocol.REPORT);
+        if (reports[k] == null || reports[k].capacity() < in.remaining())
+        {
+            reports[k] = ByteBuffer.allocateDirect(Math.max(in.remaining(),
+                    (reports[k] == null) ? 0 : 2 * reports[k].capacity()));
+        }
+        ByteBuffer report = reports[k];
+        report.clear();
+        report.put(in);
+        report.flip();
+        healthyEaten += report.getInt();
+        int critterBytes = Integer.BYTES + ShardProtocol.critterBytes(world.getCritterStore().getGenomeLength());
+        int foodBytes = 2 * Double.BYTES + 1;
+        int ghostBytes = 2 * Double.BYTES;
+        leaving[k] = skip(report, critterBytes);
+        leftFood[k] = (k > 0) ? skip(report, foodBytes) : -1;
+        leftCritters[k] = (k > 0) ? skip(report, ghostBytes) : -1;
+        rightFood[k] = (k < links.length - 1) ? skip(report, foodBytes) : -1;
+        rightCritters[k] = (k < links.length - 1) ? skip(report, ghostBytes) : -1;
+    }
+    
+    /**
+     * Copy a section of records from a report into the message being written
+     * @param link the connection the message is for
+     * @param report the report holding the section
+     * @param start the position of the section's count
+     * @param bytes the size of each record
+     * @return the buffer to carry on writing to
+     */
+    private static ByteBuffer copy(ShardProtocol link, ByteBuffer report, int start, int bytes)
+    {
+        int length = report.getInt(start) * bytes;
+        ByteBuffer out = link.reserve(length);
+        out.put(report.slice(start + Integer.BYTES, length));
+        return out;
+    }
+    
+    /**
+     * Send a shard the Critters which crossed into its strip, from every shard in order,
+     * and the halos its neighbours have next to it
+     * @param k the index of the shard
+     * @throws IOException if the message can not be sent
+     */
+    private void sendStep(int k) throws IOException
+    {
+        ShardProtocol link = links[k];
+        int bytes = ShardProtocol.critterBytes(world.getCritterStore().getGenomeLength());
+        ByteBuffer out = link.begin(ShardProtocol.STEP);
+        int count = out.position();
+        out.putInt(0);
+        int arriving = 0;
+        for (int j = 0; j < links.length; j++)
+        {
+            ByteBuffer report = reports[j];
+            int start = leaving[j] + Integer.BYTES;
+            for (int m = 0; m < report.getInt(leaving[j]); m++)
+            {
+                int at = start + m * (Integer.BYTES + bytes);
+                if (report.getInt(at) == k)
+                {
+                    out = link.reserve(bytes);
+                    out.put(report.slice(at + Integer.BYTES, bytes));
+                    arriving++;
+                }
+            }
+        }
+        out.putInt(count, arriving);
+        int foodBytes = 2 * Double.BYTES + 1;
+        int ghostBytes = 2 * Double.BYTES;
+        int left = (k > 0) ? reports[k - 1].getInt(rightFood[k - 1]) : 0;
+        int right = (k < links.length - 1) ? reports[k + 1].getInt(leftFood[k + 1]) : 0;
+        out = link.reserve(Integer.BYTES);
+        out.putInt(left + right);
+        if (k > 0)
+        {
+            out = copy(link, reports[k - 1], rightFood[k - 1], foodBytes);
+        }
+        if (k < links.length - 1)
+        {
+            out = copy(link, reports[k + 1], leftFood[k + 1], foodBytes);
+        }
+        left = (k > 0) ? reports[k - 1].getInt(rightCritters[k - 1]) : 0;
+        right = (k < links.length - 1) ? reports[k + 1].getInt(leftCritters[k + 1]) : 0;
+        out = link.reserve(Integer.BYTES);
+        out.putInt(left + right);
+        if (k > 0)
+        {
+            out = copy(link, reports[k - 1], rightCritters[k - 1], ghostBytes);
+        }
+        if (k < links.length - 1)
+        {
+            out = copy(link, reports[k + 1], leftCritters[k + 1], ghostBytes);
+        }
+        link.send();
+    }
+    
+    /**
+     * Update every shard once, then breed every shard's Critters together if the generation is over
+     * @throws IOException if a shard can not be talked to
+     */
+    public void step() throws IOException
+    {
+        // every shard is sent its step before any report is read, so the shards update at the same time
+        for (int k = 0; k < links.length; k++)
+        {
+            sendStep(k);
+        }
+        healthyEaten = 0;
+        for (int k = 0; k < links.length; k++)
+        {
+            receiveReport(k);
+        }
+        tick++;
+        if (world.getGenetics().advance(healthyEaten))
+        {
+            gather();
+            world.getGenetics().reproduce();
+            scatter();
+        }
+    }
+    
+    /**
+     * Get the foodAttractiveness and genome of a Critter which is moving between shards
+     * @param j the shard the Critter is leaving
+     * @param m the index of the Critter among those leaving the shard
+     * @return a view of the last report of the shard, positioned at the Critter's foodAttractiveness
+     */
+    private ByteBuffer migrant(int j, int m)
+    {
+        int bytes = Integer.BYTES + ShardProtocol.critterBytes(world.getCritterStore().getGenomeLength());
+        // skip the shard it goes to, then its position and velocity
+        int at = leaving[j] + Integer.BYTES + m * bytes + Integer.BYTES + 4 * Double.BYTES;
+        return reports[j].duplicate().position(at);
+    }
+    
+    /**
+     * Copy the foodAttractiveness and genome of every shard's Critters, in shard order,
+     * then of the Critters moving between shards, over the Critters of this coordinator's World
+     * @throws IOException if a shard can not be talked to, or the shards have lost or gained Critters
+     */
+    private void gather() throws IOException
+    {
+        for (ShardProtocol link : links)
+        {
+            link.begin(ShardProtocol.GATHER);
+            link.send();
+        }
+        CritterStore critters = world.getCritterStore();
+        int c = 0;
+        for (int k = 0; k < links.length; k++)
+        {
+            ByteBuffer in = links[k].receive(ShardProtocol.GENOMES);
+            int count = in.getInt();
+            if (count < 0 || c + count > critters.size())
+            {
+                throw new IOException("the shards have more Critters than the world");
+            }
+            counts[k] = count;
+            for (int i = 0; i < count; i++)
+            {
+                ShardProtocol.getGenome(in, critters, c++);
+            }
+        }
+        // Critters which crossed a border this tick have left one shard but not reached the next
+        for (int j = 0; j < links.length; j++)
+        {
+            int moving = reports[j].getInt(leaving[j]);
+            if (c + moving > critters.size())
+            {
+                throw new IOException("the shards have more Critters than the world");
+            }
+            for (int m = 0; m < moving; m++)
+            {
+                ShardProtocol.getGenome(migrant(j, m), critters, c++);
+            }
+        }
+        if (c != critters.size())
+        {
+            throw new IOException("the shards have fewer Critters than the world");
+        }
+    }
+    
+    /**
+     * Send every shard the foodAttractiveness and genome of its Critters' children,
+     * and write those of the Critters moving between shards into the reports they travel in,
+     * all in the order they were gathered
+     * @throws IOException if a shard can not be talked to
+     */
+    private void scatter() throws IOException
+    {
+        CritterStore critters = world.getCritterStore();
+        int bytes = Double.BYTES + critters.getGenomeLength() * Integer.BYTES;
+        int c = 0;
+        for (int k = 0; k < links.length; k++)
+        {
+            ShardProtocol link = links[k];
+            int count = counts[k];
+            ByteBuffer out = link.begin(ShardProtocol.SCATTER);
+            out.putInt(count);
+            for (int i = 0; i < count; i++)
+            {
+                out = link.reserve(bytes);
+                ShardProtocol.putGenome(out, critters, c++);
+            }
+            link.send();
+        }
+        for (int j = 0; j < links.length; j++)
+        {
+            for (int m = 0; m < reports[j].getInt(leaving[j]); m++)
+            {
+                ShardProtocol.putGenome(migrant(j, m), critters, c++);
+            }
+        }
+    }
+    
+    /**
+     * Gather the Critters of every shard into this coordinator's World, then stop every shard
+     * @throws IOException if a shard can not be talked to
+     */
+    public void finish() throws IOException
+    {
+        gather();
+        for (ShardProtocol link : links)
+        {
+            link.begin(ShardProtocol.STOP);
+            link.send();
+        }
+        for (Process process : processes)
+        {
+            try
+            {
+                process.waitFor(ShardCoordinator.STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for shards to stop");
+            }
+        }
+    }
+    
+    /**
+     * Close every connection and kill any shard which is still running
+     */
+    public void close()
+    {
+        for (ShardProtocol link : links)
+        {
+            try
+            {
+                if (link != null)
+                {
+                    link.close();
+                }
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+        for (Process process : processes)
+        {
+            if (process != null)
+            {
+                process.destroy();
+            }
+        }
+        if (socketDirectory != null)
+        {
+            try
+            {
+                Files.deleteIfExists(socketDirectory.resolve("coordinator.sock"));
+                Files.deleteIfExists(socketDirectory);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package world;
+
+/**
+ * ShardLayout.java
+ * @author John Zavidniak
+ * How a world is split into shards: vertical strips of equal width, side by side,
+ * with the first and last strips running on past the edges of an unbounded world.
+ * A shard owns every Critter whose x-position is in its strip, and can see a band
+ * ("halo") of its neighbours' strips as wide as any Critter can see, keep its
+ * distance, or move in one update.
+ */
+
+class ShardLayout
+{
+    
+    private int width;
+    private int shards;
+    private double halo;
+    
+    /**
+     * Create a new layout
+     * @param width the width of the world
+     * @param shards the number of strips, at least 1 and at most the width
+     * @param config the parameters of the world
+     */
+    public ShardLayout(int width, int shards, WorldConfig config)
+    {
+        if (shards < 1 || shards > width)
+        {
+            throw new IllegalArgumentException("shards must be from 1 to the width of the world");
+        }
+        this.width = width;
+        this.shards = shards;
+        this.halo = Math.max(config.getRange(), config.getSeparation()) + config.getVelocity();
+    }
+    
+    /**
+     * Get the number of strips
+     * @return the number of shards
+     */
+    public int getShards()
+    {
+        return shards;
+    }
+    
+    /**
+     * Get the x-position of the left edge of a strip
+     * @param k the index of the shard
+     * @return the left edge of the strip, which shard k - 1 owns everything left of
+     */
+    public int getLeft(int k)
+    {
+        return (int) ((long) k * width / shards);
+    }
+    
+    /**
+     * Get the x-position of the right edge of a strip
+     * @param k the index of the shard
+     * @return the right edge of the strip, which shard k + 1 owns everything from
+     */
+    public int getRight(int k)
+    {
+        return getLeft(k + 1);
+    }
+    
+    /**
+     * Get the width of the band of a neighbour's strip a shard can see
+     * @return the width of the halo
+     */
+    public double getHalo()
+    {
+        return halo;
+    }
+    
+    /**
+     * Find the shard which owns a position
+     * @param x the x-position to use
+     * @return the index of the shard whose strip holds x
+     */
+    public int owner(double x)
+    {
+        int k = (int) Math.max(0, Math.min(shards - 1, Math.floor(x * shards / width)));
+        while (k > 0 && x < getLeft(k))
+        {
+            k--;
+        }
+        while (k < shards - 1 && x >= getRight(k))
+        {
+            k++;
+        }
+        return k;
+    }
+    
+}
\ No newline at end of file
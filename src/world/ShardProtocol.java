@@ -0,0 +1,310 @@
+package world;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import world.creatures.CritterStore;
+
+/**
+ * ShardProtocol.java
+ * @author John Zavidniak
+ * One end of the connection between the coordinator of a sharded world and one of its shards.
+ * Every message is a frame of an int length, a byte type, and a payload of primitives,
+ * written with a reused buffer, so a tick costs a few bulk writes and no objects.
+ * A Critter travels as its position, velocity, foodAttractiveness and genome;
+ * ghost Food as its position and health status; a ghost Critter as its position.
+ */
+
+class ShardProtocol
+{
+    
+    /*
+     * Sent by a shard once it connects: the index of the shard
+     */
+    public static final byte HELLO = 1;
+    /*
+     * Sent to a shard once: its Critters, then its Food
+     */
+    public static final byte INIT = 2;
+    /*
+     * Sent to a shard every tick: the Critters moving in, the ghost Food, then the ghost Critters
+     */
+    public static final byte STEP = 3;
+    /*
+     * Sent by a shard after every tick: the healthy Food eaten, the Critters moving out
+     * with the shard each goes to, then the Food and Critters near each neighbour, left first
+     */
+    public static final byte REPORT = 4;
+    /*
+     * Sent to a shard when a generation is over, or the run is
+     */
+    public static final byte GATHER = 5;
+    /*
+     * Sent by a shard in answer to GATHER: the foodAttractiveness and genome of every Critter
+     */
+    public static final byte GENOMES = 6;
+    /*
+     * Sent to a shard after reproducing: the new foodAttractiveness and genome of every Critter
+     */
+    public static final byte SCATTER = 7;
+    /*
+     * Sent to a shard to end the run
+     */
+    public static final byte STOP = 8;
+    
+    private static final int HEADER = Integer.BYTES + 1;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    
+    private SocketChannel channel;
+    private ByteBuffer out;
+    private ByteBuffer in;
+    private ByteBuffer header;
+    
+    /**
+     * Create a new end of a connection
+     * @param channel the connected, blocking channel to talk over
+     */
+    public ShardProtocol(SocketChannel channel)
+    {
+        this.channel = channel;
+        this.out = ByteBuffer.allocateDirect(ShardProtocol.INITIAL_CAPACITY);
+        this.in = ByteBuffer.allocateDirect(ShardProtocol.INITIAL_CAPACITY);
+        this.header = ByteBuffer.allocateDirect(ShardProtocol.HEADER);
+    }
+    
+    /**
+     * Turn the address a coordinator listens on into a string which can be passed to a shard
+     * @param address a TCP or Unix domain socket address
+     * @return "tcp:host:port" or "unix:path"
+     */
+    public static String format(SocketAddress address)
+    {
+        if (address instanceof UnixDomainSocketAddress)
+        {
+            return "unix:" + ((UnixDomainSocketAddress) address).getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return "tcp:" + inet.getHostString() + ":" + inet.getPort();
+    }
+    
+    /**
+     * Read an address written by format
+     * @param address "tcp:host:port" or "unix:path"
+     * @return the address
+     */
+    public static SocketAddress parse(String address)
+    {
+        if (address.startsWith("unix:"))
+        {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        int port = address.lastIndexOf(':');
+        if (!address.startsWith("tcp:") || port < "tcp:".length())
+        {
+            throw new IllegalArgumentException("not a shard address: " + address);
+        }
+        return new InetSocketAddress(address.substring("tcp:".length(), port),
+                Integer.parseInt(address.substring(port + 1)));
+    }
+    
+    /**
+     * Get the number of bytes a Critter takes
+     * @param genomeLength the number of words in each genome
+     * @return the size of a Critter, in bytes
+     */
+    public static int critterBytes(int genomeLength)
+    {
+        return 5 * Double.BYTES + genomeLength * Integer.BYTES;
+    }
+    
+    /**
+     * Write the whole state of a Critter
+     * @param out the buffer to write to
+     * @param critters the store holding the Critter
+     * @param c the index of the Critter
+     */
+    public static void putCritter(ByteBuffer out, CritterStore critters, int c)
+    {
+        out.putDouble(critters.getX(c));
+        out.putDouble(critters.getY(c));
+        out.putDouble(critters.getVelocityX(c));
+        out.putDouble(critters.getVelocityY(c));
+        putGenome(out, critters, c);
+    }
+    
+    /**
+     * Read the whole state of a Critter written by putCritter, and add it to a store
+     * @param in the buffer to read from
+     * @param critters the store to add the Critter to
+     * @param genome scratch space for at least one genome
+     * @return the index of the new Critter
+     */
+    public static int getCritter(ByteBuffer in, CritterStore critters, int[] genome)
+    {
+        double x = in.getDouble();
+        double y = in.getDouble();
+        double vx = in.getDouble();
+        double vy = in.getDouble();
+        double foodAttractiveness = in.getDouble();
+        in.asIntBuffer().get(genome, 0, critters.getGenomeLength());
+        in.position(in.position() + critters.getGenomeLength() * Integer.BYTES);
+        return critters.add(x, y, vx, vy, foodAttractiveness, genome, 0);
+    }
+    
+    /**
+     * Write the foodAttractiveness and genome of a Critter
+     * @param out the buffer to write to
+     * @param critters the store holding the Critter
+     * @param c the index of the Critter
+     */
+    public static void putGenome(ByteBuffer out, CritterStore critters, int c)
+    {
+        int length = critters.getGenomeLength();
+        out.putDouble(critters.getFoodAttractiveness(c));
+        out.asIntBuffer().put(critters.getGenes(), c * length, length);
+        out.position(out.position() + length * Integer.BYTES);
+    }
+    
+    /**
+     * Read a foodAttractiveness and genome written by putGenome into a Critter
+     * @param in the buffer to read from
+     * @param critters the store holding the Critter
+     * @param c the index of the Critter
+     */
+    public static void getGenome(ByteBuffer in, CritterStore critters, int c)
+    {
+        int length = critters.getGenomeLength();
+        double foodAttractiveness = in.getDouble();
+        int[] genes = critters.getGenes();
+        in.asIntBuffer().get(genes, c * length, length);
+        in.position(in.position() + length * Integer.BYTES);
+        critters.setGenome(c, foodAttractiveness, genes, c * length);
+    }
+    
+    /**
+     * Start a new message, dropping anything not yet sent
+     * @param type the type of the message
+     * @return the buffer to write the payload to
+     */
+    public ByteBuffer begin(byte type)
+    {
+        out.clear();
+        out.position(Integer.BYTES);
+        out.put(type);
+        return out;
+    }
+    
+    /**
+     * Make room in the message being written, keeping what has been written so far
+     * @param bytes the number of bytes about to be written
+     * @return the buffer to carry on writing the payload to, which may be a new buffer
+     */
+    public ByteBuffer reserve(int bytes)
+    {
+        if (out.remaining() < bytes)
+        {
+            long needed = (long) out.position() + bytes;
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(needed, 2L * out.capacity())));
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+        return out;
+    }
+    
+    /**
+     * Send the message being written
+     * @throws IOException if the message can not be written
+     */
+    public void send() throws IOException
+    {
+        out.flip();
+        out.putInt(0, out.limit() - Integer.BYTES);
+        while (out.hasRemaining())
+        {
+            channel.write(out);
+        }
+    }
+    
+    /**
+     * Fill a buffer from the channel
+     * @param buffer the buffer to fill up to its limit
+     * @throws IOException if the channel is closed first, or can not be read
+     */
+    private void fill(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer) < 0)
+            {
+                throw new EOFException("the other end of a shard connection closed");
+            }
+        }
+    }
+    
+    /**
+     * Wait for the next message, of any type
+     * @return the buffer holding the payload, valid until the next message is received
+     * @throws IOException if the channel can not be read
+     */
+    public ByteBuffer receive() throws IOException
+    {
+        header.clear();
+        fill(header);
+        int length = header.getInt(0) - 1;
+        if (length < 0)
+        {
+            throw new IOException("corrupt shard message");
+        }
+        if (in.capacity() < length)
+        {
+            in = ByteBuffer.allocateDirect(Math.max(length, 2 * in.capacity()));
+        }
+        in.clear();
+        in.limit(length);
+        fill(in);
+        in.flip();
+        return in;
+    }
+    
+    /**
+     * Wait for the next message, which must be of a given type
+     * @param type the type of message expected
+     * @return the buffer holding the payload, valid until the next message is received
+     * @throws IOException if the channel can not be read, or the next message is of another type
+     */
+    public ByteBuffer receive(byte type) throws IOException
+    {
+        ByteBuffer payload = receive();
+        if (getType() != type)
+        {
+            throw new IOException("expected shard message " + type + " but got " + getType());
+        }
+        return payload;
+    }
+    
+    /**
+     * Get the type of the last message received
+     * @return the type of the message
+     */
+    public byte getType()
+    {
+        return header.get(Integer.BYTES);
+    }
+    
+    /**
+     * Close the connection
+     * @throws IOException if the channel can not be closed
+     */
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,313 @@
+package world;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import world.creatures.CritterStore;
+import world.creatures.FoodStore;
+import world.respawn.StripRespawn;
+
+/**
+ * ShardWorker.java
+ * @author John Zavidniak
+ * One shard of a sharded world, run in its own process: a World which owns
+ * the Critters and Food in one strip of the whole world. Every tick it takes in
+ * the Critters which crossed into its strip and the Food and Critters its
+ * neighbours have near its edges, updates, then hands back the Critters which
+ * left its strip and what it has near each of its own edges.
+ * Generations are ended by the coordinator, which breeds every shard's Critters together.
+ */
+
+public class ShardWorker
+{
+    
+    private World world;
+    private int shard;
+    private ShardLayout layout;
+    private ShardProtocol link;
+    private int[] genome;
+    /*
+     * The ghost Food and Critters received from the neighbours
+     */
+    private double[] foodX;
+    private double[] foodY;
+    private boolean[] foodHealthy;
+    private double[] critterX;
+    private double[] critterY;
+    
+    /**
+     * Create a new shard around an empty World
+     * @param world the World to keep the shard's Critters and Food in, which must be as large as the whole world
+     * @param shard the index of this shard
+     * @param shards the number of shards
+     */
+    public ShardWorker(World world, int shard, int shards)
+    {
+        if (shard < 0 || shard >= shards)
+        {
+            throw new IllegalArgumentException("shard must be from 0 to shards - 1");
+        }
+        this.world = world;
+        this.shard = shard;
+        this.layout = new ShardLayout(world.getWidth(), shards, world.getConfig());
+        this.genome = new int[world.getCritterStore().getGenomeLength()];
+        this.foodX = new double[0];
+        this.foodY = new double[0];
+        this.foodHealthy = new boolean[0];
+        this.critterX = new double[0];
+        this.critterY = new double[0];
+        // the coordinator ends generations, and Food which is eaten here grows back here
+        world.getConfig().setTicksPerGeneration(0);
+        world.getConfig().setFoodPerGeneration(0);
+        world.setRespawn(new StripRespawn(world.getRespawn(), layout.getLeft(shard), layout.getRight(shard)));
+    }
+    
+    /**
+     * Connect to the coordinator and follow its messages until it stops the run
+     * @param address the address the coordinator listens on, as written by ShardProtocol.format
+     * @throws IOException if the connection fails, or the coordinator sends something unexpected
+     */
+    public void run(String address) throws IOException
+    {
+        SocketAddress remote = ShardProtocol.parse(address);
+        SocketChannel channel = SocketChannel.open(remote);
+        if (!(remote instanceof UnixDomainSocketAddress))
+        {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        link = new ShardProtocol(channel);
+        try
+        {
+            link.begin(ShardProtocol.HELLO).putInt(shard);
+            link.send();
+            init(link.receive(ShardProtocol.INIT));
+            report();
+            while (true)
+            {
+                ByteBuffer in = link.receive();
+                switch (link.getType())
+                {
+                    case ShardProtocol.STEP:
+                        step(in);
+                        report();
+                        break;
+                    case ShardProtocol.GATHER:
+                        gather();
+                        break;
+                    case ShardProtocol.SCATTER:
+                        scatter(in);
+                        break;
+                    case ShardProtocol.STOP:
+                        return;
+                    default:
+                        throw new IOException("unexpected shard message " + link.getType());
+                }
+            }
+        }
+        finally
+        {
+            link.close();
+        }
+    }
+    
+    /**
+     * Add the Critters and Food this shard starts with
+     * @param in the payload of the INIT message
+     */
+    private void init(ByteBuffer in)
+    {
+        int critters = in.getInt();
+        for (int i = 0; i < critters; i++)
+        {
+            ShardProtocol.getCritter(in, world.getCritterStore(), genome);
+        }
+        int food = in.getInt();
+        for (int i = 0; i < food; i++)
+        {
+            double x = in.getDouble();
+            double y = in.getDouble();
+            world.addFood(x, y, in.get() != 0);
+        }
+    }
+    
+    /**
+     * Take in the Critters moving into this shard and the ghosts from its neighbours,
+     * then update
+     * @param in the payload of the STEP message
+     */
+    private void step(ByteBuffer in)
+    {
+        int migrants = in.getInt();
+        for (int i = 0; i < migrants; i++)
+        {
+            ShardProtocol.getCritter(in, world.getCritterStore(), genome);
+        }
+        int food = in.getInt();
+        if (foodX.length < food)
+        {
+            foodX = new double[food];
+            foodY = new double[food];
+            foodHealthy = new boolean[food];
+        }
+        for (int k = 0; k < food; k++)
+        {
+            foodX[k] = in.getDouble();
+            foodY[k] = in.getDouble();
+            foodHealthy[k] = in.get() != 0;
+        }
+        world.setGhostFood(foodX, foodY, foodHealthy, food);
+        int critters = in.getInt();
+        if (critterX.length < critters)
+        {
+            critterX = new double[critters];
+            critterY = new double[critters];
+        }
+        for (int k = 0; k < critters; k++)
+        {
+            critterX[k] = in.getDouble();
+            critterY[k] = in.getDouble();
+        }
+        world.setGhostCritters(critterX, critterY, critters);
+        world.update();
+    }
+    
+    /**
+     * Count the healthy Food eaten during the last update
+     * @return the number of pieces of healthy Food eaten
+     */
+    private int getHealthyEaten()
+    {
+        IntList meals = world.getMeals();
+        int eaten = 0;
+        for (int i = 1; i < meals.size(); i += 2)
+        {
+            eaten += world.getFoodStore().isHealthy(meals.get(i)) ? 1 : 0;
+        }
+        return eaten;
+    }
+    
+    /**
+     * Send the healthy Food eaten, the Critters which left this shard's strip,
+     * which are removed from this shard, and the halo of each neighbour
+     * @throws IOException if the message can not be sent
+     */
+    private void report() throws IOException
+    {
+        CritterStore critters = world.getCritterStore();
+        ByteBuffer out = link.begin(ShardProtocol.REPORT);
+        out.putInt(getHealthyEaten());
+        int count = out.position();
+        out.putInt(0);
+        int leaving = 0;
+        int bytes = Integer.BYTES + ShardProtocol.critterBytes(critters.getGenomeLength());
+        // from the last Critter down, so the Critter moved into a freed index has already stayed
+        for (int c = critters.size() - 1; c >= 0; c--)
+        {
+            int owner = layout.owner(critters.getX(c));
+            if (owner != shard)
+            {
+                out = link.reserve(bytes);
+                out.putInt(owner);
+                ShardProtocol.putCritter(out, critters, c);
+                world.removeCritter(c);
+                leaving++;
+            }
+        }
+        out.putInt(count, leaving);
+        if (shard > 0)
+        {
+            halo(Double.NEGATIVE_INFINITY, layout.getLeft(shard) + layout.getHalo());
+        }
+        if (shard < layout.getShards() - 1)
+        {
+            halo(layout.getRight(shard) - layout.getHalo(), Double.POSITIVE_INFINITY);
+        }
+        link.send();
+    }
+    
+    /**
+     * Write the Food which can be seen, then the Critters, in a band of this shard's strip
+     * @param from the x-position the band starts at
+     * @param to the x-position the band ends before
+     */
+    private void halo(double from, double to)
+    {
+        FoodStore food = world.getFoodStore();
+        ByteBuffer out = link.reserve(Integer.BYTES);
+        int count = out.position();
+        out.putInt(0);
+        int written = 0;
+        for (int f = 0; f < food.size(); f++)
+        {
+            double x = food.getX(f);
+            if (x >= from && x < to && !world.isGhost(f) && !world.isGrowing(f))
+            {
+                out = link.reserve(2 * Double.BYTES + 1);
+                out.putDouble(x);
+                out.putDouble(food.getY(f));
+                out.put(food.isHealthy(f) ? (byte) 1 : (byte) 0);
+                written++;
+            }
+        }
+        out.putInt(count, written);
+        CritterStore critters = world.getCritterStore();
+        out = link.reserve(Integer.BYTES);
+        count = out.position();
+        out.putInt(0);
+        written = 0;
+        // ghost Critters only matter to Critters which keep their distance
+        for (int c = 0; c < critters.size() && world.getConfig().getSeparation() > 0; c++)
+        {
+            double x = critters.getX(c);
+            if (x >= from && x < to)
+            {
+                out = link.reserve(2 * Double.BYTES);
+                out.putDouble(x);
+                out.putDouble(critters.getY(c));
+                written++;
+            }
+        }
+        out.putInt(count, written);
+    }
+    
+    /**
+     * Send the foodAttractiveness and genome of every Critter, in index order
+     * @throws IOException if the message can not be sent
+     */
+    private void gather() throws IOException
+    {
+        CritterStore critters = world.getCritterStore();
+        ByteBuffer out = link.begin(ShardProtocol.GENOMES);
+        out.putInt(critters.size());
+        int bytes = Double.BYTES + critters.getGenomeLength() * Integer.BYTES;
+        for (int c = 0; c < critters.size(); c++)
+        {
+            out = link.reserve(bytes);
+            ShardProtocol.putGenome(out, critters, c);
+        }
+        link.send();
+    }
+    
+    /**
+     * Replace the foodAttractiveness and genome of every Critter with the next generation's
+     * @param in the payload of the SCATTER message
+     * @throws IOException if the message is not for as many Critters as this shard has
+     */
+    private void scatter(ByteBuffer in) throws IOException
+    {
+        CritterStore critters = world.getCritterStore();
+        if (in.getInt() != critters.size())
+        {
+            throw new IOException("the next generation does not match the Critters of shard " + shard);
+        }
+        for (int c = 0; c < critters.size(); c++)
+        {
+            ShardProtocol.getGenome(in, critters, c);
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,281 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * SightCache.java
+ * @author John Zavidniak
+ * What each Critter found when it last looked at all the Food around it: where it was and
+ * which way it was heading, the closest healthy and unhealthy Food it could see, and how
+ * close the other Food of each kind was. Until more Food arrives near where it looked,
+ * or the Food it found leaves, a Critter which has moved a distance d can not have come
+ * more than d closer to any other Food, and Food which was outside its field of view can
+ * only have come as far into it as the Critter has turned, plus the angle d makes at that Food.
+ * So while its Food is still in sight, and, plus d, closer than any other Food which might
+ * be in sight, what it sees is the same as if it had looked again.
+ * An entry only depends on where it was made, so it stays sound whichever Critter
+ * later has its index.
+ */
+
+class SightCache
+{
+    
+    /*
+     * The kinds of Food a Critter keeps the closest of
+     */
+    public static final int HEALTHY = 0;
+    public static final int UNHEALTHY = 1;
+    
+    /*
+     * How many moves at full speed a Critter may make before it has to look again
+     */
+    public static final int SLACK_MOVES = 4;
+    
+    /*
+     * How much closer than the next closest Food a Critter's Food must be,
+     * relative to the size of the numbers involved, and how much further than the Critter
+     * has turned Food must have been out of sight, in radians, to cover rounding
+     */
+    private static final double TOLERANCE = 1e-9;
+    private static final double ANGLE_TOLERANCE = 1e-9;
+    
+    private double range;
+    private double slack;
+    private double halfFov;
+    /*
+     * Where each Critter was when it looked, which way it was heading as a unit vector,
+     * and the version of the Food grid then, or -1 if it has not looked yet
+     */
+    private double[] anchorX;
+    private double[] anchorY;
+    private double[] headingX;
+    private double[] headingY;
+    private long[] versions;
+    /*
+     * For each Critter and kind of Food, at 2 * c + kind: the closest Food it could see, or -1;
+     * how far the closest other Food in its field of view was; how far the closest other Food
+     * at all was; and, of the other Food outside its field of view which was closer than any in it,
+     * how far the closest was and how far out of sight the least hidden was
+     */
+    private int[] targets;
+    private double[] margins;
+    private double[] fallbacks;
+    private double[] hiddenDistances;
+    private double[] hiddenAngles;
+    
+    /**
+     * Create a new cache with no entries
+     * @param range how far Critters can see
+     * @param velocity how far a Critter moves in one update
+     * @param fov the angle Critters can see across, in radians
+     */
+    public SightCache(double range, double velocity, double fov)
+    {
+        this.range = range;
+        this.slack = SightCache.SLACK_MOVES * velocity;
+        this.halfFov = fov / 2;
+        this.anchorX = new double[0];
+        this.anchorY = new double[0];
+        this.headingX = new double[0];
+        this.headingY = new double[0];
+        this.versions = new long[0];
+        this.targets = new int[0];
+        this.margins = new double[0];
+        this.fallbacks = new double[0];
+        this.hiddenDistances = new double[0];
+        this.hiddenAngles = new double[0];
+    }
+    
+    /**
+     * Get how far from a Critter Food has to be looked at, so that the entry still covers
+     * everything the Critter could see after moving as far as it may
+     * @return half the width of the square of Food a Critter looks at
+     */
+    public double getReach()
+    {
+        return range + slack;
+    }
+    
+    /**
+     * Get how far the grid has to be kept awake around each Critter, so that every
+     * square an entry covers is awake for as long as the entry is used
+     * @return half the width of the square the grid has to keep awake
+     */
+    public double getActiveReach()
+    {
+        return range + 2 * slack;
+    }
+    
+    /**
+     * Make sure there is an entry for every Critter.
+     * Must not be called while the cache is being read.
+     * @param critters the number of Critters
+     */
+    public void grow(int critters)
+    {
+        int old = versions.length;
+        if (old < critters)
+        {
+            int capacity = Math.max(critters, old + old / 2);
+            anchorX = Arrays.copyOf(anchorX, capacity);
+            anchorY = Arrays.copyOf(anchorY, capacity);
+            headingX = Arrays.copyOf(headingX, capacity);
+            headingY = Arrays.copyOf(headingY, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            targets = Arrays.copyOf(targets, 2 * capacity);
+            margins = Arrays.copyOf(margins, 2 * capacity);
+            fallbacks = Arrays.copyOf(fallbacks, 2 * capacity);
+            hiddenDistances = Arrays.copyOf(hiddenDistances, 2 * capacity);
+            hiddenAngles = Arrays.copyOf(hiddenAngles, 2 * capacity);
+            Arrays.fill(versions, old, capacity, -1);
+        }
+    }
+    
+    /**
+     * Remember where a Critter looked from
+     * @param c the index of the Critter
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param version the version of the Food grid
+     */
+    public void store(int c, double x, double y, double vx, double vy, long version)
+    {
+        double speed = Math.sqrt(vx*vx + vy*vy);
+        anchorX[c] = x;
+        anchorY[c] = y;
+        headingX[c] = (speed > 0) ? vx / speed : 0;
+        headingY[c] = (speed > 0) ? vy / speed : 0;
+        versions[c] = version;
+    }
+    
+    /**
+     * Remember what a Critter found of one kind of Food
+     * @param c the index of the Critter
+     * @param kind HEALTHY or UNHEALTHY
+     * @param target the closest Food of the kind the Critter could see, or -1
+     * @param marginSq the squared distance to the closest other Food of the kind in its field of view
+     * @param fallbackSq the squared distance to the closest other Food of the kind
+     * @param hiddenSq the squared distance to the closest other Food of the kind outside its field
+     * of view and closer than marginSq
+     * @param hiddenCos the greatest cosine of the angle between the Critter's heading and such Food,
+     * or less than -1 if there is none
+     */
+    public void store(int c, int kind, int target, double marginSq, double fallbackSq, double hiddenSq,
+            double hiddenCos)
+    {
+        int k = 2 * c + kind;
+        targets[k] = target;
+        margins[k] = Math.sqrt(marginSq);
+        fallbacks[k] = Math.sqrt(fallbackSq);
+        hiddenDistances[k] = Math.sqrt(hiddenSq);
+        if (headingX[c] == 0 && headingY[c] == 0)
+        {
+            // a Critter which is not moving sees all around it, so nothing stays hidden
+            hiddenAngles[k] = Double.NEGATIVE_INFINITY;
+        }
+        else
+        {
+            hiddenAngles[k] = (hiddenCos < -1) ? Double.POSITIVE_INFINITY : Math.acos(Math.min(1, hiddenCos)) - halfFov;
+        }
+    }
+    
+    /**
+     * Find how far a Critter has moved since it looked, if its entry still covers
+     * everything it could see now
+     * @param c the index of the Critter
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @param grid the Food grid
+     * @return the distance the Critter has moved, or -1 if it has to look again
+     */
+    public double moved(int c, double x, double y, FoodGrid grid)
+    {
+        long version = versions[c];
+        if (version < 0)
+        {
+            return -1;
+        }
+        double dx = x - anchorX[c];
+        double dy = y - anchorY[c];
+        double moved = Math.sqrt(dx*dx + dy*dy);
+        int healthy = targets[2 * c + SightCache.HEALTHY];
+        int unhealthy = targets[2 * c + SightCache.UNHEALTHY];
+        if (moved + tolerance(x, y) >= slack || grid.getVersion(anchorX[c], anchorY[c], getReach()) > version
+                || (healthy >= 0 && grid.getRemoval(healthy) > version)
+                || (unhealthy >= 0 && grid.getRemoval(unhealthy) > version))
+        {
+            return -1;
+        }
+        return moved;
+    }
+    
+    /**
+     * Find how far a Critter has turned since it looked
+     * @param c the index of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @return the angle between its heading now and when it looked, in radians
+     */
+    public double turned(int c, double vx, double vy)
+    {
+        double speed = Math.sqrt(vx*vx + vy*vy);
+        if (speed == 0)
+        {
+            return Math.PI;
+        }
+        double cos = (vx * headingX[c] + vy * headingY[c]) / speed;
+        return Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
+    
+    /**
+     * Get the rounding allowed for at a position
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @return the distance any test is made safe by
+     */
+    private double tolerance(double x, double y)
+    {
+        return SightCache.TOLERANCE * (range + Math.abs(x) + Math.abs(y));
+    }
+    
+    /**
+     * Check whether what a Critter found of one kind of Food is what it would find if it looked again
+     * @param c the index of the Critter
+     * @param kind HEALTHY or UNHEALTHY
+     * @param moved the distance the Critter has moved since it looked
+     * @param turned the angle the Critter has turned since it looked
+     * @param magSq the squared distance to the Food it found, positive infinity if it can not see it
+     * now, or -1 if it found none
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @return true if no other Food of the kind can be in sight, or closer than the Food it found
+     */
+    public boolean holds(int c, int kind, double moved, double turned, double magSq, double x, double y)
+    {
+        int k = 2 * c + kind;
+        double closest = (magSq < 0) ? range : Math.sqrt(magSq);
+        double reach = closest + moved + tolerance(x, y);
+        if (reach < fallbacks[k])
+        {
+            return true;
+        }
+        // otherwise the Food which was out of sight has to still be
+        double hidden = hiddenDistances[k];
+        return reach < margins[k] && moved < hidden
+                && turned + Math.asin(moved / hidden) + SightCache.ANGLE_TOLERANCE < hiddenAngles[k];
+    }
+    
+    /**
+     * Get the closest Food of one kind a Critter could see when it looked
+     * @param c the index of the Critter
+     * @param kind HEALTHY or UNHEALTHY
+     * @return the index of the Food, or -1 if there was none
+     */
+    public int getTarget(int c, int kind)
+    {
+        return targets[2 * c + kind];
+    }
+    
+}
\ No newline at end of file
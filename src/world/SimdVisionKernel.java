@@ -0,0 +1,58 @@
+package world;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SimdVisionKernel.java
+ * @author John Zavidniak
+ * Tests a block of points as many at a time as the CPU's vector registers hold,
+ * using the incubating Vector API. The JVM must be started with
+ * --add-modules jdk.incubator.vector for this class to be loaded.
+ * Every lane does the same operations in the same order as the scalar kernel,
+ * so the results are bit-identical.
+ */
+
+class SimdVisionKernel implements VisionKernel
+{
+    
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    
+    /**
+     * Find how far away each point in a block is, if it is visible
+     * @param xs the x-positions of the points
+     * @param ys the y-positions of the points
+     * @param count the number of points in the block
+     * @param cx the x-position of the Critter
+     * @param cy the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param cosHalfFov the cosine of half the Critter's field of view
+     * @param rangeSq the square of the Critter's range of sight
+     * @param out the array to write the squared distance of each visible point to,
+     *            or positive infinity for each point which is not visible
+     */
+    @Override
+    public void distances(double[] xs, double[] ys, int count, double cx, double cy, double vx, double vy,
+            double cosHalfFov, double rangeSq, double[] out)
+    {
+        double vMagSq = vx*vx + vy*vy;
+        int bound = SimdVisionKernel.SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SimdVisionKernel.SPECIES.length())
+        {
+            DoubleVector dx = DoubleVector.fromArray(SimdVisionKernel.SPECIES, xs, i).sub(cx);
+            DoubleVector dy = DoubleVector.fromArray(SimdVisionKernel.SPECIES, ys, i).sub(cy);
+            DoubleVector magSq = dx.mul(dx).add(dy.mul(dy));
+            DoubleVector dot = dx.mul(vx).add(dy.mul(vy));
+            DoubleVector limit = magSq.mul(vMagSq).lanewise(VectorOperators.SQRT).mul(cosHalfFov);
+            VectorMask<Double> visible = magSq.compare(VectorOperators.NE, 0)
+                    .and(magSq.compare(VectorOperators.LE, rangeSq))
+                    .and(dot.compare(VectorOperators.GE, limit));
+            magSq.blend(Double.POSITIVE_INFINITY, visible.not()).intoArray(out, i);
+        }
+        ScalarVisionKernel.distances(xs, ys, bound, count, cx, cy, vx, vy, cosHalfFov, rangeSq, out);
+    }
+    
+}
\ No newline at end of file
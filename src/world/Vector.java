@@ -3,14 +3,15 @@ package world;
 /**
  * Vector.java
  * @author John Zavidniak
- * A two dimensional vector
+ * A two dimensional vector, stored as its x and y components
+ * so that reading and writing components needs no trigonometry
  */
 
 public class Vector
 {
     
-    private double dir;
-    private double mag;
+    private double x;
+    private double y;
     
     /**
      * Create a new vector with the given direction and magnitude
@@ -19,20 +20,41 @@ public class Vector
      */
     public Vector(double dir, double mag)
     {
-        this.dir = dir;
-        this.mag = mag;
+        this.x = mag * Math.cos(dir);
+        this.y = mag * Math.sin(dir);
+    }
+    
+    /**
+     * Create a new vector with the given components
+     * @param x the x-component of the new vector
+     * @param y the y-component of the new vector
+     * @return the new vector
+     */
+    public static Vector cartesian(double x, double y)
+    {
+        Vector v = new Vector(0, 0);
+        v.set(x, y);
+        return v;
     }
     
     /**
      * Get a normalized version of this vector
-     * @return a new vector whose components have been divided by this vector's magnitude
+     * @return a new vector with the same direction as this vector and a magnitude of 1
      */
     public Vector normalized()
     {
-        double x = this.getX() / mag;
-        double y = this.getY() / mag;
-        double mag = Math.sqrt(x*x + y*y);
-        return new Vector(dir, mag);
+        double mag = this.getMag();
+        return Vector.cartesian(x / mag, y / mag);
+    }
+    
+    /**
+     * Get the dot product of this vector and another vector
+     * @param v the other vector
+     * @return the dot product of this vector and vector v
+     */
+    public double dot(Vector v)
+    {
+        return x*v.x + y*v.y;
     }
     
     /**
@@ -42,8 +64,7 @@ public class Vector
      */
     public double angleBetween(Vector v)
     {
-        double dotProduct = this.getX()*v.getX() + this.getY()*v.getY();
-        return Math.acos(dotProduct / (this.mag * v.mag));
+        return Math.acos(this.dot(v) / (this.getMag() * v.getMag()));
     }
     
     /**
@@ -52,7 +73,7 @@ public class Vector
      */
     public double getDir()
     {
-        return dir;
+        return Math.atan2(y, x);
     }
     
     /**
@@ -61,7 +82,16 @@ public class Vector
      */
     public double getMag()
     {
-        return mag;
+        return Math.sqrt(x*x + y*y);
+    }
+    
+    /**
+     * Get the squared magnitude of this vector
+     * @return the squared magnitude of this vector
+     */
+    public double getMagSquared()
+    {
+        return x*x + y*y;
     }
     
     /**
@@ -70,7 +100,7 @@ public class Vector
      */
     public double getX()
     {
-        return mag * Math.cos(dir);
+        return x;
     }
     
     /**
@@ -79,7 +109,18 @@ public class Vector
      */
     public double getY()
     {
-        return mag * Math.sin(dir);
+        return y;
+    }
+    
+    /**
+     * Set both components of this vector
+     * @param x the new x-component of this vector
+     * @param y the new y-component of this vector
+     */
+    public void set(double x, double y)
+    {
+        this.x = x;
+        this.y = y;
     }
     
     /**
@@ -88,9 +129,7 @@ public class Vector
      */
     public void setX(double x)
     {
-        double y = this.getY();
-        this.mag = Math.sqrt(x*x + y*y);
-        this.dir = Math.atan2(y, x);
+        this.x = x;
     }
     
     /**
@@ -99,27 +138,35 @@ public class Vector
      */
     public void setY(double y)
     {
-        double x = this.getX();
-        this.mag = Math.sqrt(x*x + y*y);
-        this.dir = Math.atan2(y, x);
+        this.y = y;
     }
     
     /**
-     * Set the direction of this vector
+     * Set the direction of this vector, keeping its magnitude
      * @param dir the new direction of this vector
      */
     public void setDir(double dir)
     {
-        this.dir = dir;
+        double mag = this.getMag();
+        this.x = mag * Math.cos(dir);
+        this.y = mag * Math.sin(dir);
     }
     
     /**
-     * Set the magnitude of this vector
+     * Set the magnitude of this vector, keeping its direction
      * @param mag the new magnitude of this vector
      */
     public void setMag(double mag)
     {
-        this.mag = mag;
+        double old = this.getMag();
+        if (old == 0)
+        {
+            this.x = mag;
+            this.y = 0;
+            return;
+        }
+        this.x *= mag / old;
+        this.y *= mag / old;
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package world;
+
+/**
+ * VisionKernel.java
+ * @author John Zavidniak
+ * Tests one Critter's field of view and range against a block of points at once.
+ * The points are kept in primitive arrays, so an implementation can test
+ * several of them per instruction. Every implementation gives bit-identical results.
+ */
+
+interface VisionKernel
+{
+    
+    /**
+     * Find how far away each point in a block is, if it is visible.
+     * A point is visible if it is in range, is not on top of the Critter,
+     * and the angle between the Critter's heading and the point is at most half
+     * the field of view, which is compared through its cosine.
+     * @param xs the x-positions of the points
+     * @param ys the y-positions of the points
+     * @param count the number of points in the block
+     * @param cx the x-position of the Critter
+     * @param cy the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param cosHalfFov the cosine of half the Critter's field of view
+     * @param rangeSq the square of the Critter's range of sight
+     * @param out the array to write the squared distance of each visible point to,
+     *            or positive infinity for each point which is not visible
+     */
+    public void distances(double[] xs, double[] ys, int count, double cx, double cy, double vx, double vy,
+            double cosHalfFov, double rangeSq, double[] out);
+    
+}
\ No newline at end of file
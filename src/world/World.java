@@ -1,12 +1,24 @@
 package world;
 
-import java.awt.Rectangle;
-import java.util.ConcurrentModificationException;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import world.creatures.Critter;
+import world.creatures.CritterStore;
 import world.creatures.Food;
+import world.creatures.FoodStore;
+import world.creatures.NeuralBrains;
+import world.metrics.SimulationMetrics;
+import world.respawn.ClusteredRespawn;
+import world.respawn.RegrowthRespawn;
+import world.respawn.RespawnPolicy;
+import world.respawn.UniformRespawn;
 
 /**
  * World.java
@@ -20,147 +32,1557 @@ public class World
     
     public static final int WORLD_WIDTH = 500;
     public static final int WORLD_HEIGHT = 500;
+    public static final double CLUSTER_SPREAD = 50;
+    /*
+     * The number of Critters updated together by one task.
+     * Randomness is handed out per chunk, so results do not
+     * depend on how many threads share the work.
+     */
+    private static final int CHUNK_SIZE = 1024;
+    /*
+     * The kernel which tests Food against a Critter's field of view,
+     * using the Vector API when the JVM was started with it
+     */
+    private static final VisionKernel VISION = World.createVisionKernel();
+    /*
+     * Whether Critters keep what they found until it could have changed,
+     * which is turned on with -Dsmartbots.sightCache=true
+     */
+    private static final boolean SIGHT_CACHE = "true".equals(System.getProperty("smartbots.sightCache"));
+    
+    private long seed;
+    private WorldConfig config;
+    private double halfFov;
+    private double cosHalfFov;
+    private double range;
+    private double separation;
+    private SplittableRandom spawnRandom;
+    private int width;
+    private int height;
+    private long tick;
+    private ForkJoinPool pool;
+    private CritterStore critters;
+    private FoodStore food;
+    private List<Critter> critterViews;
+    private List<Food> foodViews;
+    private FoodGrid foodGrid;
+    private VisionKernel vision;
+    private SightCache sightCache;
+    private CritterGrid critterGrid;
+    private NeuralBrains brains;
+    private Chunk[] chunks;
+    /*
+     * The Critter each touched piece of Food goes to, or -1,
+     * and how far that Critter is from the Food
+     */
+    private int[] claimants;
+    private double[] claims;
+    /*
+     * Pairs of (critter, food) indices which were eaten during the last tick
+     */
+    private IntList meals;
+    private Sight querySight;
+    private RespawnPolicy respawn;
+    private double[] respawnPosition;
+    /*
+     * The eaten Food which is still growing back, in the order it was eaten,
+     * and the tick each piece of Food grows back at, or 0 if it is not growing
+     */
+    private IntList growing;
+    private long[] ripeTicks;
+    /*
+     * Food and Critters which belong to a neighbouring shard but can be seen from this one.
+     * Ghost Food lives in reused slots of the store, and can be seen but not eaten.
+     */
+    private boolean[] ghosts;
+    private IntList ghostFood;
+    private int ghostFoodCount;
+    private double[] ghostCritterX;
+    private double[] ghostCritterY;
+    private int ghostCritterCount;
+    private Genetics genetics;
+    private volatile FrameBuffer frames;
+    private Checkpointer checkpoints;
+    private Recorder recorder;
+    private SimulationMetrics metrics;
+    
+    /**
+     * Scratch space for the Food a Critter might see, gathered into primitive arrays
+     * so that the vision kernel can test it as a block
+     */
+    private static class Sight
+    {
+        
+        private IntList candidates;
+        private double[] xs;
+        private double[] ys;
+        private double[] distances;
+        /*
+         * What remember works out for each kind of Food, indexed by SightCache.HEALTHY and UNHEALTHY
+         */
+        private double[] margins;
+        private double[] fallbacks;
+        private double[] hidden;
+        private double[] hiddenCos;
+        /*
+         * The closest healthy and unhealthy Food seen so far, or -1,
+         * and their squared distances
+         */
+        private int healthy;
+        private int unhealthy;
+        private double healthyMagSq;
+        private double unhealthyMagSq;
+        
+        /**
+         * Create new, empty scratch space
+         */
+        public Sight()
+        {
+            this.candidates = new IntList();
+            this.xs = new double[16];
+            this.ys = new double[16];
+            this.distances = new double[16];
+            this.margins = new double[2];
+            this.fallbacks = new double[2];
+            this.hidden = new double[2];
+            this.hiddenCos = new double[2];
+            forget();
+        }
+        
+        /**
+         * Forget the closest Food seen so far
+         */
+        public void forget()
+        {
+            healthy = -1;
+            unhealthy = -1;
+            healthyMagSq = Double.POSITIVE_INFINITY;
+            unhealthyMagSq = Double.POSITIVE_INFINITY;
+        }
+        
+        /**
+         * Keep a piece of Food if it is the closest of its kind seen so far.
+         * Ties go to the lowest index, so the result does not depend on the order Food is seen in.
+         * @param f the index of the Food
+         * @param isHealthy the health status of the Food
+         * @param magSq the squared distance to the Food, or positive infinity if it can not be seen
+         */
+        public void consider(int f, boolean isHealthy, double magSq)
+        {
+            if (isHealthy)
+            {
+                if (magSq < healthyMagSq || (magSq == healthyMagSq && f < healthy))
+                {
+                    healthy = f;
+                    healthyMagSq = magSq;
+                }
+            }
+            else if (magSq < unhealthyMagSq || (magSq == unhealthyMagSq && f < unhealthy))
+            {
+                unhealthy = f;
+                unhealthyMagSq = magSq;
+            }
+        }
+        
+        /**
+         * Get the closest Food of one kind seen so far
+         * @param kind SightCache.HEALTHY or SightCache.UNHEALTHY
+         * @return the index of the closest Food of the kind, or -1 if none has been seen
+         */
+        public int getTarget(int kind)
+        {
+            return (kind == SightCache.HEALTHY) ? healthy : unhealthy;
+        }
+        
+        /**
+         * Get the closest Food seen so far, of either kind
+         * @return the index of the closest Food, or -1 if none has been seen
+         */
+        public int getClosest()
+        {
+            if (healthy < 0 || unhealthy < 0)
+            {
+                return Math.max(healthy, unhealthy);
+            }
+            if (healthyMagSq != unhealthyMagSq)
+            {
+                return (healthyMagSq < unhealthyMagSq) ? healthy : unhealthy;
+            }
+            return Math.min(healthy, unhealthy);
+        }
+        
+        /**
+         * Copy the positions of the candidate Food into the arrays
+         * @param food the store holding the Food
+         */
+        public void gather(FoodStore food)
+        {
+            int count = candidates.size();
+            if (xs.length < count)
+            {
+                int capacity = count + count / 2;
+                xs = new double[capacity];
+                ys = new double[capacity];
+                distances = new double[capacity];
+            }
+            for (int i = 0; i < count; i++)
+            {
+                int f = candidates.get(i);
+                xs[i] = food.getX(f);
+                ys[i] = food.getY(f);
+            }
+        }
+        
+    }
+    
+    /**
+     * The per-task state of a chunk of Critters during a tick
+     */
+    private static class Chunk
+    {
+        
+        private SplittableRandom random;
+        private IntList nearbyFood;
+        private Sight sight;
+        /*
+         * The Food each Critter decided to steer by, or -1,
+         * and the random turn away from it if it is unhealthy
+         */
+        private int[] targets;
+        private double[] turns;
+        /*
+         * The grid entry of the closest Critter each Critter is crowded by, or -1
+         */
+        private int[] neighbours;
+        /*
+         * The sensor values, hidden neurons, and outputs of the chunk's networks,
+         * one row per neuron, or null if Critters have no networks
+         */
+        private float[] inputs;
+        private float[] activations;
+        private float[] outputs;
+        /*
+         * Pairs of (critter, food) indices which touched during this tick
+         */
+        private IntList contacts;
+        /*
+         * The time spent in each phase during this tick, when metrics are enabled
+         */
+        private long senseNanos;
+        private long steerNanos;
+        private long moveNanos;
+        
+        /**
+         * Create the state for a new chunk
+         * @param hidden the number of hidden neurons in a Critter's network, or 0 if there are no networks
+         */
+        public Chunk(int hidden)
+        {
+            this.nearbyFood = new IntList();
+            this.sight = new Sight();
+            this.targets = new int[World.CHUNK_SIZE];
+            this.turns = new double[World.CHUNK_SIZE];
+            this.neighbours = new int[World.CHUNK_SIZE];
+            this.contacts = new IntList();
+            if (hidden > 0)
+            {
+                this.inputs = new float[NeuralBrains.INPUTS * World.CHUNK_SIZE];
+                this.activations = new float[hidden * World.CHUNK_SIZE];
+                this.outputs = new float[NeuralBrains.OUTPUTS * World.CHUNK_SIZE];
+            }
+        }
+        
+    }
+    
+    /**
+     * Runs the sense, steer, and move phase over a range of chunks,
+     * splitting the range between threads
+     */
+    private class MoveTask extends RecursiveAction
+    {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private int from;
+        private int to;
+        
+        /**
+         * Create a task covering a range of chunks
+         * @param from the first chunk in the range
+         * @param to one past the last chunk in the range
+         */
+        public MoveTask(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Move the chunks in this task's range
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from <= 1)
+            {
+                for (int k = from; k < to; k++)
+                {
+                    moveChunk(k);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MoveTask(from, mid), new MoveTask(mid, to));
+        }
+        
+    }
+    
+    /**
+     * Pick the fastest vision kernel this JVM can run.
+     * The Vector API kernel is only used if jdk.incubator.vector has been added to the JVM,
+     * and the scalar kernel can be forced with -Dsmartbots.vision=scalar.
+     * @return the vision kernel to use
+     */
+    private static VisionKernel createVisionKernel()
+    {
+        if (!"scalar".equals(System.getProperty("smartbots.vision"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+        {
+            try
+            {
+                return (VisionKernel) Class.forName("world.SimdVisionKernel").getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException e)
+            {
+                // fall back to the scalar kernel
+            }
+            catch (LinkageError e)
+            {
+                // fall back to the scalar kernel
+            }
+        }
+        return new ScalarVisionKernel();
+    }
+    
+    /**
+     * Get the name of the vision kernel used by every world
+     * @return "simd" if sensing uses the Vector API, "scalar" otherwise
+     */
+    public static String getVisionKernel()
+    {
+        return (World.VISION instanceof ScalarVisionKernel) ? "scalar" : "simd";
+    }
+    
+    /**
+     * Change the vision kernel of this world, so kernels can be compared against each other
+     * @param vision the kernel to test Food against a Critter's field of view with
+     */
+    void setVisionKernel(VisionKernel vision)
+    {
+        this.vision = vision;
+    }
+    
+    /**
+     * Turn the sight cache of this world on or off, so runs with and without it can be compared.
+     * What every Critter sees is the same either way.
+     * @param enabled true to let Critters keep what they found until it could have changed
+     */
+    void setSightCache(boolean enabled)
+    {
+        sightCache = enabled ? new SightCache(range, config.getVelocity(), config.getFov()) : null;
+    }
+    
+    /**
+     * Create a new world of the default size with a random seed
+     */
+    public World()
+    {
+        this(System.nanoTime());
+    }
+    
+    /**
+     * Create a new world of the default size
+     * @param seed the seed for every random decision made while updating
+     */
+    public World(long seed)
+    {
+        this(seed, World.WORLD_WIDTH, World.WORLD_HEIGHT);
+    }
+    
+    /**
+     * Create a new world
+     * @param seed the seed for every random decision made while updating
+     * @param width the width of the world
+     * @param height the height of the world
+     */
+    public World(long seed, int width, int height)
+    {
+        this(seed, width, height, new WorldConfig());
+    }
+    
+    /**
+     * Create a new world
+     * @param seed the seed for every random decision made while updating
+     * @param width the width of the world
+     * @param height the height of the world
+     * @param config the parameters of the world, its Critters, and its Genetics
+     */
+    public World(long seed, int width, int height, WorldConfig config)
+    {
+        this.seed = seed;
+        this.config = config;
+        this.halfFov = config.getFov()/2;
+        this.cosHalfFov = Math.cos(halfFov);
+        this.range = config.getRange();
+        this.separation = config.getSeparation();
+        this.spawnRandom = Seeds.random(seed, Seeds.SPAWN_STREAM, 0);
+        this.width = width;
+        this.height = height;
+        this.tick = 0;
+        critters = new CritterStore(width, height, config);
+        food = new FoodStore();
+        critterViews = new AbstractList<Critter>()
+        {
+            @Override
+            public Critter get(int index)
+            {
+                return new Critter(critters, index);
+            }
+            
+            @Override
+            public int size()
+            {
+                return critters.size();
+            }
+        };
+        foodViews = new AbstractList<Food>()
+        {
+            @Override
+            public Food get(int index)
+            {
+                return new Food(food, index);
+            }
+            
+            @Override
+            public int size()
+            {
+                return food.size();
+            }
+        };
+        foodGrid = new FoodGrid(food, width, height, Math.max(1, (int) Math.ceil(range)), config.isBounded());
+        vision = World.VISION;
+        sightCache = World.SIGHT_CACHE ? new SightCache(range, config.getVelocity(), config.getFov()) : null;
+        critterGrid = (separation > 0) ? new CritterGrid(separation * 2) : null;
+        if (config.getHiddenNeurons() > 0)
+        {
+            brains = new NeuralBrains(config.getHiddenNeurons());
+            critters.setGenomeLength(1 + brains.getWeightCount());
+        }
+        chunks = new Chunk[0];
+        claimants = new int[0];
+        claims = new double[0];
+        meals = new IntList();
+        querySight = new Sight();
+        respawn = new UniformRespawn();
+        respawnPosition = new double[2];
+        growing = new IntList();
+        ripeTicks = new long[0];
+        ghosts = new boolean[0];
+        ghostFood = new IntList();
+        ghostFoodCount = 0;
+        ghostCritterX = new double[0];
+        ghostCritterY = new double[0];
+        ghostCritterCount = 0;
+        genetics = new Genetics(this);
+    }
+    
+    /**
+     * Set the number of threads used to update the world.
+     * The result of an update does not depend on the number of threads.
+     * @param threads the number of threads to use, 1 to update on the calling thread
+     */
+    public void setThreads(int threads)
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+            pool = null;
+        }
+        if (threads > 1)
+        {
+            pool = new ForkJoinPool(threads);
+        }
+    }
+    
+    /**
+     * Start publishing a Frame of the world after every update,
+     * so that it can be drawn from another thread
+     * @return the buffer the Frames are published to
+     */
+    public FrameBuffer publishFrames()
+    {
+        if (frames == null)
+        {
+            frames = new FrameBuffer();
+        }
+        return frames;
+    }
+    
+    /**
+     * Start writing a checkpoint of the world every so many updates.
+     * The state is copied between updates, and written on another thread.
+     * @param interval the number of updates between checkpoints
+     * @param path the file to keep the latest checkpoint in
+     * @return the checkpointer, which should be closed once the world stops updating
+     */
+    public Checkpointer checkpointEvery(long interval, Path path)
+    {
+        if (checkpoints != null)
+        {
+            checkpoints.close();
+        }
+        checkpoints = new Checkpointer(path, interval);
+        return checkpoints;
+    }
+    
+    /**
+     * Start measuring how long every update takes, and the fitness of every generation
+     * @return the metrics the measurements are recorded in
+     */
+    public SimulationMetrics enableMetrics()
+    {
+        if (metrics == null)
+        {
+            metrics = new SimulationMetrics();
+        }
+        return metrics;
+    }
+    
+    /**
+     * Get the metrics of this world
+     * @return the metrics of this world, or null if they are not enabled
+     */
+    public SimulationMetrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * Start recording the state of the world after every update
+     * @param path the file to record to, which is replaced
+     * @return the recorder, which must be closed once the world stops updating
+     * @throws IOException if the file can not be created
+     */
+    public Recorder record(Path path) throws IOException
+    {
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+        recorder = new Recorder(path, this);
+        return recorder;
+    }
+    
+    /**
+     * Set the way eaten Food grows back
+     * @param respawn the new respawn policy
+     */
+    public void setRespawn(RespawnPolicy respawn)
+    {
+        this.respawn = respawn;
+    }
+    
+    /**
+     * Get the way eaten Food grows back
+     * @return the respawn policy of this world
+     */
+    public RespawnPolicy getRespawn()
+    {
+        return respawn;
+    }
+    
+    /**
+     * Create a new respawn policy from its name
+     * @param name the name of the policy: uniform or clustered
+     * @param regrowth the number of updates eaten Food takes to grow back, 0 to respawn it at once
+     * @return the new policy, or null if there is no policy with that name
+     */
+    public static RespawnPolicy createRespawn(String name, int regrowth)
+    {
+        RespawnPolicy respawn = null;
+        if (name.equals("uniform"))
+        {
+            respawn = new UniformRespawn();
+        }
+        if (name.equals("clustered"))
+        {
+            respawn = new ClusteredRespawn(World.CLUSTER_SPREAD);
+        }
+        if (respawn != null && regrowth > 0)
+        {
+            respawn = new RegrowthRespawn(respawn, regrowth);
+        }
+        return respawn;
+    }
+    
+    /**
+     * Get the networks Critters steer by
+     * @return the networks of this world's Critters, or null if they steer by foodAttractiveness
+     */
+    public NeuralBrains getBrains()
+    {
+        return brains;
+    }
+    
+    /**
+     * Check whether a piece of Food is growing back, and can not be seen or eaten
+     * @param f the index of the Food
+     * @return true if the Food was eaten and has not grown back yet
+     */
+    public boolean isGrowing(int f)
+    {
+        return f < ripeTicks.length && ripeTicks[f] != 0;
+    }
+    
+    /**
+     * Get the Food which is growing back
+     * @return the indices of the Food which is growing back, in the order it was eaten
+     */
+    IntList getGrowing()
+    {
+        return growing;
+    }
+    
+    /**
+     * Get the tick a piece of Food grows back at
+     * @param f the index of the Food
+     * @return the tick the Food can be eaten again from, or 0 if it is not growing
+     */
+    long getRipeTick(int f)
+    {
+        return isGrowing(f) ? ripeTicks[f] : 0;
+    }
+    
+    /**
+     * Mark a piece of Food as growing back, before the world is restored from a checkpoint
+     * @param f the index of the Food
+     * @param ripeTick the tick the Food grows back at
+     */
+    void addGrowing(int f, long ripeTick)
+    {
+        if (ripeTicks.length < food.size())
+        {
+            ripeTicks = Arrays.copyOf(ripeTicks, food.size());
+        }
+        ripeTicks[f] = ripeTick;
+        growing.add(f);
+    }
+    
+    /**
+     * Get the Critters and the Food they ate during the last update
+     * @return pairs of (critter, food) indices, in the order they were eaten
+     */
+    IntList getMeals()
+    {
+        return meals;
+    }
+    
+    /**
+     * Remove a Critter which has left this shard, moving the last Critter into its place
+     * @param c the index of the Critter
+     */
+    void removeCritter(int c)
+    {
+        critters.remove(c);
+    }
+    
+    /**
+     * Determine whether a piece of Food is a ghost of Food belonging to another shard
+     * @param f the index of the Food
+     * @return true if the Food can be seen but not eaten
+     */
+    boolean isGhost(int f)
+    {
+        return f < ghosts.length && ghosts[f];
+    }
+    
+    /**
+     * Replace the ghost Food with the Food a neighbouring shard has near this one.
+     * Ghosts which have not changed are left alone, so Critters may keep following them.
+     * @param xs the x-positions of the ghosts
+     * @param ys the y-positions of the ghosts
+     * @param healthy the health status of the ghosts
+     * @param count the number of ghosts
+     */
+    void setGhostFood(double[] xs, double[] ys, boolean[] healthy, int count)
+    {
+        for (int k = 0; k < count; k++)
+        {
+            if (k == ghostFood.size())
+            {
+                int f = food.add(xs[k], ys[k], healthy[k]);
+                if (ghosts.length < food.size())
+                {
+                    ghosts = Arrays.copyOf(ghosts, Math.max(food.size(), ghosts.length * 2));
+                }
+                ghosts[f] = true;
+                ghostFood.add(f);
+                foodGrid.add(f);
+                continue;
+            }
+            int f = ghostFood.get(k);
+            boolean changed = food.isHealthy(f) != healthy[k];
+            food.setHealthy(f, healthy[k]);
+            if (k >= ghostFoodCount)
+            {
+                food.setPosition(f, xs[k], ys[k]);
+                foodGrid.add(f);
+            }
+            else if (food.getX(f) != xs[k] || food.getY(f) != ys[k])
+            {
+                foodGrid.move(f, xs[k], ys[k]);
+            }
+            else if (changed)
+            {
+                foodGrid.touch(f);
+            }
+        }
+        for (int k = count; k < ghostFoodCount; k++)
+        {
+            foodGrid.remove(ghostFood.get(k));
+        }
+        ghostFoodCount = count;
+    }
+    
+    /**
+     * Replace the ghost Critters with the Critters a neighbouring shard has near this one,
+     * which the Critters of this shard keep their distance from
+     * @param xs the x-positions of the ghosts
+     * @param ys the y-positions of the ghosts
+     * @param count the number of ghosts
+     */
+    void setGhostCritters(double[] xs, double[] ys, int count)
+    {
+        if (ghostCritterX.length < count)
+        {
+            ghostCritterX = new double[count];
+            ghostCritterY = new double[count];
+        }
+        System.arraycopy(xs, 0, ghostCritterX, 0, count);
+        System.arraycopy(ys, 0, ghostCritterY, 0, count);
+        ghostCritterCount = count;
+    }
+    
+    /**
+     * Move the world to the clock of a checkpoint, once its Critters, Food,
+     * and the Food which is growing back have been loaded.
+     * Critters added after this draw their headings from a stream keyed by the tick,
+     * so only the updates themselves continue exactly as if the world had never stopped.
+     * @param tick the number of updates which had been run
+     */
+    void restore(long tick)
+    {
+        this.tick = tick;
+        this.spawnRandom = Seeds.random(seed, Seeds.SPAWN_STREAM, tick);
+        foodGrid = new FoodGrid(food, width, height, Math.max(1, (int) Math.ceil(range)), config.isBounded());
+        for (int f = 0; f < food.size(); f++)
+        {
+            if (!isGrowing(f))
+            {
+                foodGrid.add(f);
+            }
+        }
+    }
+    
+    /**
+     * Get the number of updates which have been run
+     * @return the number of updates which have been run
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+    
+    /**
+     * Get the Genetics which controls reproduction in this world
+     * @return the Genetics of this world
+     */
+    public Genetics getGenetics()
+    {
+        return genetics;
+    }
     
-    private List<Critter> critters;
-    private List<Food> food;
-    private Genetics genetics;
+    /**
+     * Get the number of new populations Genetics has created
+     * @return the current generation of Critters
+     */
+    public long getGeneration()
+    {
+        return genetics.getGeneration();
+    }
     
     /**
-     * Create a new world
+     * Get the width of the world
+     * @return the width of the world
      */
-    public World()
+    public int getWidth()
     {
-        critters = new LinkedList<Critter>();
-        food = new LinkedList<Food>();
-        genetics = new Genetics(this);
+        return width;
+    }
+    
+    /**
+     * Get the height of the world
+     * @return the height of the world
+     */
+    public int getHeight()
+    {
+        return height;
     }
     
     /**
      * Get all the Critters in the world
-     * @return a list of all the Critters
+     * @return an unmodifiable list of views of all the Critters
      */
     public List<Critter> getCritters()
     {
-        return critters;
+        return critterViews;
     }
     
     /**
      * Get all the Food in the world
-     * @return a list of all the Food
+     * @return an unmodifiable list of views of all the Food
      */
     public List<Food> getFood()
+    {
+        return foodViews;
+    }
+    
+    /**
+     * Get the store holding the state of every Critter
+     * @return the store holding the state of every Critter
+     */
+    public CritterStore getCritterStore()
+    {
+        return critters;
+    }
+    
+    /**
+     * Get the store holding the state of every piece of Food
+     * @return the store holding the state of every piece of Food
+     */
+    public FoodStore getFoodStore()
     {
         return food;
     }
     
     /**
-     * Draw a vector from one Rectangle to another
-     * @param c the Rectangle to draw from
-     * @param f the Rectangle to draw to
-     * @return A vector from c to f
+     * Get the parameters of this world
+     * @return the config this world was created with
+     */
+    public WorldConfig getConfig()
+    {
+        return config;
+    }
+    
+    /**
+     * Get the seed every random decision in this world is derived from
+     * @return the seed of this world
      */
-    private Vector getVector(Rectangle c, Rectangle f)
+    public long getSeed()
     {
-        double delX = f.x - c.x;
-        double delY = f.y - c.y;
-        return new Vector(Math.atan2(delY, delX), Math.sqrt(delX*delX + delY*delY));
+        return seed;
     }
     
     /**
-     * Set the critters list which contains the Critters in the world
-     * @param critters the list of Critters to set the critters list equal to
+     * Add a new Critter, heading in a random direction, to the world.
+     * If Critters have networks, the new Critter's network starts out with random weights.
+     * @param x the x-position of the new Critter
+     * @param y the y-position of the new Critter
+     * @return the new Critter
      */
-    public void setCritters(List<Critter> critters)
+    public Critter addCritter(double x, double y)
     {
-        this.critters = critters;
+        int index = critters.add(x, y, spawnRandom.nextDouble() * Math.PI * 2);
+        if (brains != null)
+        {
+            brains.randomize(critters, index, spawnRandom);
+        }
+        return new Critter(critters, index);
+    }
+    
+    /**
+     * Add a new piece of Food to the world
+     * @param x the x-position of the new Food
+     * @param y the y-position of the new Food
+     * @param healthy the health status of the new Food
+     * @return the new Food
+     */
+    public Food addFood(double x, double y, boolean healthy)
+    {
+        int index = food.add(x, y, healthy);
+        foodGrid.add(index);
+        return new Food(food, index);
+    }
+    
+    /**
+     * Fill the world with Critters and Food at random positions, drawn from the world's seed
+     * @param critterCount the number of Critters to add
+     * @param healthyCount the number of pieces of healthy Food to add
+     * @param unhealthyCount the number of pieces of unhealthy Food to add
+     */
+    public void populate(int critterCount, int healthyCount, int unhealthyCount)
+    {
+        for (int i = 0; i < critterCount; i++)
+        {
+            addCritter(spawnRandom.nextDouble() * width, spawnRandom.nextDouble() * height);
+        }
+        for (int i = 0; i < healthyCount; i++)
+        {
+            addFood(spawnRandom.nextDouble() * width, spawnRandom.nextDouble() * height, true);
+        }
+        for (int i = 0; i < unhealthyCount; i++)
+        {
+            addFood(spawnRandom.nextDouble() * width, spawnRandom.nextDouble() * height, false);
+        }
+    }
+    
+    /**
+     * Find how far away each piece of Food near a Critter is, if the Critter can see it
+     * @param c the index of the Critter to use
+     * @param sight the scratch space to collect candidate Food and their squared distances in,
+     *              which are positive infinity for Food the Critter can not see
+     * @param radius how far from the Critter to collect candidates, at least its range
+     * @return the number of candidates
+     */
+    private int look(int c, Sight sight, double radius)
+    {
+        double cx = critters.getX(c);
+        double cy = critters.getY(c);
+        sight.candidates.clear();
+        foodGrid.query(cx, cy, radius, sight.candidates);
+        int count = sight.candidates.size();
+        if (count > 0)
+        {
+            sight.gather(food);
+            vision.distances(sight.xs, sight.ys, count, cx, cy, critters.getVelocityX(c), critters.getVelocityY(c),
+                    cosHalfFov, range * range, sight.distances);
+        }
+        return count;
     }
     
     /**
-     * Get all the food in a specific Critter's field of view
-     * @param c the Critter to use
-     * @return A list containing all the food in a specific Critter's field of view
+     * Get the closest piece of visible food to a specific Critter.
+     * The candidates from the grid are tested as one block by the vision kernel.
+     * Ties go to the lowest index, so the result does not depend on the order of the grid.
+     * @param c the index of the Critter to use
+     * @param sight the scratch space to collect candidate Food in
+     * @return the index of the closest piece of Food in range of the Critter c, or -1 if there is none
      */
-    private List<Food> visibleFood(Critter c)
+    private int getClosestVisibleFood(int c, Sight sight)
     {
-        List<Food> visibleFood = new LinkedList<Food>();
-        Vector velocity = c.getVelocity().normalized();
-        for (Food f : food)
+        int count = look(c, sight, range);
+        int closest = -1;
+        double cMagSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++)
         {
-            Vector v = getVector(c, f).normalized();
-            double angle = velocity.angleBetween(v);
-            if (angle <= Critter.FOV/2)
+            int f = sight.candidates.get(i);
+            double magSq = sight.distances[i];
+            if (magSq < cMagSq || (magSq == cMagSq && f < closest))
             {
-                visibleFood.add(f);
+                closest = f;
+                cMagSq = magSq;
             }
         }
-        return visibleFood;
+        return closest;
+    }
+    
+    /**
+     * Find the closest healthy and unhealthy Food a Critter can see
+     * @param c the index of the Critter
+     * @param sight the scratch space to keep the closest Food in
+     */
+    private void see(int c, Sight sight)
+    {
+        if (sightCache != null && recall(c, sight))
+        {
+            return;
+        }
+        int count = look(c, sight, (sightCache != null) ? sightCache.getReach() : range);
+        sight.forget();
+        for (int i = 0; i < count; i++)
+        {
+            int f = sight.candidates.get(i);
+            sight.consider(f, food.isHealthy(f), sight.distances[i]);
+        }
+        if (sightCache != null)
+        {
+            remember(c, sight, count);
+        }
     }
     
     /**
-     * Get the closest piece of visible food to a specific Critter
-     * @param c the Critter to use
-     * @return the closest piece of Food to the Critter c
+     * Remember the closest Food a Critter has just found, how close the other Food of each kind
+     * it looked at is, and how far out of sight the Food which could hide anything closer is
+     * @param c the index of the Critter
+     * @param sight the scratch space holding the Food the Critter looked at
+     * @param count the number of candidates the Critter looked at
      */
-    private Food getClosestVisibleFood(Critter c)
+    private void remember(int c, Sight sight, int count)
     {
-        List<Food> visibleFood = visibleFood(c);
-        Food closest = null;
-        double cMag = Double.POSITIVE_INFINITY;
-        for (Food f : visibleFood)
+        double cx = critters.getX(c);
+        double cy = critters.getY(c);
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        double speed = Math.sqrt(vx*vx + vy*vy);
+        Arrays.fill(sight.margins, Double.POSITIVE_INFINITY);
+        Arrays.fill(sight.fallbacks, Double.POSITIVE_INFINITY);
+        Arrays.fill(sight.hidden, Double.POSITIVE_INFINITY);
+        Arrays.fill(sight.hiddenCos, -2);
+        for (int i = 0; i < count; i++)
         {
-            if (closest == null)
+            int f = sight.candidates.get(i);
+            int kind = food.isHealthy(f) ? SightCache.HEALTHY : SightCache.UNHEALTHY;
+            if (f != sight.getTarget(kind))
             {
-                closest = f;
-                cMag = getVector(c,f).getMag();
-                continue;
+                double dx = sight.xs[i] - cx;
+                double dy = sight.ys[i] - cy;
+                double magSq = dx*dx + dy*dy;
+                sight.fallbacks[kind] = Math.min(sight.fallbacks[kind], magSq);
+                if (speed == 0 || magSq == 0 || (vx*dx + vy*dy) / (speed * Math.sqrt(magSq)) >= cosHalfFov)
+                {
+                    sight.margins[kind] = Math.min(sight.margins[kind], magSq);
+                }
             }
-            double mag = getVector(c,f).getMag();
-            if (mag < cMag)
+        }
+        // only Food out of sight which is closer than all the Food in sight can hide anything
+        for (int i = 0; i < count; i++)
+        {
+            int f = sight.candidates.get(i);
+            int kind = food.isHealthy(f) ? SightCache.HEALTHY : SightCache.UNHEALTHY;
+            double dx = sight.xs[i] - cx;
+            double dy = sight.ys[i] - cy;
+            double magSq = dx*dx + dy*dy;
+            if (f != sight.getTarget(kind) && magSq < sight.margins[kind])
             {
-                closest = f;
-                cMag = mag;
+                sight.hidden[kind] = Math.min(sight.hidden[kind], magSq);
+                sight.hiddenCos[kind] = Math.max(sight.hiddenCos[kind], (vx*dx + vy*dy) / (speed * Math.sqrt(magSq)));
             }
         }
-        return closest;
+        sightCache.store(c, cx, cy, vx, vy, foodGrid.getClock());
+        for (int kind = 0; kind < 2; kind++)
+        {
+            sightCache.store(c, kind, sight.getTarget(kind), sight.margins[kind], sight.fallbacks[kind],
+                    sight.hidden[kind], sight.hiddenCos[kind]);
+        }
     }
     
     /**
-     * Update all the critters
+     * Find the closest Food a Critter can see from what it found when it last looked,
+     * if nothing it did not find then could be in sight or closer now
+     * @param c the index of the Critter
+     * @param sight the scratch space to keep the closest Food in
+     * @return true if the Critter found its Food without looking again
      */
-    public void update()
+    private boolean recall(int c, Sight sight)
+    {
+        double cx = critters.getX(c);
+        double cy = critters.getY(c);
+        double moved = sightCache.moved(c, cx, cy, foodGrid);
+        if (moved < 0)
+        {
+            return false;
+        }
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        double turned = sightCache.turned(c, vx, vy);
+        int healthy = sightCache.getTarget(c, SightCache.HEALTHY);
+        int unhealthy = sightCache.getTarget(c, SightCache.UNHEALTHY);
+        sight.candidates.clear();
+        if (healthy >= 0)
+        {
+            sight.candidates.add(healthy);
+        }
+        if (unhealthy >= 0)
+        {
+            sight.candidates.add(unhealthy);
+        }
+        int count = sight.candidates.size();
+        if (count > 0)
+        {
+            sight.gather(food);
+            vision.distances(sight.xs, sight.ys, count, cx, cy, vx, vy, cosHalfFov, range * range, sight.distances);
+        }
+        double healthyMagSq = (healthy >= 0) ? sight.distances[0] : -1;
+        double unhealthyMagSq = (unhealthy >= 0) ? sight.distances[count - 1] : -1;
+        if (!sightCache.holds(c, SightCache.HEALTHY, moved, turned, healthyMagSq, cx, cy)
+                || !sightCache.holds(c, SightCache.UNHEALTHY, moved, turned, unhealthyMagSq, cx, cy))
+        {
+            return false;
+        }
+        sight.forget();
+        if (healthy >= 0)
+        {
+            sight.consider(healthy, true, healthyMagSq);
+        }
+        if (unhealthy >= 0)
+        {
+            sight.consider(unhealthy, false, unhealthyMagSq);
+        }
+        return true;
+    }
+    
+    /**
+     * Get the closest piece of Food a Critter can see and is in range of.
+     * Must not be called while the world is updating.
+     * @param c the index of the Critter to use
+     * @return the index of the closest piece of Food in range of the Critter c, or -1 if there is none
+     */
+    public int getClosestVisibleFood(int c)
+    {
+        foodGrid.activate(critters.getX(c), critters.getY(c), range, tick);
+        return getClosestVisibleFood(c, querySight);
+    }
+    
+    /**
+     * Decide which Critters in a chunk steer this tick, and find the Food each of them steers by
+     * and the Critter each of them is crowded by
+     * @param chunk the chunk to sense for
+     * @param start the index of the first Critter in the chunk
+     * @param end one past the index of the last Critter in the chunk
+     */
+    private void sense(Chunk chunk, int start, int end)
+    {
+        for (int c = start; c < end; c++)
+        {
+            int f = -1;
+            if (chunk.random.nextDouble() < critters.getFoodAttractiveness(c))
+            {
+                see(c, chunk.sight);
+                f = chunk.sight.getClosest();
+                if (f >= 0 && !food.isHealthy(f))
+                {
+                    chunk.turns[c - start] = chunk.random.nextDouble()*Math.PI*2;
+                }
+            }
+            chunk.targets[c - start] = f;
+            chunk.neighbours[c - start] = (critterGrid != null)
+                    ? critterGrid.nearest(c, critters.getX(c), critters.getY(c), separation) : -1;
+        }
+    }
+    
+    /**
+     * Write what a Critter sees of one piece of Food into the sensor rows of its chunk
+     * @param chunk the chunk of the Critter
+     * @param row the first of the three sensor rows to write to
+     * @param k the column of the Critter in the chunk
+     * @param c the index of the Critter
+     * @param f the index of the Food, or -1 if none is seen
+     * @param magSq the squared distance to the Food
+     */
+    private void setSensors(Chunk chunk, int row, int k, int c, int f, double magSq)
+    {
+        float[] inputs = chunk.inputs;
+        if (f < 0)
+        {
+            inputs[row * World.CHUNK_SIZE + k] = 0;
+            inputs[(row + 1) * World.CHUNK_SIZE + k] = 1;
+            inputs[(row + 2) * World.CHUNK_SIZE + k] = 0;
+            return;
+        }
+        double dx = food.getX(f) - critters.getX(c);
+        double dy = food.getY(f) - critters.getY(c);
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        inputs[row * World.CHUNK_SIZE + k] = 1;
+        inputs[(row + 1) * World.CHUNK_SIZE + k] = (float) (Math.sqrt(magSq) / range);
+        inputs[(row + 2) * World.CHUNK_SIZE + k] = (float) (Math.atan2(vx*dy - vy*dx, vx*dx + vy*dy) / halfFov);
+    }
+    
+    /**
+     * Fill in the sensors of every Critter in a chunk, with the closest healthy and the closest
+     * unhealthy Food each of them can see, and run their networks on them as one batch
+     * @param chunk the chunk to sense for
+     * @param start the index of the first Critter in the chunk
+     * @param end one past the index of the last Critter in the chunk
+     */
+    private void think(Chunk chunk, int start, int end)
+    {
+        Sight sight = chunk.sight;
+        for (int c = start; c < end; c++)
+        {
+            see(c, sight);
+            setSensors(chunk, 0, c - start, c, sight.healthy, sight.healthyMagSq);
+            setSensors(chunk, 3, c - start, c, sight.unhealthy, sight.unhealthyMagSq);
+            chunk.neighbours[c - start] = (critterGrid != null)
+                    ? critterGrid.nearest(c, critters.getX(c), critters.getY(c), separation) : -1;
+        }
+        brains.think(start, end - start, chunk.inputs, chunk.activations, chunk.outputs, World.CHUNK_SIZE);
+    }
+    
+    /**
+     * Turn a Critter by the output of its network
+     * @param c the index of the Critter to steer
+     * @param output how far to turn, from -1 to 1 of half the field of view
+     */
+    private void turn(int c, float output)
+    {
+        double angle = output * halfFov;
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        critters.setVelocity(c, vx * cos - vy * sin, vx * sin + vy * cos);
+    }
+    
+    /**
+     * Turn a Critter towards, or randomly away from, the Food it sensed
+     * @param c the index of the Critter to steer
+     * @param f the index of the Food the Critter sensed
+     * @param turn the random turn away from the Food, if it is unhealthy
+     */
+    private void steer(int c, int f, double turn)
+    {
+        double dx = food.getX(f) - critters.getX(c);
+        double dy = food.getY(f) - critters.getY(c);
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        double mag = Math.sqrt(vx*vx + vy*vy);
+        if (!food.isHealthy(f))
+        {
+            double dir = (Math.atan2(dy, dx) + turn) % (Math.PI * 2);
+            if (dir != 0)
+            {
+                critters.setVelocity(c, mag * Math.cos(dir), mag * Math.sin(dir));
+            }
+        }
+        else if (dy != 0 || dx < 0)
+        {
+            // head straight for the food, unless it lies at a direction of 0
+            double scale = mag / Math.sqrt(dx*dx + dy*dy);
+            critters.setVelocity(c, dx * scale, dy * scale);
+        }
+    }
+    
+    /**
+     * Turn a Critter halfway away from the closest Critter crowding it,
+     * using the position the other Critter had at the start of the tick
+     * @param c the index of the Critter to steer
+     * @param n the grid entry of the Critter crowding it
+     */
+    private void avoid(int c, int n)
+    {
+        double dx = critters.getX(c) - critterGrid.getX(n);
+        double dy = critters.getY(c) - critterGrid.getY(n);
+        double away = Math.sqrt(dx*dx + dy*dy);
+        double vx = critters.getVelocityX(c);
+        double vy = critters.getVelocityY(c);
+        double mag = Math.sqrt(vx*vx + vy*vy);
+        if (away == 0 || mag == 0)
+        {
+            // two Critters on the same spot have no direction to part in
+            return;
+        }
+        double hx = vx / mag + dx / away;
+        double hy = vy / mag + dy / away;
+        double heading = Math.sqrt(hx*hx + hy*hy);
+        if (heading == 0)
+        {
+            // heading straight at the other Critter, so turn all the way around
+            critters.setVelocity(c, -vx, -vy);
+            return;
+        }
+        critters.setVelocity(c, hx * mag / heading, hy * mag / heading);
+    }
+    
+    /**
+     * Record that a Critter touched a piece of Food, keeping the Food each Critter touched
+     * in index order, so that eating does not depend on the order of the grid
+     * @param contacts the (critter, food) pairs recorded so far
+     * @param c the index of the Critter
+     * @param f the index of the Food
+     */
+    private static void addContact(IntList contacts, int c, int f)
+    {
+        contacts.add(c);
+        contacts.add(f);
+        for (int i = contacts.size() - 2; i >= 2; i -= 2)
+        {
+            if (contacts.get(i - 2) != c || contacts.get(i - 1) < f)
+            {
+                break;
+            }
+            contacts.set(i, c);
+            contacts.set(i + 1, contacts.get(i - 1));
+            contacts.set(i - 1, f);
+        }
+    }
+    
+    /**
+     * Move every Critter in a chunk, and record which Food they touch
+     * @param chunk the chunk to move
+     * @param start the index of the first Critter in the chunk
+     * @param end one past the index of the last Critter in the chunk
+     */
+    private void move(Chunk chunk, int start, int end)
+    {
+        chunk.contacts.clear();
+        for (int c = start; c < end; c++)
+        {
+            critters.moveX(c, critters.getVelocityX(c));
+            critters.moveY(c, critters.getVelocityY(c));
+            chunk.nearbyFood.clear();
+            foodGrid.query(critters.getX(c), critters.getY(c), Critter.CRITTER_RADIUS + Food.FOOD_RADIUS,
+                    chunk.nearbyFood);
+            for (int i = 0; i < chunk.nearbyFood.size(); i++)
+            {
+                int f = chunk.nearbyFood.get(i);
+                if (critters.touches(c, food.getX(f), food.getY(f)) && !isGhost(f))
+                {
+                    World.addContact(chunk.contacts, c, f);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sense, steer, and move every Critter in a chunk, and record which Food they touch.
+     * Only the chunk's own Critters are written to, so chunks can run at the same time.
+     * @param k the index of the chunk
+     */
+    private void moveChunk(int k)
+    {
+        Chunk chunk = chunks[k];
+        int start = k * World.CHUNK_SIZE;
+        int end = Math.min(critters.size(), start + World.CHUNK_SIZE);
+        boolean timed = metrics != null;
+        long t0 = timed ? System.nanoTime() : 0;
+        if (brains != null)
+        {
+            think(chunk, start, end);
+        }
+        else
+        {
+            sense(chunk, start, end);
+        }
+        long t1 = timed ? System.nanoTime() : 0;
+        for (int c = start; c < end; c++)
+        {
+            if (brains != null)
+            {
+                turn(c, chunk.outputs[c - start]);
+            }
+            else if (chunk.targets[c - start] >= 0)
+            {
+                steer(c, chunk.targets[c - start], chunk.turns[c - start]);
+            }
+            int n = chunk.neighbours[c - start];
+            if (n >= 0)
+            {
+                avoid(c, n);
+            }
+        }
+        long t2 = timed ? System.nanoTime() : 0;
+        move(chunk, start, end);
+        if (timed)
+        {
+            long t3 = System.nanoTime();
+            chunk.senseNanos = t1 - t0;
+            chunk.steerNanos = t2 - t1;
+            chunk.moveNanos = t3 - t2;
+        }
+    }
+    
+    /**
+     * Put back the Food which has finished growing, in the order it was eaten
+     */
+    private void regrow()
+    {
+        int kept = 0;
+        for (int i = 0; i < growing.size(); i++)
+        {
+            int f = growing.get(i);
+            if (ripeTicks[f] <= tick)
+            {
+                ripeTicks[f] = 0;
+                foodGrid.add(f);
+            }
+            else
+            {
+                growing.set(kept++, f);
+            }
+        }
+        growing.truncate(kept);
+    }
+    
+    /**
+     * Respawn a piece of eaten Food where the respawn policy chooses.
+     * Food which takes a while to grow back is taken out of the grid until it is ripe.
+     * @param f the index of the Food
+     * @param random the source of randomness for choosing the position
+     */
+    private void respawn(int f, SplittableRandom random)
+    {
+        respawn.place(f, food, width, height, random, respawnPosition);
+        int delay = respawn.getDelay();
+        if (delay <= 0)
+        {
+            foodGrid.move(f, respawnPosition[0], respawnPosition[1]);
+            return;
+        }
+        foodGrid.remove(f);
+        food.setPosition(f, respawnPosition[0], respawnPosition[1]);
+        ripeTicks[f] = tick + delay;
+        growing.add(f);
+    }
+    
+    /**
+     * Hand each piece of touched Food to the closest Critter which touched it,
+     * the lowest index among Critters at the same distance,
+     * then respawn all the eaten Food, after putting back the Food which has grown
+     * @param random the source of randomness for eating and respawning
+     * @return the number of pieces of healthy Food eaten
+     */
+    private int consume(SplittableRandom random)
     {
-        for (Critter c : critters)
+        int healthyEaten = 0;
+        meals.clear();
+        if (claimants.length < food.size())
+        {
+            int old = claimants.length;
+            claimants = Arrays.copyOf(claimants, food.size());
+            claims = Arrays.copyOf(claims, food.size());
+            Arrays.fill(claimants, old, claimants.length, -1);
+        }
+        if (ripeTicks.length < food.size())
+        {
+            ripeTicks = Arrays.copyOf(ripeTicks, food.size());
+        }
+        if (growing.size() > 0)
         {
-            Vector v = c.getVelocity();
-            if (Math.random() < c.getFoodAttractiveness())
+            regrow();
+        }
+        for (Chunk chunk : chunks)
+        {
+            IntList contacts = chunk.contacts;
+            for (int i = 0; i < contacts.size(); i += 2)
             {
-                Food f = getClosestVisibleFood(c);
-                Vector disp;
-                if (f != null && (disp = getVector(c, f)).getMag() <= Critter.RANGE)
+                int c = contacts.get(i);
+                int f = contacts.get(i + 1);
+                double dx = food.getX(f) - critters.getX(c);
+                double dy = food.getY(f) - critters.getY(c);
+                double magSq = dx*dx + dy*dy;
+                // contacts are in Critter order, so a tie keeps the lower index
+                if (claimants[f] < 0 || magSq < claims[f])
                 {
-                    double dir = disp.getDir();
-                    if (!f.isHealthy())
-                    {
-                        dir = (dir + Math.random()*Math.PI*2) % (Math.PI * 2);
-                    }
-                    if (dir != 0)
-                    {
-                        v.setDir(dir);
-                    }
+                    claimants[f] = c;
+                    claims[f] = magSq;
                 }
             }
-            c.delX(v.getX());
-            c.delY(v.getY());
-            for (Food f : food)
+        }
+        for (Chunk chunk : chunks)
+        {
+            IntList contacts = chunk.contacts;
+            for (int i = 0; i < contacts.size(); i += 2)
             {
-                if (c.contains(f))
+                int c = contacts.get(i);
+                int f = contacts.get(i + 1);
+                if (claimants[f] == c)
                 {
-                    f.x = (int) (Math.random() * World.WORLD_WIDTH);
-                    f.y = (int) (Math.random() * World.WORLD_HEIGHT);
+                    claimants[f] = -1;
+                    meals.add(c);
+                    meals.add(f);
+                    critters.eat(c, food.isHealthy(f), random);
+                    healthyEaten += food.isHealthy(f) ? 1 : 0;
                 }
             }
         }
-        genetics.reproduce();
+        for (int i = 1; i < meals.size(); i += 2)
+        {
+            respawn(meals.get(i), random);
+        }
+        return healthyEaten;
+    }
+    
+    /**
+     * Update all the critters.
+     * Every Critter first moves against the Food and Critter positions from the start of the tick,
+     * possibly on several threads, then each piece of touched Food goes to the closest Critter.
+     */
+    public void update()
+    {
+        SimulationMetrics metrics = this.metrics;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        SplittableRandom random = Seeds.random(seed, Seeds.TICK_STREAM, tick);
+        int count = (critters.size() + World.CHUNK_SIZE - 1) / World.CHUNK_SIZE;
+        if (chunks.length != count)
+        {
+            Chunk[] old = chunks;
+            chunks = Arrays.copyOf(chunks, count);
+            for (int k = old.length; k < count; k++)
+            {
+                chunks[k] = new Chunk(config.getHiddenNeurons());
+            }
+        }
+        for (Chunk chunk : chunks)
+        {
+            chunk.random = random.split();
+        }
+        double active = (sightCache != null) ? sightCache.getActiveReach() : range;
+        foodGrid.activate(critters, Math.max(active, Critter.CRITTER_RADIUS + Food.FOOD_RADIUS), tick);
+        if (sightCache != null)
+        {
+            sightCache.grow(critters.size());
+        }
+        if (critterGrid != null)
+        {
+            critterGrid.rebuild(critters, ghostCritterX, ghostCritterY, ghostCritterCount);
+        }
+        if (brains != null)
+        {
+            brains.update(critters);
+        }
+        if (pool == null || count <= 1)
+        {
+            for (int k = 0; k < count; k++)
+            {
+                moveChunk(k);
+            }
+        }
+        else
+        {
+            pool.invoke(new MoveTask(0, count));
+        }
+        long moved = (metrics != null) ? System.nanoTime() : 0;
+        int healthyEaten = consume(random);
+        long consumed = (metrics != null) ? System.nanoTime() : 0;
+        tick++;
+        genetics.tick(healthyEaten);
+        if (checkpoints != null)
+        {
+            checkpoints.update(this);
+        }
+        if (recorder != null)
+        {
+            recorder.update(this);
+        }
+        FrameBuffer frames = this.frames;
+        if (frames != null)
+        {
+            frames.publish(this);
+        }
+        if (metrics != null)
+        {
+            long sense = 0;
+            long steer = 0;
+            long move = 0;
+            for (Chunk chunk : chunks)
+            {
+                sense += chunk.senseNanos;
+                steer += chunk.steerNanos;
+                move += chunk.moveNanos;
+            }
+            metrics.recordTick(sense, steer, move, consumed - moved, System.nanoTime() - start);
+        }
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,417 @@
+package world;
+
+import world.creatures.Critter;
+
+/**
+ * WorldConfig.java
+ * @author John Zavidniak
+ * The tunable parameters of a World, its Critters, and its Genetics.
+ * Every parameter starts out at the default constant it replaces,
+ * and can also be read and written by name, for parameter sweeps.
+ * A config should not be changed once a World has been created with it.
+ */
+
+public class WorldConfig
+{
+    
+    public static final String[] NAMES = {"fov", "velocity", "growthRate", "range",
+        "separation", "crossover", "mutate", "ticksPerGeneration", "foodPerGeneration", "bounded",
+        "hiddenNeurons"};
+    
+    private double fov;
+    private double velocity;
+    private double growthRate;
+    private double range;
+    private double separation;
+    private double crossover;
+    private double mutate;
+    private int ticksPerGeneration;
+    private int foodPerGeneration;
+    private boolean bounded;
+    private int hiddenNeurons;
+    
+    /**
+     * Create a new config with every parameter at its default
+     */
+    public WorldConfig()
+    {
+        this.fov = Critter.FOV;
+        this.velocity = Critter.VELOCITY;
+        this.growthRate = Critter.GROWTH_RATE;
+        this.range = Critter.RANGE;
+        this.separation = 0;
+        this.crossover = Genetics.CROSSOVER;
+        this.mutate = Genetics.MUTATE;
+        this.ticksPerGeneration = Genetics.DEFAULT_TICKS_PER_GENERATION;
+        this.foodPerGeneration = 0;
+        this.bounded = true;
+        this.hiddenNeurons = 0;
+    }
+    
+    /**
+     * Create a copy of this config
+     * @return a new config with the same parameters as this one
+     */
+    public WorldConfig copy()
+    {
+        WorldConfig c = new WorldConfig();
+        for (String name : WorldConfig.NAMES)
+        {
+            c.set(name, this.get(name));
+        }
+        return c;
+    }
+    
+    /**
+     * Set a parameter by name
+     * @param name the name of the parameter, one of NAMES
+     * @param value the new value of the parameter
+     * @throws IllegalArgumentException if there is no parameter with that name, or the value is out of range
+     * @throws NumberFormatException if the value is not a number
+     */
+    public void set(String name, String value)
+    {
+        switch (name)
+        {
+            case "fov":
+                setFov(Double.parseDouble(value));
+                break;
+            case "velocity":
+                setVelocity(Double.parseDouble(value));
+                break;
+            case "growthRate":
+                setGrowthRate(Double.parseDouble(value));
+                break;
+            case "range":
+                setRange(Double.parseDouble(value));
+                break;
+            case "separation":
+                setSeparation(Double.parseDouble(value));
+                break;
+            case "crossover":
+                setCrossover(Double.parseDouble(value));
+                break;
+            case "mutate":
+                setMutate(Double.parseDouble(value));
+                break;
+            case "ticksPerGeneration":
+                setTicksPerGeneration(Integer.parseInt(value));
+                break;
+            case "foodPerGeneration":
+                setFoodPerGeneration(Integer.parseInt(value));
+                break;
+            case "bounded":
+                if (!value.equals("true") && !value.equals("false"))
+                {
+                    throw new IllegalArgumentException("bounded must be true or false");
+                }
+                bounded = value.equals("true");
+                break;
+            case "hiddenNeurons":
+                setHiddenNeurons(Integer.parseInt(value));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown parameter " + name);
+        }
+    }
+    
+    /**
+     * Get a parameter by name
+     * @param name the name of the parameter, one of NAMES
+     * @return the value of the parameter
+     * @throws IllegalArgumentException if there is no parameter with that name
+     */
+    public String get(String name)
+    {
+        switch (name)
+        {
+            case "fov":
+                return Double.toString(fov);
+            case "velocity":
+                return Double.toString(velocity);
+            case "growthRate":
+                return Double.toString(growthRate);
+            case "range":
+                return Double.toString(range);
+            case "separation":
+                return Double.toString(separation);
+            case "crossover":
+                return Double.toString(crossover);
+            case "mutate":
+                return Double.toString(mutate);
+            case "ticksPerGeneration":
+                return Integer.toString(ticksPerGeneration);
+            case "foodPerGeneration":
+                return Integer.toString(foodPerGeneration);
+            case "bounded":
+                return Boolean.toString(bounded);
+            case "hiddenNeurons":
+                return Integer.toString(hiddenNeurons);
+            default:
+                throw new IllegalArgumentException("unknown parameter " + name);
+        }
+    }
+    
+    /**
+     * Get the angle Critters can see across
+     * @return the field of view of Critters, in radians
+     */
+    public double getFov()
+    {
+        return fov;
+    }
+    
+    /**
+     * Set the angle Critters can see across
+     * @param fov the field of view of Critters, in radians
+     * @throws IllegalArgumentException if fov is out of range
+     */
+    public void setFov(double fov)
+    {
+        if (!(fov > 0 && fov <= 2 * Math.PI))
+        {
+            throw new IllegalArgumentException("the field of view must be more than 0 and at most 2 pi");
+        }
+        this.fov = fov;
+    }
+    
+    /**
+     * Get the speed of Critters
+     * @return the distance a Critter moves in one update
+     */
+    public double getVelocity()
+    {
+        return velocity;
+    }
+    
+    /**
+     * Set the speed of Critters
+     * @param velocity the distance a Critter moves in one update
+     * @throws IllegalArgumentException if velocity is out of range
+     */
+    public void setVelocity(double velocity)
+    {
+        if (!(velocity >= 0))
+        {
+            throw new IllegalArgumentException("the velocity must not be negative");
+        }
+        this.velocity = velocity;
+    }
+    
+    /**
+     * Get how much a Critter's foodAttractiveness changes when it learns
+     * @return the growth rate of foodAttractiveness
+     */
+    public double getGrowthRate()
+    {
+        return growthRate;
+    }
+    
+    /**
+     * Set how much a Critter's foodAttractiveness changes when it learns
+     * @param growthRate the growth rate of foodAttractiveness
+     * @throws IllegalArgumentException if growthRate is out of range
+     */
+    public void setGrowthRate(double growthRate)
+    {
+        if (!(growthRate > 0 && growthRate <= 1))
+        {
+            throw new IllegalArgumentException("the growth rate must be greater than 0 and at most 1");
+        }
+        this.growthRate = growthRate;
+    }
+    
+    /**
+     * Get how far away Critters can see Food
+     * @return the range of sight of Critters
+     */
+    public double getRange()
+    {
+        return range;
+    }
+    
+    /**
+     * Set how far away Critters can see Food
+     * @param range the range of sight of Critters
+     * @throws IllegalArgumentException if range is out of range
+     */
+    public void setRange(double range)
+    {
+        if (!(range >= 0))
+        {
+            throw new IllegalArgumentException("the range must not be negative");
+        }
+        this.range = range;
+    }
+    
+    /**
+     * Get how close Critters may come to each other before they steer apart
+     * @return the distance Critters keep between each other, or 0 if they ignore each other
+     */
+    public double getSeparation()
+    {
+        return separation;
+    }
+    
+    /**
+     * Set how close Critters may come to each other before they steer apart
+     * @param separation the distance Critters keep between each other, or 0 if they ignore each other
+     * @throws IllegalArgumentException if separation is out of range
+     */
+    public void setSeparation(double separation)
+    {
+        if (!(separation >= 0))
+        {
+            throw new IllegalArgumentException("the separation must not be negative");
+        }
+        this.separation = separation;
+    }
+    
+    /**
+     * Get the chance that two parents swap genes
+     * @return the crossover probability
+     */
+    public double getCrossover()
+    {
+        return crossover;
+    }
+    
+    /**
+     * Set the chance that two parents swap genes
+     * @param crossover the crossover probability
+     * @throws IllegalArgumentException if crossover is out of range
+     */
+    public void setCrossover(double crossover)
+    {
+        if (!(crossover >= 0 && crossover <= 1))
+        {
+            throw new IllegalArgumentException("the crossover probability must be from 0 to 1");
+        }
+        this.crossover = crossover;
+    }
+    
+    /**
+     * Get the mutation parameter. A Critter without a network mutates if two
+     * random draws both fall below it; each weight of a network mutates
+     * with it as its chance.
+     * @return the mutation parameter
+     */
+    public double getMutate()
+    {
+        return mutate;
+    }
+    
+    /**
+     * Set the mutation parameter
+     * @param mutate the mutation parameter
+     * @throws IllegalArgumentException if mutate is out of range
+     */
+    public void setMutate(double mutate)
+    {
+        if (!(mutate >= 0 && mutate <= 1))
+        {
+            throw new IllegalArgumentException("the mutation parameter must be from 0 to 1");
+        }
+        this.mutate = mutate;
+    }
+    
+    /**
+     * Get how many updates of the world make up one generation
+     * @return the number of updates per generation, or 0 for no limit
+     */
+    public int getTicksPerGeneration()
+    {
+        return ticksPerGeneration;
+    }
+    
+    /**
+     * Set how many updates of the world make up one generation
+     * @param ticksPerGeneration the number of updates per generation, or 0 for no limit
+     * @throws IllegalArgumentException if ticksPerGeneration is out of range
+     */
+    public void setTicksPerGeneration(int ticksPerGeneration)
+    {
+        if (ticksPerGeneration < 0)
+        {
+            throw new IllegalArgumentException("the number of updates per generation must not be negative");
+        }
+        this.ticksPerGeneration = ticksPerGeneration;
+    }
+    
+    /**
+     * Get how much healthy Food the population may eat in one generation
+     * @return the amount of healthy Food per generation, or 0 for no limit
+     */
+    public int getFoodPerGeneration()
+    {
+        return foodPerGeneration;
+    }
+    
+    /**
+     * Set how much healthy Food the population may eat in one generation
+     * @param foodPerGeneration the amount of healthy Food per generation, or 0 for no limit
+     * @throws IllegalArgumentException if foodPerGeneration is out of range
+     */
+    public void setFoodPerGeneration(int foodPerGeneration)
+    {
+        if (foodPerGeneration < 0)
+        {
+            throw new IllegalArgumentException("the amount of Food per generation must not be negative");
+        }
+        this.foodPerGeneration = foodPerGeneration;
+    }
+    
+    /**
+     * Determine whether generations ever end, by updates or by healthy Food eaten
+     * @return true if either ticksPerGeneration or foodPerGeneration is positive
+     */
+    public boolean endsGenerations()
+    {
+        return ticksPerGeneration > 0 || foodPerGeneration > 0;
+    }
+    
+    /**
+     * Determine whether Critters bounce off the edges of the world.
+     * In an unbounded world Critters roam freely, and the width and height
+     * only give the area Critters and Food are spawned in.
+     * @return true if Critters are kept inside the world, false if not
+     */
+    public boolean isBounded()
+    {
+        return bounded;
+    }
+    
+    /**
+     * Set whether Critters bounce off the edges of the world
+     * @param bounded true to keep Critters inside the world, false to let them roam
+     */
+    public void setBounded(boolean bounded)
+    {
+        this.bounded = bounded;
+    }
+    
+    /**
+     * Get the size of the networks Critters steer by.
+     * Without networks, Critters steer by their foodAttractiveness alone.
+     * @return the number of hidden neurons in each Critter's network, or 0 for no networks
+     */
+    public int getHiddenNeurons()
+    {
+        return hiddenNeurons;
+    }
+    
+    /**
+     * Set the size of the networks Critters steer by
+     * @param hiddenNeurons the number of hidden neurons in each Critter's network, or 0 for no networks
+     * @throws IllegalArgumentException if hiddenNeurons is out of range
+     */
+    public void setHiddenNeurons(int hiddenNeurons)
+    {
+        if (hiddenNeurons < 0)
+        {
+            throw new IllegalArgumentException("the number of hidden neurons must not be negative");
+        }
+        this.hiddenNeurons = hiddenNeurons;
+    }
+    
+}
\ No newline at end of file
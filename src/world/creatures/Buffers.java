@@ -0,0 +1,76 @@
+package world.creatures;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Buffers.java
+ * @author John Zavidniak
+ * Bulk copies between the primitive arrays of the stores and byte buffers,
+ * used to save and load the stores without going through every element
+ */
+
+class Buffers
+{
+    
+    /**
+     * Buffers is a collection of static helpers
+     */
+    private Buffers()
+    {
+    }
+    
+    /**
+     * Write the start of an array of doubles to a buffer
+     * @param out the buffer to write to
+     * @param values the array to write from
+     * @param count the number of values to write
+     */
+    public static void putDoubles(ByteBuffer out, double[] values, int count)
+    {
+        out.asDoubleBuffer().put(values, 0, count);
+        out.position(out.position() + count * Double.BYTES);
+    }
+    
+    /**
+     * Read doubles from a buffer into a new array
+     * @param in the buffer to read from
+     * @param count the number of values to read
+     * @param capacity the length of the new array, at least count
+     * @return the new array
+     */
+    public static double[] getDoubles(ByteBuffer in, int count, int capacity)
+    {
+        double[] values = new double[capacity];
+        in.asDoubleBuffer().get(values, 0, count);
+        in.position(in.position() + count * Double.BYTES);
+        return values;
+    }
+    
+    /**
+     * Write the start of an array of ints to a buffer
+     * @param out the buffer to write to
+     * @param values the array to write from
+     * @param count the number of values to write
+     */
+    public static void putInts(ByteBuffer out, int[] values, int count)
+    {
+        out.asIntBuffer().put(values, 0, count);
+        out.position(out.position() + count * Integer.BYTES);
+    }
+    
+    /**
+     * Read ints from a buffer into a new array
+     * @param in the buffer to read from
+     * @param count the number of values to read
+     * @param capacity the length of the new array, at least count
+     * @return the new array
+     */
+    public static int[] getInts(ByteBuffer in, int count, int capacity)
+    {
+        int[] values = new int[capacity];
+        in.asIntBuffer().get(values, 0, count);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+    
+}
\ No newline at end of file
@@ -3,19 +3,18 @@ package world.creatures;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Rectangle;
+import java.util.random.RandomGenerator;
 
 import world.Vector;
-import world.World;
 
 /**
  * Critter.java
  * @author John Zavidniak
  * The Critters who learn how to find and avoid
- * certain foods
+ * certain foods. A Critter is a view of one entry in a CritterStore.
  */
 
-public class Critter extends Rectangle
+public class Critter
 {
     
     public static final double FOV = Math.PI/2;
@@ -23,69 +22,76 @@ public class Critter extends Rectangle
     public static final double GROWTH_RATE = 0.003;
     public static final int CRITTER_RADIUS = 12;
     public static final int RANGE = Critter.CRITTER_RADIUS * 4;
-    private static final Color CRITTER_COLOR = Color.BLACK;
-    private static final Color CRITTER_FINAL_COLOR = Color.GREEN;
+    public static final Color CRITTER_COLOR = Color.BLACK;
+    public static final Color CRITTER_FINAL_COLOR = Color.GREEN;
+    public static final Color HEADING_COLOR = Color.BLUE;
+    public static final double FINAL_ATTRACTIVENESS = .75;
     
-    private int foodEaten;
-    /*
-     * How attracted a Critter is to healthy food,
-     * and how unattracted a Critter is to unhealthy food
+    private CritterStore store;
+    private int index;
+    
+    /**
+     * Create a view of the Critter at the given index of a store
+     * @param store the store holding the Critter's state
+     * @param index the index of the Critter in the store
+     */
+    public Critter(CritterStore store, int index)
+    {
+        this.store = store;
+        this.index = index;
+    }
+    
+    /**
+     * Get the index of this Critter in its store
+     * @return the index of this Critter in its store
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+    
+    /**
+     * Get the x-position of this Critter
+     * @return the x-position of this Critter
      */
-    private double foodAttractiveness;
-    private Vector velocity;
+    public double getX()
+    {
+        return store.getX(index);
+    }
     
     /**
-     * Create a new Critter at the given position
-     * @param x the x-position of the new Critter
-     * @param y the y-position of the new Critter
+     * Get the y-position of this Critter
+     * @return the y-position of this Critter
      */
-    public Critter(int x, int y)
+    public double getY()
     {
-        super(x, y, Critter.CRITTER_RADIUS, Critter.CRITTER_RADIUS);
-        this.velocity = new Vector(Math.random() * Math.PI * 2, Critter.VELOCITY);
-        this.foodEaten = 0;
-        this.foodAttractiveness = 0.0;
+        return store.getY(index);
     }
     
     /**
-     * Determine whether or not a Critter contains (can eat) a certain piece of food
+     * Determine whether or not a Critter contains (can eat) a certain piece of food,
+     * and if it does, have the Critter eat it
      * @param f The piece of Food to determine whether or not the Critter contains
+     * @param random the source of randomness used while learning
      * @return true if the Critter contains f, false otherwise
      */
-    public boolean contains(Food f)
+    public boolean contains(Food f, RandomGenerator random)
     {
-        double delX = x - f.x;
-        double delY = y - f.y;
-        int dist = (int) Math.sqrt(delX*delX + delY*delY);
-        if (dist <= Critter.CRITTER_RADIUS + Food.FOOD_RADIUS)
+        if (store.touches(index, f.getX(), f.getY()))
         {
-            if (f.isHealthy())
-            {
-                foodEaten += (foodEaten < 1 / Critter.GROWTH_RATE) ? 1 : 0;
-                if (foodAttractiveness <= 1 - Critter.GROWTH_RATE && Math.random() > 0.5)
-                {
-                    foodAttractiveness += Critter.GROWTH_RATE;
-                }
-            }
-            else
-            {
-                if (foodAttractiveness >= Critter.GROWTH_RATE && Math.random() > 0.5)
-                {
-                    foodAttractiveness -= Critter.GROWTH_RATE;
-                }
-            }
+            store.eat(index, f.isHealthy(), random);
             return true;
         }
         return false;
     }
     
     /**
-     * Get the velocity of the Critter
+     * Get a copy of the velocity of the Critter
      * @return the velocity of the Critter
      */
     public Vector getVelocity()
     {
-        return velocity;
+        return Vector.cartesian(store.getVelocityX(index), store.getVelocityY(index));
     }
     
     /**
@@ -94,7 +100,7 @@ public class Critter extends Rectangle
      */
     public double getFoodAttractiveness()
     {
-        return foodAttractiveness;
+        return store.getFoodAttractiveness(index);
     }
     
     /**
@@ -103,7 +109,7 @@ public class Critter extends Rectangle
      */
     public int getFoodEaten()
     {
-        return foodEaten;
+        return store.getFoodEaten(index);
     }
     
     /**
@@ -112,23 +118,7 @@ public class Critter extends Rectangle
      */
     public void delX(double del)
     {
-        if (del == 0)
-        {
-            return;
-        }
-        double abs = Math.abs(del);
-        int futureX =  this.x + (int) (Math.ceil(abs) * del/abs);
-        if (futureX >= World.WORLD_WIDTH - Critter.CRITTER_RADIUS && velocity.getX() > 0)
-        {
-            velocity.setX(-velocity.getX());
-            return;
-        }
-        if (futureX <= Critter.CRITTER_RADIUS && velocity.getX() < 0)
-        {
-            velocity.setX(-velocity.getX());
-            return;
-        }
-        this.x = futureX;
+        store.moveX(index, del);
     }
     
     /**
@@ -137,23 +127,7 @@ public class Critter extends Rectangle
      */
     public void delY(double del)
     {
-        if (del == 0)
-        {
-            return;
-        }
-        double abs = Math.abs(del);
-        int futureY = this.y + (int) (Math.ceil(abs) * del/abs);
-        if (futureY >= World.WORLD_HEIGHT - Critter.CRITTER_RADIUS && velocity.getY() > 0)
-        {
-            velocity.setY(-velocity.getY());
-            return;
-        }
-        if (futureY <= Critter.CRITTER_RADIUS && velocity.getY() < 0)
-        {
-            velocity.setY(-velocity.getY());
-            return;
-        }
-        this.y = futureY;
+        store.moveY(index, del);
     }
     
     /**
@@ -162,8 +136,7 @@ public class Critter extends Rectangle
      */
     public void setFoodAttractiveness(double foodAttraciveness)
     {
-        this.foodAttractiveness = foodAttraciveness;
-        this.foodEaten = (int) (foodAttractiveness / Critter.GROWTH_RATE);
+        store.setFoodAttractiveness(index, foodAttraciveness);
     }
     
     /**
@@ -172,8 +145,7 @@ public class Critter extends Rectangle
      */
     public void setFoodEaten(int foodEaten)
     {
-        this.foodEaten = foodEaten;
-        this.foodAttractiveness = foodEaten * Critter.GROWTH_RATE;
+        store.setFoodEaten(index, foodEaten);
     }
     
     /**
@@ -182,30 +154,40 @@ public class Critter extends Rectangle
      */
     public void setVelocity(Vector velocity)
     {
-        this.velocity = velocity;
+        store.setVelocity(index, velocity.getX(), velocity.getY());
     }
     
     /**
-     * Draw the inner circle of this Critter, which shows what direction it is facing
+     * Draw the inner circle of a Critter, which shows what direction it is facing
      * @param g the Graphics object used to draw
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @param headingX the x-component of the unit vector the Critter is heading along
+     * @param headingY the y-component of the unit vector the Critter is heading along
      */
-    private void drawInnerCirlce(Graphics g)
+    private static void drawInnerCirlce(Graphics g, double x, double y, double headingX, double headingY)
     {
-        g.setColor(Color.BLUE);
-        int xPos = (int) (Critter.CRITTER_RADIUS/2 * Math.cos(velocity.getDir()) + x);
-        int yPos = (int) (Critter.CRITTER_RADIUS/2 * Math.sin(velocity.getDir()) + y);
+        g.setColor(Critter.HEADING_COLOR);
+        int xPos = (int) (Critter.CRITTER_RADIUS/2 * headingX + x);
+        int yPos = (int) (Critter.CRITTER_RADIUS/2 * headingY + y);
         int radius = Critter.CRITTER_RADIUS/3;
         g.fillOval(xPos - radius, yPos - radius,
                 radius * 2, radius * 2);
     }
     
     /**
-     * Draw this Critter
+     * Draw a Critter
      * @param g the Graphics object used to draw
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @param headingX the x-component of the unit vector the Critter is heading along
+     * @param headingY the y-component of the unit vector the Critter is heading along
+     * @param foodAttractiveness the Critter's foodAttractiveness
      */
-    public void draw(Graphics g)
+    public static void draw(Graphics g, double x, double y, double headingX, double headingY,
+            double foodAttractiveness)
     {
-        if (foodAttractiveness < .75)
+        if (foodAttractiveness < Critter.FINAL_ATTRACTIVENESS)
         {
             g.setColor(Critter.CRITTER_COLOR);
         }
@@ -213,9 +195,47 @@ public class Critter extends Rectangle
         {
             g.setColor(Critter.CRITTER_FINAL_COLOR);
         }
-        g.fillOval(x - Critter.CRITTER_RADIUS, y - Critter.CRITTER_RADIUS,
+        g.fillOval((int) x - Critter.CRITTER_RADIUS, (int) y - Critter.CRITTER_RADIUS,
                 Critter.CRITTER_RADIUS*2, Critter.CRITTER_RADIUS * 2);
-        this.drawInnerCirlce(g);
+        Critter.drawInnerCirlce(g, x, y, headingX, headingY);
+    }
+    
+    /**
+     * Draw this Critter
+     * @param g the Graphics object used to draw
+     */
+    public void draw(Graphics g)
+    {
+        double vx = store.getVelocityX(index);
+        double vy = store.getVelocityY(index);
+        double mag = Math.sqrt(vx*vx + vy*vy);
+        Critter.draw(g, getX(), getY(), vx / mag, vy / mag, getFoodAttractiveness());
+    }
+    
+    /**
+     * Two Critters are equal when they view the same entry of the same store
+     * @param o the object to compare with
+     * @return true if o views the same entry as this Critter, false otherwise
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof Critter))
+        {
+            return false;
+        }
+        Critter c = (Critter) o;
+        return c.store == store && c.index == index;
+    }
+    
+    /**
+     * Get a hash code consistent with equals
+     * @return the index of this Critter
+     */
+    @Override
+    public int hashCode()
+    {
+        return index;
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,458 @@
+package world.creatures;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import world.WorldConfig;
+
+/**
+ * CritterStore.java
+ * @author John Zavidniak
+ * The state of every Critter in a world, kept in parallel primitive arrays
+ * so that updating the whole population streams through contiguous memory.
+ * A Critter is identified by its index in this store.
+ */
+
+public class CritterStore
+{
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private int width;
+    private int height;
+    private double velocity;
+    private double growthRate;
+    private boolean bounded;
+    private double[] x;
+    private double[] y;
+    private double[] vx;
+    private double[] vy;
+    /*
+     * How attracted a Critter is to healthy food,
+     * and how unattracted a Critter is to unhealthy food
+     */
+    private double[] foodAttractiveness;
+    /*
+     * The genome of Critter i is genes[i * genomeLength] up to, but not including,
+     * genes[(i + 1) * genomeLength]. Its first word is the amount of food eaten.
+     */
+    private int[] genes;
+    private int genomeLength;
+    /*
+     * Counts every change to the genomes other than eating,
+     * so that anything decoded from them knows when to decode again
+     */
+    private long genesVersion;
+    private int size;
+    
+    /**
+     * Create a new, empty store for Critters who live in an area of the given size
+     * @param width the width of the area the Critters bounce around in, if the world is bounded
+     * @param height the height of the area the Critters bounce around in, if the world is bounded
+     * @param config the parameters of the Critters
+     */
+    public CritterStore(int width, int height, WorldConfig config)
+    {
+        this.width = width;
+        this.height = height;
+        this.velocity = config.getVelocity();
+        this.growthRate = config.getGrowthRate();
+        this.bounded = config.isBounded();
+        x = new double[INITIAL_CAPACITY];
+        y = new double[INITIAL_CAPACITY];
+        vx = new double[INITIAL_CAPACITY];
+        vy = new double[INITIAL_CAPACITY];
+        foodAttractiveness = new double[INITIAL_CAPACITY];
+        genomeLength = 1;
+        genes = new int[INITIAL_CAPACITY];
+        genesVersion = 0;
+        size = 0;
+    }
+    
+    /**
+     * Make room for at least one more Critter
+     */
+    private void grow()
+    {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        foodAttractiveness = Arrays.copyOf(foodAttractiveness, capacity);
+        genes = Arrays.copyOf(genes, capacity * genomeLength);
+    }
+    
+    /**
+     * Add a new Critter which has not eaten anything yet
+     * @param x the x-position of the new Critter
+     * @param y the y-position of the new Critter
+     * @param dir the direction the new Critter is heading
+     * @return the index of the new Critter
+     */
+    public int add(double x, double y, double dir)
+    {
+        if (size == this.x.length)
+        {
+            grow();
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = velocity * Math.cos(dir);
+        this.vy[i] = velocity * Math.sin(dir);
+        this.foodAttractiveness[i] = 0.0;
+        Arrays.fill(genes, i * genomeLength, (i + 1) * genomeLength, 0);
+        genesVersion++;
+        return i;
+    }
+    
+    /**
+     * Add a Critter carrying over the whole state of a Critter from another store
+     * @param x the x-position of the Critter
+     * @param y the y-position of the Critter
+     * @param vx the x-component of the Critter's velocity
+     * @param vy the y-component of the Critter's velocity
+     * @param foodAttractiveness the Critter's foodAttractiveness
+     * @param genome the array holding the Critter's genome
+     * @param offset the index of the first word of the genome, which has getGenomeLength() words
+     * @return the index of the new Critter
+     */
+    public int add(double x, double y, double vx, double vy, double foodAttractiveness, int[] genome, int offset)
+    {
+        int i = add(x, y, 0);
+        setVelocity(i, vx, vy);
+        setGenome(i, foodAttractiveness, genome, offset);
+        return i;
+    }
+    
+    /**
+     * Remove a Critter, moving the last Critter into its place
+     * @param i the index of the Critter to remove
+     */
+    public void remove(int i)
+    {
+        int last = --size;
+        if (i != last)
+        {
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            foodAttractiveness[i] = foodAttractiveness[last];
+            System.arraycopy(genes, last * genomeLength, genes, i * genomeLength, genomeLength);
+        }
+        genesVersion++;
+    }
+    
+    /**
+     * Get the number of Critters in this store
+     * @return the number of Critters in this store
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Get the x-position of a Critter
+     * @param i the index of the Critter
+     * @return the x-position of the Critter
+     */
+    public double getX(int i)
+    {
+        return x[i];
+    }
+    
+    /**
+     * Get the y-position of a Critter
+     * @param i the index of the Critter
+     * @return the y-position of the Critter
+     */
+    public double getY(int i)
+    {
+        return y[i];
+    }
+    
+    /**
+     * Get the x-component of a Critter's velocity
+     * @param i the index of the Critter
+     * @return the x-component of the Critter's velocity
+     */
+    public double getVelocityX(int i)
+    {
+        return vx[i];
+    }
+    
+    /**
+     * Get the y-component of a Critter's velocity
+     * @param i the index of the Critter
+     * @return the y-component of the Critter's velocity
+     */
+    public double getVelocityY(int i)
+    {
+        return vy[i];
+    }
+    
+    /**
+     * Set the velocity of a Critter
+     * @param i the index of the Critter
+     * @param vx the new x-component of the Critter's velocity
+     * @param vy the new y-component of the Critter's velocity
+     */
+    public void setVelocity(int i, double vx, double vy)
+    {
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+    }
+    
+    /**
+     * Get a Critter's foodAttractiveness
+     * @param i the index of the Critter
+     * @return the Critter's foodAttractiveness
+     */
+    public double getFoodAttractiveness(int i)
+    {
+        return foodAttractiveness[i];
+    }
+    
+    /**
+     * Set a Critter's foodAttractiveness, and the amount of food it has eaten to match
+     * @param i the index of the Critter
+     * @param foodAttractiveness the Critter's new foodAttractiveness
+     */
+    public void setFoodAttractiveness(int i, double foodAttractiveness)
+    {
+        this.foodAttractiveness[i] = foodAttractiveness;
+        this.genes[i * genomeLength] = (int) (foodAttractiveness / growthRate);
+        genesVersion++;
+    }
+    
+    /**
+     * Get the amount of food a Critter has eaten
+     * @param i the index of the Critter
+     * @return the amount of food the Critter has eaten
+     */
+    public int getFoodEaten(int i)
+    {
+        return genes[i * genomeLength];
+    }
+    
+    /**
+     * Set the amount of food a Critter has eaten, and its foodAttractiveness to match
+     * @param i the index of the Critter
+     * @param foodEaten the amount of food the Critter has eaten
+     */
+    public void setFoodEaten(int i, int foodEaten)
+    {
+        this.genes[i * genomeLength] = foodEaten;
+        this.foodAttractiveness[i] = foodEaten * growthRate;
+        genesVersion++;
+    }
+    
+    /**
+     * Replace a Critter's genome and foodAttractiveness, which are kept as they are given
+     * even where they do not match, as they may not after the Critter has been eating
+     * @param i the index of the Critter
+     * @param foodAttractiveness the Critter's new foodAttractiveness
+     * @param genome the array holding the new genome
+     * @param offset the index of the first word of the genome, which has getGenomeLength() words
+     */
+    public void setGenome(int i, double foodAttractiveness, int[] genome, int offset)
+    {
+        System.arraycopy(genome, offset, genes, i * genomeLength, genomeLength);
+        this.foodAttractiveness[i] = foodAttractiveness;
+        genesVersion++;
+    }
+    
+    /**
+     * Get the number of int words in the genome of every Critter
+     * @return the number of words in each genome
+     */
+    public int getGenomeLength()
+    {
+        return genomeLength;
+    }
+    
+    /**
+     * Set the number of int words in the genome of every Critter.
+     * Existing words are kept, and new words start out as 0.
+     * @param genomeLength the new number of words in each genome, at least 1
+     */
+    public void setGenomeLength(int genomeLength)
+    {
+        if (genomeLength < 1)
+        {
+            throw new IllegalArgumentException("genomeLength must be at least 1");
+        }
+        int[] resized = new int[x.length * genomeLength];
+        int words = Math.min(genomeLength, this.genomeLength);
+        for (int i = 0; i < size; i++)
+        {
+            System.arraycopy(genes, i * this.genomeLength, resized, i * genomeLength, words);
+        }
+        this.genes = resized;
+        this.genomeLength = genomeLength;
+        genesVersion++;
+    }
+    
+    /**
+     * Get the number of times the genomes have been changed, other than by eating
+     * @return a number which changes whenever a genome is rewritten
+     */
+    public long getGenesVersion()
+    {
+        return genesVersion;
+    }
+    
+    /**
+     * Get the array backing every genome, for operators which work on genomes in place.
+     * After changing a genome, call setFoodEaten with its first word so that the
+     * Critter's foodAttractiveness, and anything else decoded from the genome, matches.
+     * @return the array holding the genome of Critter i from index i * getGenomeLength()
+     */
+    public int[] getGenes()
+    {
+        return genes;
+    }
+    
+    /**
+     * Get the number of bytes save will write
+     * @return the size of the saved state of every Critter, in bytes
+     */
+    public long getSavedSize()
+    {
+        return 2L * Integer.BYTES + (long) size * (5L * Double.BYTES + (long) genomeLength * Integer.BYTES);
+    }
+    
+    /**
+     * Write the state of every Critter to a buffer
+     * @param out the buffer to write to, with at least getSavedSize() bytes remaining
+     */
+    public void save(ByteBuffer out)
+    {
+        out.putInt(size);
+        out.putInt(genomeLength);
+        Buffers.putDoubles(out, x, size);
+        Buffers.putDoubles(out, y, size);
+        Buffers.putDoubles(out, vx, size);
+        Buffers.putDoubles(out, vy, size);
+        Buffers.putDoubles(out, foodAttractiveness, size);
+        Buffers.putInts(out, genes, size * genomeLength);
+    }
+    
+    /**
+     * Replace every Critter in this store with the Critters written by save
+     * @param in the buffer to read from
+     */
+    public void load(ByteBuffer in)
+    {
+        int size = in.getInt();
+        int genomeLength = in.getInt();
+        if (size < 0 || genomeLength < 1)
+        {
+            throw new IllegalArgumentException("corrupt Critter state");
+        }
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        x = Buffers.getDoubles(in, size, capacity);
+        y = Buffers.getDoubles(in, size, capacity);
+        vx = Buffers.getDoubles(in, size, capacity);
+        vy = Buffers.getDoubles(in, size, capacity);
+        foodAttractiveness = Buffers.getDoubles(in, size, capacity);
+        genes = Buffers.getInts(in, size * genomeLength, capacity * genomeLength);
+        this.genomeLength = genomeLength;
+        this.size = size;
+        genesVersion++;
+    }
+    
+    /**
+     * Change a Critter's x-position, bouncing it off the edges of a bounded world
+     * @param i the index of the Critter
+     * @param del the amount to change the Critter's x-position by
+     */
+    public void moveX(int i, double del)
+    {
+        double futureX = x[i] + del;
+        if (bounded)
+        {
+            if (futureX >= width - Critter.CRITTER_RADIUS && vx[i] > 0)
+            {
+                vx[i] = -vx[i];
+                return;
+            }
+            if (futureX <= Critter.CRITTER_RADIUS && vx[i] < 0)
+            {
+                vx[i] = -vx[i];
+                return;
+            }
+        }
+        x[i] = futureX;
+    }
+    
+    /**
+     * Change a Critter's y-position, bouncing it off the edges of a bounded world
+     * @param i the index of the Critter
+     * @param del the amount to change the Critter's y-position by
+     */
+    public void moveY(int i, double del)
+    {
+        double futureY = y[i] + del;
+        if (bounded)
+        {
+            if (futureY >= height - Critter.CRITTER_RADIUS && vy[i] > 0)
+            {
+                vy[i] = -vy[i];
+                return;
+            }
+            if (futureY <= Critter.CRITTER_RADIUS && vy[i] < 0)
+            {
+                vy[i] = -vy[i];
+                return;
+            }
+        }
+        y[i] = futureY;
+    }
+    
+    /**
+     * Determine whether or not a Critter is close enough to a point to eat Food there
+     * @param i the index of the Critter
+     * @param fx the x-position of the Food
+     * @param fy the y-position of the Food
+     * @return true if the Critter can eat Food at (fx, fy), false otherwise
+     */
+    public boolean touches(int i, double fx, double fy)
+    {
+        double delX = x[i] - fx;
+        double delY = y[i] - fy;
+        int reach = Critter.CRITTER_RADIUS + Food.FOOD_RADIUS;
+        return delX*delX + delY*delY <= reach * reach;
+    }
+    
+    /**
+     * Have a Critter eat a piece of Food and learn from it
+     * @param i the index of the Critter
+     * @param healthy the health status of the Food
+     * @param random the source of randomness used while learning
+     */
+    public void eat(int i, boolean healthy, RandomGenerator random)
+    {
+        if (healthy)
+        {
+            int g = i * genomeLength;
+            genes[g] += (genes[g] < 1 / growthRate) ? 1 : 0;
+            if (foodAttractiveness[i] <= 1 - growthRate && random.nextDouble() > 0.5)
+            {
+                foodAttractiveness[i] += growthRate;
+            }
+        }
+        else
+        {
+            if (foodAttractiveness[i] >= growthRate && random.nextDouble() > 0.5)
+            {
+                foodAttractiveness[i] -= growthRate;
+            }
+        }
+    }
+    
+}
\ No newline at end of file
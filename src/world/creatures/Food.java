@@ -2,37 +2,60 @@ package world.creatures;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Rectangle;
 
 /**
  * Food.java
  * @author John Zavidniak
- * The Food which Critters eat
+ * The Food which Critters eat.
+ * A Food object is a view of one entry in a FoodStore.
  */
 
-public class Food extends Rectangle
+public class Food
 {
     
     public static final Color HEALTHY_FOOD_COLOR = Color.RED;
     public static final Color UNHEALTHY_FOOD_COLOR = Color.GRAY;
     public static final int FOOD_RADIUS = 8;
     
-    /*
-     * Critters will learn to eat healthy food,
-     * and to avoid unhealthy food.
+    private FoodStore store;
+    private int index;
+    
+    /**
+     * Create a view of the Food at the given index of a store
+     * @param store the store holding the Food's state
+     * @param index the index of the Food in the store
+     */
+    public Food(FoodStore store, int index)
+    {
+        this.store = store;
+        this.index = index;
+    }
+    
+    /**
+     * Get the index of this Food in its store
+     * @return the index of this Food in its store
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+    
+    /**
+     * Get the x-position of this Food
+     * @return the x-position of this Food
      */
-    private boolean healthy;
+    public double getX()
+    {
+        return store.getX(index);
+    }
     
     /**
-     * Create a new Food object with the given position and health status
-     * @param x the x-position of the new Food object
-     * @param y the y-position of the new Food object
-     * @param healthy the health status of the new Food object
+     * Get the y-position of this Food
+     * @return the y-position of this Food
      */
-    public Food(int x, int y, boolean healthy)
+    public double getY()
     {
-        super(x, y, Food.FOOD_RADIUS, Food.FOOD_RADIUS);
-        this.healthy = healthy;
+        return store.getY(index);
     }
     
     /**
@@ -41,7 +64,7 @@ public class Food extends Rectangle
      */
     public boolean isHealthy()
     {
-        return healthy;
+        return store.isHealthy(index);
     }
     
     /**
@@ -50,14 +73,17 @@ public class Food extends Rectangle
      */
     public void setHealthy(boolean healthy)
     {
-        this.healthy = healthy;
+        store.setHealthy(index, healthy);
     }
     
     /**
-     * Draw this Food
+     * Draw a piece of Food
      * @param g the Graphics object used to draw
+     * @param x the x-position of the Food
+     * @param y the y-position of the Food
+     * @param healthy the health status of the Food
      */
-    public void draw(Graphics g)
+    public static void draw(Graphics g, double x, double y, boolean healthy)
     {
         if (healthy)
         {
@@ -67,8 +93,43 @@ public class Food extends Rectangle
         {
             g.setColor(Food.UNHEALTHY_FOOD_COLOR);
         }
-        g.fillOval(this.x - Food.FOOD_RADIUS, this.y - Food.FOOD_RADIUS,
+        g.fillOval((int) x - Food.FOOD_RADIUS, (int) y - Food.FOOD_RADIUS,
                 Food.FOOD_RADIUS*2, Food.FOOD_RADIUS*2);
     }
     
+    /**
+     * Draw this Food
+     * @param g the Graphics object used to draw
+     */
+    public void draw(Graphics g)
+    {
+        Food.draw(g, getX(), getY(), isHealthy());
+    }
+    
+    /**
+     * Two Foods are equal when they view the same entry of the same store
+     * @param o the object to compare with
+     * @return true if o views the same entry as this Food, false otherwise
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof Food))
+        {
+            return false;
+        }
+        Food f = (Food) o;
+        return f.store == store && f.index == index;
+    }
+    
+    /**
+     * Get a hash code consistent with equals
+     * @return the index of this Food
+     */
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package world.creatures;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * FoodStore.java
+ * @author John Zavidniak
+ * The state of every piece of Food in a world, kept in parallel primitive arrays.
+ * A piece of Food is identified by its index in this store.
+ */
+
+public class FoodStore
+{
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private double[] x;
+    private double[] y;
+    private boolean[] healthy;
+    private int size;
+    
+    /**
+     * Create a new, empty store
+     */
+    public FoodStore()
+    {
+        x = new double[INITIAL_CAPACITY];
+        y = new double[INITIAL_CAPACITY];
+        healthy = new boolean[INITIAL_CAPACITY];
+        size = 0;
+    }
+    
+    /**
+     * Add a new piece of Food
+     * @param x the x-position of the new Food
+     * @param y the y-position of the new Food
+     * @param healthy the health status of the new Food
+     * @return the index of the new Food
+     */
+    public int add(double x, double y, boolean healthy)
+    {
+        if (size == this.x.length)
+        {
+            int capacity = size * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.healthy = Arrays.copyOf(this.healthy, capacity);
+        }
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.healthy[i] = healthy;
+        return i;
+    }
+    
+    /**
+     * Get the number of pieces of Food in this store
+     * @return the number of pieces of Food in this store
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Get the x-position of a piece of Food
+     * @param i the index of the Food
+     * @return the x-position of the Food
+     */
+    public double getX(int i)
+    {
+        return x[i];
+    }
+    
+    /**
+     * Get the y-position of a piece of Food
+     * @param i the index of the Food
+     * @return the y-position of the Food
+     */
+    public double getY(int i)
+    {
+        return y[i];
+    }
+    
+    /**
+     * Set the position of a piece of Food
+     * @param i the index of the Food
+     * @param x the new x-position of the Food
+     * @param y the new y-position of the Food
+     */
+    public void setPosition(int i, double x, double y)
+    {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+    
+    /**
+     * Determine whether or not a piece of Food is healthy
+     * @param i the index of the Food
+     * @return true if the Food is healthy, false if not
+     */
+    public boolean isHealthy(int i)
+    {
+        return healthy[i];
+    }
+    
+    /**
+     * Set the health status of a piece of Food
+     * @param i the index of the Food
+     * @param healthy the new health status of the Food
+     */
+    public void setHealthy(int i, boolean healthy)
+    {
+        this.healthy[i] = healthy;
+    }
+    
+    /**
+     * Get the number of bytes save will write
+     * @return the size of the saved state of every piece of Food, in bytes
+     */
+    public long getSavedSize()
+    {
+        return Integer.BYTES + (long) size * (2L * Double.BYTES + 1);
+    }
+    
+    /**
+     * Write the state of every piece of Food to a buffer
+     * @param out the buffer to write to, with at least getSavedSize() bytes remaining
+     */
+    public void save(ByteBuffer out)
+    {
+        out.putInt(size);
+        Buffers.putDoubles(out, x, size);
+        Buffers.putDoubles(out, y, size);
+        for (int i = 0; i < size; i++)
+        {
+            out.put(healthy[i] ? (byte) 1 : (byte) 0);
+        }
+    }
+    
+    /**
+     * Replace every piece of Food in this store with the Food written by save
+     * @param in the buffer to read from
+     */
+    public void load(ByteBuffer in)
+    {
+        int size = in.getInt();
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("corrupt Food state");
+        }
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        x = Buffers.getDoubles(in, size, capacity);
+        y = Buffers.getDoubles(in, size, capacity);
+        healthy = new boolean[capacity];
+        for (int i = 0; i < size; i++)
+        {
+            healthy[i] = in.get() != 0;
+        }
+        this.size = size;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package world.creatures;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * NeuralBrains.java
+ * @author John Zavidniak
+ * Small feed-forward networks which steer Critters, one network per Critter,
+ * with one hidden layer and the weights of the whole population held in one float matrix.
+ * A network's weights are kept in its Critter's genome, after the amount of food eaten,
+ * as fixed point words, so Genetics evolves them like any other genes.
+ * The matrix is laid out weight by weight across the population, so a batch of
+ * Critters is evaluated with plain loops over consecutive Critters, which the JIT
+ * can turn into vector instructions.
+ */
+
+public class NeuralBrains
+{
+    
+    /*
+     * Whether the closest healthy Food is seen, how far away and at what angle it is,
+     * then the same for the closest unhealthy Food
+     */
+    public static final int INPUTS = 6;
+    /*
+     * How far to turn, as a fraction of the largest turn
+     */
+    public static final int OUTPUTS = 1;
+    
+    /*
+     * The weight a genome word of 1 stands for, so words cover weights from -8 to 8
+     */
+    private static final float WEIGHT_SCALE = 1.0f / (1 << 28);
+    
+    /*
+     * The standard deviation of the weights of a new Critter
+     */
+    private static final double INITIAL_SPREAD = 0.5;
+    
+    /*
+     * The standard deviation of the change a mutation makes to a weight
+     */
+    private static final double MUTATION_SPREAD = 0.1;
+    
+    private int hidden;
+    private int weightCount;
+    /*
+     * Weight k of Critter c is weights[k * stride + c]. Each hidden neuron has
+     * a weight for every input then a bias, and each output a weight for every
+     * hidden neuron then a bias.
+     */
+    private float[] weights;
+    private int stride;
+    private long version;
+    
+    /**
+     * Create the brains of an empty population
+     * @param hidden the number of neurons in the hidden layer, at least 1
+     */
+    public NeuralBrains(int hidden)
+    {
+        if (hidden < 1)
+        {
+            throw new IllegalArgumentException("hidden must be at least 1");
+        }
+        this.hidden = hidden;
+        this.weightCount = hidden * (NeuralBrains.INPUTS + 1) + NeuralBrains.OUTPUTS * (hidden + 1);
+        this.weights = new float[0];
+        this.stride = 0;
+        this.version = -1;
+    }
+    
+    /**
+     * Get the number of neurons in the hidden layer
+     * @return the number of hidden neurons of every network
+     */
+    public int getHiddenNeurons()
+    {
+        return hidden;
+    }
+    
+    /**
+     * Get the number of weights in one network
+     * @return the number of genome words a network needs, after the amount of food eaten
+     */
+    public int getWeightCount()
+    {
+        return weightCount;
+    }
+    
+    /**
+     * Give a Critter a network with random weights
+     * @param critters the store holding the Critter, with genomes long enough for a network
+     * @param c the index of the Critter
+     * @param random the source of randomness for the weights
+     */
+    public void randomize(CritterStore critters, int c, RandomGenerator random)
+    {
+        int length = critters.getGenomeLength();
+        int[] genes = critters.getGenes();
+        for (int k = 0; k < weightCount; k++)
+        {
+            genes[c * length + 1 + k] = (int) Math.round(random.nextGaussian()
+                    * NeuralBrains.INITIAL_SPREAD / NeuralBrains.WEIGHT_SCALE);
+        }
+        critters.setFoodEaten(c, genes[c * length]);
+    }
+    
+    /**
+     * Mutate a Critter's network, nudging each weight by a small random amount
+     * with a given chance, independently of the other weights
+     * @param critters the store holding the Critter
+     * @param c the index of the Critter
+     * @param rate the chance that any one weight changes
+     * @param random the source of randomness for the mutation
+     */
+    public void mutate(CritterStore critters, int c, double rate, RandomGenerator random)
+    {
+        int length = critters.getGenomeLength();
+        int[] genes = critters.getGenes();
+        for (int k = 0; k < weightCount; k++)
+        {
+            if (random.nextDouble() < rate)
+            {
+                int g = c * length + 1 + k;
+                long word = genes[g] + Math.round(random.nextGaussian()
+                        * NeuralBrains.MUTATION_SPREAD / NeuralBrains.WEIGHT_SCALE);
+                genes[g] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, word));
+            }
+        }
+    }
+    
+    /**
+     * Decode the weights of every network from the genomes, if any genome has changed
+     * since they were last decoded. Genomes only change between generations,
+     * so most updates do nothing here.
+     * @param critters the store holding the Critters
+     */
+    public void update(CritterStore critters)
+    {
+        if (critters.getGenesVersion() == version)
+        {
+            return;
+        }
+        int size = critters.size();
+        int length = critters.getGenomeLength();
+        if (length < 1 + weightCount)
+        {
+            throw new IllegalArgumentException("genomes are too short to hold a network");
+        }
+        if (stride < size)
+        {
+            stride = size;
+            weights = new float[weightCount * stride];
+        }
+        int[] genes = critters.getGenes();
+        for (int c = 0; c < size; c++)
+        {
+            int g = c * length + 1;
+            for (int k = 0; k < weightCount; k++)
+            {
+                weights[k * stride + c] = genes[g + k] * NeuralBrains.WEIGHT_SCALE;
+            }
+        }
+        version = critters.getGenesVersion();
+    }
+    
+    /**
+     * Squash a value into -1 to 1, close to tanh but without calling into the math library
+     * @param x the value to squash
+     * @return an approximation of tanh(x)
+     */
+    private static float squash(float x)
+    {
+        float clamped = Math.max(-3f, Math.min(3f, x));
+        float sq = clamped * clamped;
+        return clamped * (27f + sq) / (27f + 9f * sq);
+    }
+    
+    /**
+     * Run the networks of a batch of consecutive Critters, one layer at a time.
+     * Every array holds one row per neuron with one column per Critter of the batch,
+     * so row n of inputs is inputs[n * batch] up to inputs[n * batch + count].
+     * @param start the index of the first Critter in the batch
+     * @param count the number of Critters in the batch
+     * @param inputs the INPUTS rows of sensor values
+     * @param activations scratch space for the hidden rows
+     * @param outputs the OUTPUTS rows to write the results to, each from -1 to 1
+     * @param batch the length of a row
+     */
+    public void think(int start, int count, float[] inputs, float[] activations, float[] outputs, int batch)
+    {
+        int k = 0;
+        for (int j = 0; j < hidden; j++)
+        {
+            NeuralBrains.layer(weights, k * stride + start, stride, inputs, NeuralBrains.INPUTS,
+                    activations, j * batch, count, batch);
+            k += NeuralBrains.INPUTS + 1;
+        }
+        for (int o = 0; o < NeuralBrains.OUTPUTS; o++)
+        {
+            NeuralBrains.layer(weights, k * stride + start, stride, activations, hidden,
+                    outputs, o * batch, count, batch);
+            k += hidden + 1;
+        }
+    }
+    
+    /**
+     * Compute one neuron for a batch of Critters
+     * @param weights the weight matrix
+     * @param w the index of the neuron's first weight for the first Critter of the batch
+     * @param stride the distance between consecutive weights of one Critter
+     * @param in the rows of the previous layer
+     * @param inCount the number of rows in the previous layer
+     * @param out the array to write the neuron's row to
+     * @param o the index of the neuron's row in out
+     * @param count the number of Critters in the batch
+     * @param batch the length of a row
+     */
+    private static void layer(float[] weights, int w, int stride, float[] in, int inCount,
+            float[] out, int o, int count, int batch)
+    {
+        int bias = w + inCount * stride;
+        for (int i = 0; i < count; i++)
+        {
+            out[o + i] = weights[bias + i];
+        }
+        for (int n = 0; n < inCount; n++)
+        {
+            int row = w + n * stride;
+            int from = n * batch;
+            for (int i = 0; i < count; i++)
+            {
+                out[o + i] += weights[row + i] * in[from + i];
+            }
+        }
+        for (int i = 0; i < count; i++)
+        {
+            out[o + i] = NeuralBrains.squash(out[o + i]);
+        }
+    }
+    
+}
\ No newline at end of file
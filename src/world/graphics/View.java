@@ -1,77 +1,198 @@
 package world.graphics;
 
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
 
 import javax.swing.JFrame;
 
-import world.World;
+import world.Frame;
+import world.FrameBuffer;
 import world.creatures.Critter;
 import world.creatures.Food;
 
 /**
  * View.java
  * @author John Zavidniak
- * The class in charge of displaying all the graphics
+ * The class in charge of displaying all the graphics.
+ * It actively renders the latest Frame published by the simulation
+ * into a reused back buffer at a fixed rate, however fast the simulation is running.
  */
 
-public class View extends JFrame
+public class View extends JFrame implements Runnable
 {
     
-    private World world;
+    public static final int FRAMES_PER_SECOND = 60;
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFERS = 2;
+    /*
+     * The largest window opened at first, larger worlds are drawn scaled down
+     */
+    private static final int MAX_SIZE = 800;
+    
+    private FrameBuffer frames;
+    private Canvas canvas;
+    private BufferStrategy strategy;
+    private Dimension bufferSize;
     
     /**
-     * Create a new View object with the given world and dimensions
-     * @param world the world to draw to the screen
-     * @param width the width of the JFrame
-     * @param height the height of the JFrame
+     * Create a new View object with the given frames and dimensions
+     * @param frames the buffer the world publishes its Frames to
+     * @param width the width of the world, the drawing area is scaled down to fit large worlds
+     * @param height the height of the world, the drawing area is scaled down to fit large worlds
      */
-    public View(World world, int width, int height)
+    public View(FrameBuffer frames, int width, int height)
     {
         super("Smart Bots");
-        this.world = world;
-        this.setSize(width, height);
+        this.frames = frames;
+        this.canvas = new Canvas();
+        double scale = Math.min(1.0, (double) View.MAX_SIZE / Math.max(width, height));
+        this.canvas.setPreferredSize(new Dimension((int) (width * scale), (int) (height * scale)));
+        this.canvas.setIgnoreRepaint(true);
+        this.setIgnoreRepaint(true);
+        this.add(canvas);
+        this.pack();
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.setVisible(true);
+        Thread renderer = new Thread(this, "View");
+        renderer.setDaemon(true);
+        renderer.start();
     }
     
     /**
-     * Using double-buffering, draw the graphics to the screen
-     * @param g the Graphics object used to draw
+     * Draw a frame, then wait for the next one, forever
      */
     @Override
-    public void paint(Graphics g)
+    public void run()
     {
-        Graphics gOffScreen;
-        Image offScreen = null;
-        Dimension view = new Dimension(this.getWidth(), this.getHeight());
-        offScreen = createImage(view.width, view.height);
-        gOffScreen = offScreen.getGraphics();
-        gOffScreen.setColor(this.getBackground());
-        gOffScreen.fillRect(0, 0, view.width, view.height);
-        gOffScreen.setColor(getForeground());
-        draw(gOffScreen);
-        g.drawImage(offScreen, 0, 0, this);
+        long period = 1000000000L / View.FRAMES_PER_SECOND;
+        long next = System.nanoTime();
+        while (true)
+        {
+            render();
+            next += period;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0)
+            {
+                try
+                {
+                    Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+            }
+            else
+            {
+                next = System.nanoTime();
+            }
+        }
+    }
+    
+    /**
+     * Draw the latest Frame into the back buffer and show it,
+     * creating the buffers again only when the canvas has changed size
+     */
+    private void render()
+    {
+        Dimension size = canvas.getSize();
+        if (size.width <= 0 || size.height <= 0 || !canvas.isDisplayable())
+        {
+            return;
+        }
+        if (strategy == null || !size.equals(bufferSize))
+        {
+            canvas.createBufferStrategy(View.BUFFERS);
+            strategy = canvas.getBufferStrategy();
+            bufferSize = size;
+        }
+        Frame frame = frames.latest();
+        do
+        {
+            do
+            {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                draw(g, size, frame);
+                g.dispose();
+            }
+            while (strategy.contentsRestored());
+            strategy.show();
+        }
+        while (strategy.contentsLost());
     }
     
     /**
-     * Draw the graphics to the screen
+     * Draw a Frame, changing color only once for every kind of shape
      * @param g the Graphics object used to draw
+     * @param size the size of the area to draw in
+     * @param frame the Frame to draw, or null if there is none yet
      */
-    private void draw(Graphics g)
+    private void draw(Graphics2D g, Dimension size, Frame frame)
     {
         g.setColor(Color.WHITE);
-        g.fillRect(0, 0, this.getWidth(), this.getHeight());
-        for (Food f : world.getFood())
+        g.fillRect(0, 0, size.width, size.height);
+        if (frame == null)
+        {
+            return;
+        }
+        double scale = Math.min((double) size.width / frame.getWidth(), (double) size.height / frame.getHeight());
+        if (scale < 1)
+        {
+            g.scale(scale, scale);
+        }
+        int foodSize = Food.FOOD_RADIUS * 2;
+        g.setColor(Food.HEALTHY_FOOD_COLOR);
+        for (int i = 0; i < frame.getFoodCount(); i++)
+        {
+            if (frame.isFoodHealthy(i) && !Float.isNaN(frame.getFoodX(i)))
+            {
+                g.fillOval((int) frame.getFoodX(i) - Food.FOOD_RADIUS, (int) frame.getFoodY(i) - Food.FOOD_RADIUS,
+                        foodSize, foodSize);
+            }
+        }
+        g.setColor(Food.UNHEALTHY_FOOD_COLOR);
+        for (int i = 0; i < frame.getFoodCount(); i++)
         {
-            f.draw(g);
+            if (!frame.isFoodHealthy(i) && !Float.isNaN(frame.getFoodX(i)))
+            {
+                g.fillOval((int) frame.getFoodX(i) - Food.FOOD_RADIUS, (int) frame.getFoodY(i) - Food.FOOD_RADIUS,
+                        foodSize, foodSize);
+            }
         }
         
-        for (Critter c : world.getCritters())
+        drawCritters(g, frame, false);
+        drawCritters(g, frame, true);
+        int radius = Critter.CRITTER_RADIUS/3;
+        g.setColor(Critter.HEADING_COLOR);
+        for (int i = 0; i < frame.getCritterCount(); i++)
+        {
+            int xPos = (int) (Critter.CRITTER_RADIUS/2 * frame.getHeadingX(i) + frame.getCritterX(i));
+            int yPos = (int) (Critter.CRITTER_RADIUS/2 * frame.getHeadingY(i) + frame.getCritterY(i));
+            g.fillOval(xPos - radius, yPos - radius, radius * 2, radius * 2);
+        }
+    }
+    
+    /**
+     * Draw the bodies of either the trained or the untrained Critters in a Frame
+     * @param g the Graphics object used to draw
+     * @param frame the Frame to draw
+     * @param trained true to draw the Critters who have learned to find food, false for the rest
+     */
+    private void drawCritters(Graphics g, Frame frame, boolean trained)
+    {
+        int critterSize = Critter.CRITTER_RADIUS * 2;
+        g.setColor(trained ? Critter.CRITTER_FINAL_COLOR : Critter.CRITTER_COLOR);
+        for (int i = 0; i < frame.getCritterCount(); i++)
         {
-            c.draw(g);
+            if ((frame.getFoodAttractiveness(i) >= Critter.FINAL_ATTRACTIVENESS) == trained)
+            {
+                g.fillOval((int) frame.getCritterX(i) - Critter.CRITTER_RADIUS,
+                        (int) frame.getCritterY(i) - Critter.CRITTER_RADIUS, critterSize, critterSize);
+            }
         }
     }
     
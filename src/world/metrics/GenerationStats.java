@@ -0,0 +1,89 @@
+package world.metrics;
+
+import world.creatures.CritterStore;
+
+/**
+ * GenerationStats.java
+ * @author John Zavidniak
+ * The fitness of a population at the end of a generation
+ */
+
+public class GenerationStats
+{
+    
+    private long generation;
+    private double meanFoodEaten;
+    private int maxFoodEaten;
+    private double meanAttractiveness;
+    private double maxAttractiveness;
+    
+    /**
+     * Summarize the fitness of a population
+     * @param generation the generation which is ending
+     * @param critters the store holding the population
+     */
+    public GenerationStats(long generation, CritterStore critters)
+    {
+        this.generation = generation;
+        long foodEaten = 0;
+        double attractiveness = 0;
+        for (int i = 0; i < critters.size(); i++)
+        {
+            foodEaten += critters.getFoodEaten(i);
+            attractiveness += critters.getFoodAttractiveness(i);
+            maxFoodEaten = Math.max(maxFoodEaten, critters.getFoodEaten(i));
+            maxAttractiveness = Math.max(maxAttractiveness, critters.getFoodAttractiveness(i));
+        }
+        if (critters.size() > 0)
+        {
+            meanFoodEaten = (double) foodEaten / critters.size();
+            meanAttractiveness = attractiveness / critters.size();
+        }
+    }
+    
+    /**
+     * Get the generation these statistics describe
+     * @return the generation these statistics describe
+     */
+    public long getGeneration()
+    {
+        return generation;
+    }
+    
+    /**
+     * Get the mean amount of food eaten
+     * @return the mean foodEaten of the population
+     */
+    public double getMeanFoodEaten()
+    {
+        return meanFoodEaten;
+    }
+    
+    /**
+     * Get the most food eaten by one Critter
+     * @return the max foodEaten of the population
+     */
+    public int getMaxFoodEaten()
+    {
+        return maxFoodEaten;
+    }
+    
+    /**
+     * Get the mean foodAttractiveness
+     * @return the mean foodAttractiveness of the population
+     */
+    public double getMeanAttractiveness()
+    {
+        return meanAttractiveness;
+    }
+    
+    /**
+     * Get the highest foodAttractiveness
+     * @return the max foodAttractiveness of the population
+     */
+    public double getMaxAttractiveness()
+    {
+        return maxAttractiveness;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package world.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram.java
+ * @author John Zavidniak
+ * A histogram of non-negative longs, such as latencies in nanoseconds,
+ * with buckets spaced like an HDR histogram: every power of two is split into
+ * the same number of linear sub-buckets, so every value is kept to within
+ * about 3% of its size, whatever its magnitude, in a small fixed array.
+ * Recording never allocates, and the histogram can be read while it is being written.
+ */
+
+public class Histogram
+{
+    
+    /*
+     * Every power of two is split into 2^SUB_BITS buckets
+     */
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+    
+    private AtomicLongArray counts;
+    private AtomicLongArray totals;
+    
+    /**
+     * Create a new, empty histogram
+     */
+    public Histogram()
+    {
+        this.counts = new AtomicLongArray(Histogram.BUCKETS);
+        // the count, the sum, and the maximum of every recorded value
+        this.totals = new AtomicLongArray(3);
+    }
+    
+    /**
+     * Get the bucket a value falls in
+     * @param value the value, at least 0
+     * @return the index of the bucket holding value
+     */
+    private static int bucket(long value)
+    {
+        if (value < Histogram.SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - Histogram.SUB_BITS)) & (Histogram.SUB_BUCKETS - 1);
+        return (exponent - Histogram.SUB_BITS + 1) * Histogram.SUB_BUCKETS + sub;
+    }
+    
+    /**
+     * Get the smallest value which falls in a bucket
+     * @param bucket the index of the bucket
+     * @return the lowest value in the bucket
+     */
+    private static long lowest(int bucket)
+    {
+        if (bucket < Histogram.SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = bucket / Histogram.SUB_BUCKETS + Histogram.SUB_BITS - 1;
+        long sub = bucket % Histogram.SUB_BUCKETS;
+        return (1L << exponent) | (sub << (exponent - Histogram.SUB_BITS));
+    }
+    
+    /**
+     * Add a value to the histogram
+     * @param value the value to add, negative values are counted as 0
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        counts.incrementAndGet(Histogram.bucket(value));
+        totals.incrementAndGet(0);
+        totals.addAndGet(1, value);
+        long max = totals.get(2);
+        while (value > max && !totals.compareAndSet(2, max, value))
+        {
+            max = totals.get(2);
+        }
+    }
+    
+    /**
+     * Get the number of values recorded
+     * @return the number of values recorded
+     */
+    public long getCount()
+    {
+        return totals.get(0);
+    }
+    
+    /**
+     * Get the mean of the values recorded
+     * @return the mean of the values recorded, or 0 if there are none
+     */
+    public double getMean()
+    {
+        long count = totals.get(0);
+        return (count == 0) ? 0 : (double) totals.get(1) / count;
+    }
+    
+    /**
+     * Get the largest value recorded
+     * @return the largest value recorded, or 0 if there are none
+     */
+    public long getMax()
+    {
+        return totals.get(2);
+    }
+    
+    /**
+     * Get a value which the given share of the recorded values are at or below
+     * @param percentile the share of values, from 0 to 100
+     * @return the lowest value of the bucket holding the percentile, or 0 if there are no values
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long count = 0;
+        for (int i = 0; i < Histogram.BUCKETS; i++)
+        {
+            count += counts.get(i);
+        }
+        long target = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < Histogram.BUCKETS; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= target && seen > 0)
+            {
+                return Histogram.lowest(i);
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Forget every recorded value
+     */
+    public void reset()
+    {
+        for (int i = 0; i < Histogram.BUCKETS; i++)
+        {
+            counts.set(i, 0);
+        }
+        for (int i = 0; i < 3; i++)
+        {
+            totals.set(i, 0);
+        }
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package world.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsReporter.java
+ * @author John Zavidniak
+ * Periodically prints a one line summary of a World's metrics from a background thread
+ */
+
+public class MetricsReporter implements Runnable
+{
+    
+    private String label;
+    private SimulationMetrics metrics;
+    private PrintStream out;
+    private ScheduledExecutorService timer;
+    private long lastTicks;
+    private long lastTime;
+    
+    /**
+     * Create a new reporter, which does nothing until it is started
+     * @param label the name to print at the start of every line
+     * @param metrics the metrics to report
+     * @param out the stream to print to
+     */
+    public MetricsReporter(String label, SimulationMetrics metrics, PrintStream out)
+    {
+        this.label = label;
+        this.metrics = metrics;
+        this.out = out;
+        this.lastTicks = metrics.getTicks();
+        this.lastTime = System.nanoTime();
+    }
+    
+    /**
+     * Start printing a summary periodically
+     * @param period the number of milliseconds between summaries
+     */
+    public void start(long period)
+    {
+        timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "metrics reporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        timer.scheduleAtFixedRate(this, period, period, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stop printing summaries
+     */
+    public void stop()
+    {
+        if (timer != null)
+        {
+            timer.shutdown();
+        }
+    }
+    
+    /**
+     * Print a summary of the metrics, with the rate of updates since the last summary
+     */
+    @Override
+    public void run()
+    {
+        long ticks = metrics.getTicks();
+        long time = System.nanoTime();
+        double rate = (ticks - lastTicks) / ((time - lastTime) / 1e9);
+        lastTicks = ticks;
+        lastTime = time;
+        
+        Histogram tick = metrics.getTickHistogram();
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("%s ticks/sec %.1f, tick p50 %.1fus p99 %.1fus max %.1fus,", label, rate,
+                tick.getValueAtPercentile(50) / 1e3, tick.getValueAtPercentile(99) / 1e3, tick.getMax() / 1e3));
+        line.append(String.format(" sense %.1fus steer %.1fus move %.1fus consume %.1fus,",
+                metrics.getSenseMeanNanos() / 1e3, metrics.getSteerMeanNanos() / 1e3,
+                metrics.getMoveMeanNanos() / 1e3, metrics.getConsumeMeanNanos() / 1e3));
+        line.append(String.format(" reproduce p99 %.2fms", metrics.getReproduceP99Nanos() / 1e6));
+        GenerationStats stats = metrics.getGenerationStats();
+        if (stats != null)
+        {
+            line.append(String.format(", generation %d foodEaten mean %.2f max %d attractiveness mean %.4f max %.4f",
+                    stats.getGeneration(), stats.getMeanFoodEaten(), stats.getMaxFoodEaten(),
+                    stats.getMeanAttractiveness(), stats.getMaxAttractiveness()));
+        }
+        out.println(line);
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,327 @@
+package world.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import world.creatures.CritterStore;
+
+/**
+ * SimulationMetrics.java
+ * @author John Zavidniak
+ * Timings and fitness statistics of a World, recorded by the World
+ * as it updates and readable from any thread, by a MetricsReporter or over JMX.
+ * A World without metrics does not even read the clock.
+ */
+
+public class SimulationMetrics implements SimulationMetricsMBean
+{
+    
+    private Histogram tick;
+    private Histogram sense;
+    private Histogram steer;
+    private Histogram move;
+    private Histogram consume;
+    private Histogram reproduce;
+    private volatile long start;
+    private volatile GenerationStats generation;
+    
+    /**
+     * Create a new set of metrics with nothing recorded
+     */
+    public SimulationMetrics()
+    {
+        this.tick = new Histogram();
+        this.sense = new Histogram();
+        this.steer = new Histogram();
+        this.move = new Histogram();
+        this.consume = new Histogram();
+        this.reproduce = new Histogram();
+        this.start = System.nanoTime();
+        this.generation = null;
+    }
+    
+    /**
+     * Record the timings of one update
+     * @param senseNanos the time spent sensing, summed over every thread
+     * @param steerNanos the time spent steering, summed over every thread
+     * @param moveNanos the time spent moving, summed over every thread
+     * @param consumeNanos the time spent eating and respawning Food
+     * @param tickNanos the time the whole update took
+     */
+    public void recordTick(long senseNanos, long steerNanos, long moveNanos, long consumeNanos, long tickNanos)
+    {
+        sense.record(senseNanos);
+        steer.record(steerNanos);
+        move.record(moveNanos);
+        consume.record(consumeNanos);
+        tick.record(tickNanos);
+    }
+    
+    /**
+     * Record the fitness of a population whose generation is ending
+     * @param generation the generation which is ending
+     * @param critters the store holding the population
+     */
+    public void recordGeneration(long generation, CritterStore critters)
+    {
+        this.generation = new GenerationStats(generation, critters);
+    }
+    
+    /**
+     * Record how long creating a new population took
+     * @param nanos the time reproduction took
+     */
+    public void recordReproduce(long nanos)
+    {
+        reproduce.record(nanos);
+    }
+    
+    /**
+     * Get the latencies of whole updates
+     * @return the histogram of update latencies
+     */
+    public Histogram getTickHistogram()
+    {
+        return tick;
+    }
+    
+    /**
+     * Get the time spent sensing in each update
+     * @return the histogram of sensing times
+     */
+    public Histogram getSenseHistogram()
+    {
+        return sense;
+    }
+    
+    /**
+     * Get the time spent steering in each update
+     * @return the histogram of steering times
+     */
+    public Histogram getSteerHistogram()
+    {
+        return steer;
+    }
+    
+    /**
+     * Get the time spent moving in each update
+     * @return the histogram of movement times
+     */
+    public Histogram getMoveHistogram()
+    {
+        return move;
+    }
+    
+    /**
+     * Get the time spent eating and respawning Food in each update
+     * @return the histogram of consumption times
+     */
+    public Histogram getConsumeHistogram()
+    {
+        return consume;
+    }
+    
+    /**
+     * Get the latencies of creating new populations
+     * @return the histogram of reproduction latencies
+     */
+    public Histogram getReproduceHistogram()
+    {
+        return reproduce;
+    }
+    
+    /**
+     * Get the fitness of the last population whose generation ended
+     * @return the statistics of the last generation, or null if none has ended
+     */
+    public GenerationStats getGenerationStats()
+    {
+        return generation;
+    }
+    
+    /**
+     * Make these metrics visible over JMX
+     * @param name the name to register them under, unique within the JVM
+     * @throws JMException if the metrics can not be registered
+     */
+    public void register(String name) throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("smartbots:type=SimulationMetrics,name=" + ObjectName.quote(name)));
+    }
+    
+    /**
+     * Get the number of updates measured
+     * @return the number of updates measured
+     */
+    @Override
+    public long getTicks()
+    {
+        return tick.getCount();
+    }
+    
+    /**
+     * Get the average rate of updates since the metrics were enabled or reset
+     * @return the number of updates per second
+     */
+    @Override
+    public double getTicksPerSecond()
+    {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return (seconds > 0) ? tick.getCount() / seconds : 0;
+    }
+    
+    /**
+     * Get the mean latency of a whole update
+     * @return the mean update latency
+     */
+    @Override
+    public double getTickMeanNanos()
+    {
+        return tick.getMean();
+    }
+    
+    /**
+     * Get the 99th percentile latency of a whole update
+     * @return the 99th percentile update latency
+     */
+    @Override
+    public long getTickP99Nanos()
+    {
+        return tick.getValueAtPercentile(99);
+    }
+    
+    /**
+     * Get the mean time per update spent finding the closest visible Food
+     * @return the mean sensing time, summed over every thread
+     */
+    @Override
+    public double getSenseMeanNanos()
+    {
+        return sense.getMean();
+    }
+    
+    /**
+     * Get the mean time per update spent turning Critters
+     * @return the mean steering time, summed over every thread
+     */
+    @Override
+    public double getSteerMeanNanos()
+    {
+        return steer.getMean();
+    }
+    
+    /**
+     * Get the mean time per update spent moving Critters and finding what they touch
+     * @return the mean movement time, summed over every thread
+     */
+    @Override
+    public double getMoveMeanNanos()
+    {
+        return move.getMean();
+    }
+    
+    /**
+     * Get the mean time per update spent eating and respawning Food
+     * @return the mean consumption time
+     */
+    @Override
+    public double getConsumeMeanNanos()
+    {
+        return consume.getMean();
+    }
+    
+    /**
+     * Get the mean latency of creating a new population
+     * @return the mean reproduction latency
+     */
+    @Override
+    public double getReproduceMeanNanos()
+    {
+        return reproduce.getMean();
+    }
+    
+    /**
+     * Get the 99th percentile latency of creating a new population
+     * @return the 99th percentile reproduction latency
+     */
+    @Override
+    public long getReproduceP99Nanos()
+    {
+        return reproduce.getValueAtPercentile(99);
+    }
+    
+    /**
+     * Get the last generation which ended
+     * @return the generation the fitness statistics describe, or -1 if none has ended
+     */
+    @Override
+    public long getGeneration()
+    {
+        GenerationStats stats = generation;
+        return (stats == null) ? -1 : stats.getGeneration();
+    }
+    
+    /**
+     * Get the mean amount of food eaten in the last generation which ended
+     * @return the mean foodEaten of the last generation
+     */
+    @Override
+    public double getMeanFoodEaten()
+    {
+        GenerationStats stats = generation;
+        return (stats == null) ? 0 : stats.getMeanFoodEaten();
+    }
+    
+    /**
+     * Get the most food eaten by one Critter in the last generation which ended
+     * @return the max foodEaten of the last generation
+     */
+    @Override
+    public int getMaxFoodEaten()
+    {
+        GenerationStats stats = generation;
+        return (stats == null) ? 0 : stats.getMaxFoodEaten();
+    }
+    
+    /**
+     * Get the mean foodAttractiveness at the end of the last generation
+     * @return the mean foodAttractiveness of the last generation
+     */
+    @Override
+    public double getMeanAttractiveness()
+    {
+        GenerationStats stats = generation;
+        return (stats == null) ? 0 : stats.getMeanAttractiveness();
+    }
+    
+    /**
+     * Get the highest foodAttractiveness at the end of the last generation
+     * @return the max foodAttractiveness of the last generation
+     */
+    @Override
+    public double getMaxAttractiveness()
+    {
+        GenerationStats stats = generation;
+        return (stats == null) ? 0 : stats.getMaxAttractiveness();
+    }
+    
+    /**
+     * Forget everything measured so far
+     */
+    @Override
+    public void reset()
+    {
+        tick.reset();
+        sense.reset();
+        steer.reset();
+        move.reset();
+        consume.reset();
+        reproduce.reset();
+        generation = null;
+        start = System.nanoTime();
+    }
+    
+}
\ No newline at end of file
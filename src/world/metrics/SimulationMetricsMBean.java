@@ -0,0 +1,108 @@
+package world.metrics;
+
+/**
+ * SimulationMetricsMBean.java
+ * @author John Zavidniak
+ * The view of a World's metrics exposed over JMX.
+ * Latencies are in nanoseconds.
+ */
+
+public interface SimulationMetricsMBean
+{
+    
+    /**
+     * Get the number of updates measured
+     * @return the number of updates measured
+     */
+    public long getTicks();
+    
+    /**
+     * Get the average rate of updates since the metrics were enabled or reset
+     * @return the number of updates per second
+     */
+    public double getTicksPerSecond();
+    
+    /**
+     * Get the mean latency of a whole update
+     * @return the mean update latency
+     */
+    public double getTickMeanNanos();
+    
+    /**
+     * Get the 99th percentile latency of a whole update
+     * @return the 99th percentile update latency
+     */
+    public long getTickP99Nanos();
+    
+    /**
+     * Get the mean time per update spent finding the closest visible Food
+     * @return the mean sensing time, summed over every thread
+     */
+    public double getSenseMeanNanos();
+    
+    /**
+     * Get the mean time per update spent turning Critters
+     * @return the mean steering time, summed over every thread
+     */
+    public double getSteerMeanNanos();
+    
+    /**
+     * Get the mean time per update spent moving Critters and finding what they touch
+     * @return the mean movement time, summed over every thread
+     */
+    public double getMoveMeanNanos();
+    
+    /**
+     * Get the mean time per update spent eating and respawning Food
+     * @return the mean consumption time
+     */
+    public double getConsumeMeanNanos();
+    
+    /**
+     * Get the mean latency of creating a new population
+     * @return the mean reproduction latency
+     */
+    public double getReproduceMeanNanos();
+    
+    /**
+     * Get the 99th percentile latency of creating a new population
+     * @return the 99th percentile reproduction latency
+     */
+    public long getReproduceP99Nanos();
+    
+    /**
+     * Get the last generation which ended
+     * @return the generation the fitness statistics describe, or -1 if none has ended
+     */
+    public long getGeneration();
+    
+    /**
+     * Get the mean amount of food eaten in the last generation which ended
+     * @return the mean foodEaten of the last generation
+     */
+    public double getMeanFoodEaten();
+    
+    /**
+     * Get the most food eaten by one Critter in the last generation which ended
+     * @return the max foodEaten of the last generation
+     */
+    public int getMaxFoodEaten();
+    
+    /**
+     * Get the mean foodAttractiveness at the end of the last generation
+     * @return the mean foodAttractiveness of the last generation
+     */
+    public double getMeanAttractiveness();
+    
+    /**
+     * Get the highest foodAttractiveness at the end of the last generation
+     * @return the max foodAttractiveness of the last generation
+     */
+    public double getMaxAttractiveness();
+    
+    /**
+     * Forget everything measured so far
+     */
+    public void reset();
+    
+}
\ No newline at end of file
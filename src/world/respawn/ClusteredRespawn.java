@@ -0,0 +1,67 @@
+package world.respawn;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.FoodStore;
+
+/**
+ * ClusteredRespawn.java
+ * @author John Zavidniak
+ * Eaten Food grows back at once, next to another piece of Food picked at random,
+ * so that Food gathers into patches which drift as they are grazed
+ */
+
+public class ClusteredRespawn implements RespawnPolicy
+{
+    
+    private double spread;
+    
+    /**
+     * Create a new clustered respawn policy
+     * @param spread the standard deviation of the distance from the picked Food, on each axis
+     */
+    public ClusteredRespawn(double spread)
+    {
+        this.spread = spread;
+    }
+    
+    /**
+     * Choose a position near another piece of Food, kept inside the area Food is spawned in
+     * @param f the index of the Food which was eaten
+     * @param food the store holding every piece of Food
+     * @param width the width of the area Food is spawned in
+     * @param height the height of the area Food is spawned in
+     * @param random the source of randomness used to choose
+     * @param position the array to write the new x and y-position to
+     */
+    @Override
+    public void place(int f, FoodStore food, int width, int height, RandomGenerator random, double[] position)
+    {
+        int g = random.nextInt(food.size());
+        double x = food.getX(g) + random.nextGaussian() * spread;
+        double y = food.getY(g) + random.nextGaussian() * spread;
+        position[0] = Math.max(0, Math.min(width, x));
+        position[1] = Math.max(0, Math.min(height, y));
+    }
+    
+    /**
+     * Get how long eaten Food takes to grow back
+     * @return 0, Food grows back at once
+     */
+    @Override
+    public int getDelay()
+    {
+        return 0;
+    }
+    
+    /**
+     * Get the name of this policy
+     * @return "clustered"
+     */
+    @Override
+    public String getName()
+    {
+        return "clustered";
+    }
+    
+}
\ No newline at end of file
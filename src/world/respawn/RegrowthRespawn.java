@@ -0,0 +1,70 @@
+package world.respawn;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.FoodStore;
+
+/**
+ * RegrowthRespawn.java
+ * @author John Zavidniak
+ * Eaten Food takes a while to grow back, at a position chosen by another policy.
+ * While it grows, an area which has been grazed stays bare.
+ */
+
+public class RegrowthRespawn implements RespawnPolicy
+{
+    
+    private RespawnPolicy placement;
+    private int delay;
+    
+    /**
+     * Create a new regrowth policy
+     * @param placement the policy choosing where Food grows back
+     * @param delay the number of updates eaten Food takes to grow back, at least 1
+     */
+    public RegrowthRespawn(RespawnPolicy placement, int delay)
+    {
+        if (delay < 1)
+        {
+            throw new IllegalArgumentException("delay must be at least 1");
+        }
+        this.placement = placement;
+        this.delay = delay;
+    }
+    
+    /**
+     * Choose the position an eaten piece of Food grows back at, using the placement policy
+     * @param f the index of the Food which was eaten
+     * @param food the store holding every piece of Food
+     * @param width the width of the area Food is spawned in
+     * @param height the height of the area Food is spawned in
+     * @param random the source of randomness used to choose
+     * @param position the array to write the new x and y-position to
+     */
+    @Override
+    public void place(int f, FoodStore food, int width, int height, RandomGenerator random, double[] position)
+    {
+        placement.place(f, food, width, height, random, position);
+    }
+    
+    /**
+     * Get how long eaten Food takes to grow back
+     * @return the number of updates eaten Food takes to grow back
+     */
+    @Override
+    public int getDelay()
+    {
+        return delay;
+    }
+    
+    /**
+     * Get the name of the placement policy
+     * @return the name of the policy choosing where Food grows back
+     */
+    @Override
+    public String getName()
+    {
+        return placement.getName();
+    }
+    
+}
\ No newline at end of file
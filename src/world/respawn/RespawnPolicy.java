@@ -0,0 +1,43 @@
+package world.respawn;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.FoodStore;
+
+/**
+ * RespawnPolicy.java
+ * @author John Zavidniak
+ * A way of choosing where, and how long after it is eaten,
+ * a piece of Food grows back.
+ * Eaten Food is only respawned once every Critter has moved,
+ * so a policy may look at any Food in the store.
+ */
+
+public interface RespawnPolicy
+{
+    
+    /**
+     * Choose the position an eaten piece of Food grows back at
+     * @param f the index of the Food which was eaten
+     * @param food the store holding every piece of Food
+     * @param width the width of the area Food is spawned in
+     * @param height the height of the area Food is spawned in
+     * @param random the source of randomness used to choose
+     * @param position the array to write the new x and y-position to
+     */
+    public void place(int f, FoodStore food, int width, int height, RandomGenerator random, double[] position);
+    
+    /**
+     * Get how long eaten Food takes to grow back.
+     * Food which is growing back can not be seen or eaten.
+     * @return the number of updates before eaten Food can be eaten again, 0 to respawn it at once
+     */
+    public int getDelay();
+    
+    /**
+     * Get the name of the way this policy places Food, as given on the command line
+     * @return the name of the policy
+     */
+    public String getName();
+    
+}
\ No newline at end of file
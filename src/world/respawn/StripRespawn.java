@@ -0,0 +1,77 @@
+package world.respawn;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.FoodStore;
+
+/**
+ * StripRespawn.java
+ * @author John Zavidniak
+ * Eaten Food grows back where another policy chooses, wrapped around into
+ * a vertical strip of the area, so that the Food of a shard stays its own.
+ * Wrapping a uniform position keeps it uniform across the strip.
+ */
+
+public class StripRespawn implements RespawnPolicy
+{
+    
+    private RespawnPolicy placement;
+    private double left;
+    private double right;
+    
+    /**
+     * Create a new strip respawn policy
+     * @param placement the policy choosing where Food grows back in the whole area
+     * @param left the x-position of the left edge of the strip
+     * @param right the x-position of the right edge of the strip, greater than left
+     */
+    public StripRespawn(RespawnPolicy placement, double left, double right)
+    {
+        if (right <= left)
+        {
+            throw new IllegalArgumentException("the strip must have a positive width");
+        }
+        this.placement = placement;
+        this.left = left;
+        this.right = right;
+    }
+    
+    /**
+     * Choose a position using the placement policy, then wrap it into the strip
+     * @param f the index of the Food which was eaten
+     * @param food the store holding every piece of Food
+     * @param width the width of the area Food is spawned in
+     * @param height the height of the area Food is spawned in
+     * @param random the source of randomness used to choose
+     * @param position the array to write the new x and y-position to
+     */
+    @Override
+    public void place(int f, FoodStore food, int width, int height, RandomGenerator random, double[] position)
+    {
+        placement.place(f, food, width, height, random, position);
+        double strip = right - left;
+        double x = (position[0] - left) % strip;
+        position[0] = left + ((x < 0) ? x + strip : x);
+    }
+    
+    /**
+     * Get how long eaten Food takes to grow back, using the placement policy
+     * @return the number of updates eaten Food takes to grow back
+     */
+    @Override
+    public int getDelay()
+    {
+        return placement.getDelay();
+    }
+    
+    /**
+     * Get the name of the placement policy
+     * @return the name of the policy choosing where Food grows back in the whole area
+     */
+    @Override
+    public String getName()
+    {
+        return placement.getName();
+    }
+    
+}
\ No newline at end of file
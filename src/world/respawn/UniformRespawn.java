@@ -0,0 +1,52 @@
+package world.respawn;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.FoodStore;
+
+/**
+ * UniformRespawn.java
+ * @author John Zavidniak
+ * Eaten Food grows back at once, anywhere in the world
+ */
+
+public class UniformRespawn implements RespawnPolicy
+{
+    
+    /**
+     * Choose a position anywhere in the world
+     * @param f the index of the Food which was eaten
+     * @param food the store holding every piece of Food
+     * @param width the width of the area Food is spawned in
+     * @param height the height of the area Food is spawned in
+     * @param random the source of randomness used to choose
+     * @param position the array to write the new x and y-position to
+     */
+    @Override
+    public void place(int f, FoodStore food, int width, int height, RandomGenerator random, double[] position)
+    {
+        position[0] = random.nextDouble() * width;
+        position[1] = random.nextDouble() * height;
+    }
+    
+    /**
+     * Get how long eaten Food takes to grow back
+     * @return 0, Food grows back at once
+     */
+    @Override
+    public int getDelay()
+    {
+        return 0;
+    }
+    
+    /**
+     * Get the name of this policy
+     * @return "uniform"
+     */
+    @Override
+    public String getName()
+    {
+        return "uniform";
+    }
+    
+}
\ No newline at end of file
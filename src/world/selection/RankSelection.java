@@ -0,0 +1,62 @@
+package world.selection;
+
+import java.util.Arrays;
+
+import world.creatures.CritterStore;
+
+/**
+ * RankSelection.java
+ * @author John Zavidniak
+ * Selection weighted by rank instead of raw fitness. The Critter who has eaten
+ * the least food has a weight of 1, the next a weight of 2, and so on, so a few
+ * very fit Critters cannot take over the population in one generation.
+ */
+
+public class RankSelection extends WeightedSelection
+{
+    
+    private long[] keys;
+    
+    /**
+     * Create a new rank selection
+     */
+    public RankSelection()
+    {
+        this.keys = new long[0];
+    }
+    
+    /**
+     * Weigh every Critter by its rank in the amount of food eaten
+     * @param critters the store holding the Critters
+     * @param weights the array to store the weight of Critter i in, at index i
+     */
+    @Override
+    protected void computeWeights(CritterStore critters, long[] weights)
+    {
+        int size = critters.size();
+        if (keys.length < size)
+        {
+            keys = new long[size];
+        }
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = ((long) critters.getFoodEaten(i) << 32) | i;
+        }
+        Arrays.sort(keys, 0, size);
+        for (int rank = 0; rank < size; rank++)
+        {
+            weights[(int) keys[rank]] = rank + 1;
+        }
+    }
+    
+    /**
+     * Get the name of this strategy
+     * @return "rank"
+     */
+    @Override
+    public String getName()
+    {
+        return "rank";
+    }
+    
+}
\ No newline at end of file
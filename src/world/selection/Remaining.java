@@ -0,0 +1,77 @@
+package world.selection;
+
+/**
+ * Remaining.java
+ * @author John Zavidniak
+ * The set of Critters which have not been drawn yet,
+ * supporting constant time random picks and removals
+ */
+
+class Remaining
+{
+    
+    private int[] items;
+    private int[] positions;
+    private int size;
+    
+    /**
+     * Create a new, empty set
+     */
+    public Remaining()
+    {
+        this.items = new int[0];
+        this.positions = new int[0];
+        this.size = 0;
+    }
+    
+    /**
+     * Fill the set with every index from 0 up to, but not including, n
+     * @param n the number of indices
+     */
+    public void reset(int n)
+    {
+        if (items.length < n)
+        {
+            items = new int[n];
+            positions = new int[n];
+        }
+        for (int i = 0; i < n; i++)
+        {
+            items[i] = i;
+            positions[i] = i;
+        }
+        size = n;
+    }
+    
+    /**
+     * Get the number of indices in the set
+     * @return the number of indices in the set
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Get the index at a position in the set
+     * @param position the position, from 0 up to, but not including, size()
+     * @return the index at that position
+     */
+    public int get(int position)
+    {
+        return items[position];
+    }
+    
+    /**
+     * Remove an index from the set, moving the last index into its place
+     * @param index the index to remove
+     */
+    public void remove(int index)
+    {
+        int position = positions[index];
+        int last = items[--size];
+        items[position] = last;
+        positions[last] = position;
+    }
+    
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package world.selection;
+
+import world.creatures.CritterStore;
+
+/**
+ * RouletteSelection.java
+ * @author John Zavidniak
+ * Fitness proportional selection. A Critter's chance of being selected
+ * is directly proportional to the amount of food it has eaten,
+ * counted in units of 100.
+ */
+
+public class RouletteSelection extends WeightedSelection
+{
+    
+    /**
+     * Weigh every Critter by the amount of food it has eaten
+     * @param critters the store holding the Critters
+     * @param weights the array to store the weight of Critter i in, at index i
+     */
+    @Override
+    protected void computeWeights(CritterStore critters, long[] weights)
+    {
+        for (int i = 0; i < critters.size(); i++)
+        {
+            weights[i] = Math.max(0, Math.round(critters.getFoodEaten(i) / 100.0f));
+        }
+    }
+    
+    /**
+     * Get the name of this strategy
+     * @return "roulette"
+     */
+    @Override
+    public String getName()
+    {
+        return "roulette";
+    }
+    
+}
\ No newline at end of file
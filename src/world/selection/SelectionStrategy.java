@@ -0,0 +1,38 @@
+package world.selection;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.CritterStore;
+
+/**
+ * SelectionStrategy.java
+ * @author John Zavidniak
+ * A way of choosing which Critters get to reproduce.
+ * Critters are drawn without replacement: once drawn,
+ * a Critter cannot be drawn again until the next reset.
+ */
+
+public interface SelectionStrategy
+{
+    
+    /**
+     * Make every Critter in a store available to be drawn,
+     * using their current fitness
+     * @param critters the store holding the Critters to draw from
+     */
+    public void reset(CritterStore critters);
+    
+    /**
+     * Draw one of the available Critters and make it unavailable
+     * @param random the source of randomness used to draw
+     * @return the index of the Critter which has been drawn
+     */
+    public int next(RandomGenerator random);
+    
+    /**
+     * Get the name of this strategy, as given on the command line
+     * @return the name of the strategy
+     */
+    public String getName();
+    
+}
\ No newline at end of file
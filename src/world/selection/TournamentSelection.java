@@ -0,0 +1,73 @@
+package world.selection;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.CritterStore;
+
+/**
+ * TournamentSelection.java
+ * @author John Zavidniak
+ * Selection by tournament. A few of the available Critters are picked at random,
+ * and the one among them who has eaten the most food is drawn.
+ */
+
+public class TournamentSelection implements SelectionStrategy
+{
+    
+    private int size;
+    private CritterStore critters;
+    private Remaining remaining;
+    
+    /**
+     * Create a new tournament selection
+     * @param size the number of Critters taking part in each tournament
+     */
+    public TournamentSelection(int size)
+    {
+        this.size = size;
+        this.remaining = new Remaining();
+    }
+    
+    /**
+     * Make every Critter in a store available to be drawn
+     * @param critters the store holding the Critters to draw from
+     */
+    @Override
+    public void reset(CritterStore critters)
+    {
+        this.critters = critters;
+        remaining.reset(critters.size());
+    }
+    
+    /**
+     * Hold a tournament among the available Critters and draw the winner
+     * @param random the source of randomness used to pick the contestants
+     * @return the index of the Critter which has been drawn
+     */
+    @Override
+    public int next(RandomGenerator random)
+    {
+        int best = remaining.get(random.nextInt(remaining.size()));
+        for (int i = 1; i < size; i++)
+        {
+            int c = remaining.get(random.nextInt(remaining.size()));
+            if (critters.getFoodEaten(c) > critters.getFoodEaten(best))
+            {
+                best = c;
+            }
+        }
+        remaining.remove(best);
+        return best;
+    }
+    
+    /**
+     * Get the name of this strategy
+     * @return "tournament"
+     */
+    @Override
+    public String getName()
+    {
+        return "tournament";
+    }
+    
+}
\ No newline at end of file
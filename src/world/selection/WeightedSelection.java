@@ -0,0 +1,127 @@
+package world.selection;
+
+import java.util.random.RandomGenerator;
+
+import world.creatures.CritterStore;
+
+/**
+ * WeightedSelection.java
+ * @author John Zavidniak
+ * Selection where a Critter's chance of being drawn is proportional to a weight.
+ * The weights are kept in a Fenwick tree of prefix sums, so drawing a Critter
+ * and removing it both take O(log n) time.
+ * If every remaining Critter has a weight of 0, a remaining Critter is drawn uniformly.
+ */
+
+public abstract class WeightedSelection implements SelectionStrategy
+{
+    
+    private long[] weights;
+    private long[] tree;
+    private long total;
+    private int size;
+    private Remaining remaining;
+    
+    /**
+     * Create a new selection with no Critters available
+     */
+    public WeightedSelection()
+    {
+        this.weights = new long[0];
+        this.tree = new long[1];
+        this.total = 0;
+        this.size = 0;
+        this.remaining = new Remaining();
+    }
+    
+    /**
+     * Compute the weight of every Critter in a store
+     * @param critters the store holding the Critters
+     * @param weights the array to store the weight of Critter i in, at index i
+     */
+    protected abstract void computeWeights(CritterStore critters, long[] weights);
+    
+    /**
+     * Make every Critter in a store available to be drawn,
+     * using their current fitness
+     * @param critters the store holding the Critters to draw from
+     */
+    @Override
+    public void reset(CritterStore critters)
+    {
+        size = critters.size();
+        if (weights.length < size)
+        {
+            weights = new long[size];
+            tree = new long[size + 1];
+        }
+        computeWeights(critters, weights);
+        total = 0;
+        for (int i = 1; i <= size; i++)
+        {
+            tree[i] = weights[i - 1];
+        }
+        for (int i = 1; i <= size; i++)
+        {
+            total += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size)
+            {
+                tree[parent] += tree[i];
+            }
+        }
+        remaining.reset(size);
+    }
+    
+    /**
+     * Find the Critter whose slice of the prefix sums contains a value
+     * @param value a value from 0 up to, but not including, the total weight
+     * @return the index of the Critter
+     */
+    private int find(long value)
+    {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1)
+        {
+            int next = pos + step;
+            if (next <= size && tree[next] <= value)
+            {
+                pos = next;
+                value -= tree[next];
+            }
+        }
+        return pos;
+    }
+    
+    /**
+     * Draw one of the available Critters and make it unavailable
+     * @param random the source of randomness used to draw
+     * @return the index of the Critter which has been drawn
+     */
+    @Override
+    public int next(RandomGenerator random)
+    {
+        int c;
+        if (total > 0)
+        {
+            c = find(random.nextLong(total));
+        }
+        else
+        {
+            c = remaining.get(random.nextInt(remaining.size()));
+        }
+        long w = weights[c];
+        if (w != 0)
+        {
+            total -= w;
+            weights[c] = 0;
+            for (int i = c + 1; i <= size; i += i & -i)
+            {
+                tree[i] -= w;
+            }
+        }
+        remaining.remove(c);
+        return c;
+    }
+    
+}
\ No newline at end of file